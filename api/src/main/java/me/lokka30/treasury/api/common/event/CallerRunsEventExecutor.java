@@ -0,0 +1,38 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An {@link EventExecutor} which runs every task on the thread submitting it.
+ */
+final class CallerRunsEventExecutor implements EventExecutor {
+
+    static final CallerRunsEventExecutor INSTANCE = new CallerRunsEventExecutor();
+
+    private CallerRunsEventExecutor() {
+    }
+
+    @Override
+    public void execute(@NotNull Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public int queueDepth() {
+        return 0;
+    }
+
+    @Override
+    public long rejectedTaskCount() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+}
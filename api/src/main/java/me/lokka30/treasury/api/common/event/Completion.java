@@ -7,9 +7,13 @@ package me.lokka30.treasury.api.common.event;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -17,6 +21,9 @@ import org.jetbrains.annotations.Nullable;
 /**
  * Represents a state of completion. This is used to block event execution until the
  * {@link EventSubscriber} finishes an async task.
+ * <p>Tasks registered via {@link #whenComplete(Consumer)} are kept in a lock-free list and are
+ * run by the thread which completes this {@code Completion}, hence no thread has to wait for an
+ * async task to finish.
  *
  * @author MrIvanPlays
  * @see EventSubscriber
@@ -31,7 +38,8 @@ public final class Completion {
      */
     @NotNull
     public static Completion completed() {
-        return new Completion(true);
+        // a completed completion never changes its state, hence it can be shared
+        return COMPLETED;
     }
 
     /**
@@ -84,8 +92,13 @@ public final class Completion {
                 : Completion.completedExceptionally(errors);
     }
 
-    private CountDownLatch latch = new CountDownLatch(1);
-    private Collection<Throwable> errors;
+    private static final Completion COMPLETED = new Completion(true);
+
+    private static final AtomicReferenceFieldUpdater<Completion, Object> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(Completion.class, Object.class, "state");
+
+    // null or a Continuation when not completed, a Result when completed
+    private volatile Object state;
 
     /**
      * Creates a new {@code Completion} which is not completed.
@@ -96,13 +109,12 @@ public final class Completion {
 
     private Completion(boolean completed) {
         if (completed) {
-            this.latch.countDown();
+            this.state = Result.SUCCESS;
         }
     }
 
     private Completion(@NotNull Collection<@NotNull Throwable> errors) {
-        this.errors = Objects.requireNonNull(errors, "errors");
-        this.latch.countDown();
+        this.state = new Result(Objects.requireNonNull(errors, "errors"));
     }
 
     private Completion(@NotNull Throwable error) {
@@ -116,7 +128,7 @@ public final class Completion {
      * @since v1.1.2
      */
     public boolean isCompleted() {
-        return latch.getCount() == 0;
+        return state instanceof Result;
     }
 
     /**
@@ -125,10 +137,7 @@ public final class Completion {
      * @throws IllegalStateException if this completion is already completed
      */
     public void complete() {
-        if (latch.getCount() == 0) {
-            throw new IllegalStateException("Completion already completed");
-        }
-        latch.countDown();
+        doComplete(Result.SUCCESS);
     }
 
     /**
@@ -139,12 +148,8 @@ public final class Completion {
      * @throws IllegalStateException if this completion is already completed
      */
     public void completeExceptionally(@NotNull Throwable error) {
-        if (latch.getCount() == 0) {
-            throw new IllegalStateException("Completion already completed");
-        }
         Objects.requireNonNull(error, "error");
-        this.errors = Collections.singletonList(error);
-        latch.countDown();
+        doComplete(new Result(Collections.singletonList(error)));
     }
 
     /**
@@ -155,12 +160,47 @@ public final class Completion {
      * @throws IllegalStateException if this completion is already completed
      */
     public void completeExceptionally(@NotNull Collection<@NotNull Throwable> errors) {
-        if (latch.getCount() == 0) {
-            throw new IllegalStateException("Completion already completed");
-        }
         Objects.requireNonNull(errors, "errors");
-        this.errors = errors;
-        latch.countDown();
+        doComplete(new Result(errors));
+    }
+
+    private void doComplete(@NotNull Result result) {
+        Object current;
+        do {
+            current = state;
+            if (current instanceof Result) {
+                throw new IllegalStateException("Completion already completed");
+            }
+        } while (!STATE.compareAndSet(this, current, result));
+
+        // continuations are pushed onto a stack, run them in the order they were registered
+        Continuation head = null;
+        for (Continuation node = (Continuation) current; node != null; node = node.next) {
+            head = new Continuation(node.task, head);
+        }
+        // a throwing task must not keep the ones after it from running, as fires are chained
+        // through them. the first error is rethrown once all of them ran
+        Throwable thrown = null;
+        for (Continuation node = head; node != null; node = node.next) {
+            try {
+                node.task.accept(result.errors);
+            } catch (Throwable t) {
+                if (thrown == null) {
+                    thrown = t;
+                } else {
+                    thrown.addSuppressed(t);
+                }
+            }
+        }
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        if (thrown != null) {
+            throw new CompletionException(thrown);
+        }
     }
 
     /**
@@ -169,6 +209,11 @@ public final class Completion {
      * to use this method, it is highly recommended that you do it asynchronously.</b>
      */
     public void waitCompletion() {
+        if (isCompleted()) {
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        whenComplete(errors -> latch.countDown());
         try {
             latch.await();
         } catch (InterruptedException e) {
@@ -185,30 +230,94 @@ public final class Completion {
      */
     @NotNull
     public Collection<@NotNull Throwable> getErrors() {
-        return errors == null ? Collections.emptyList() : errors;
+        Object current = state;
+        return current instanceof Result ? ((Result) current).errors : Collections.emptyList();
     }
 
     /**
      * Runs the specified {@link Consumer} {@code task} when this {@code Completion} completes.
-     * <b>WARNING: This has the potential to block the thread it's called onto. In 99% of the use
-     * cases you wouldn't need to use this. If you really need to use this method, it is highly
-     * recommended that you do it asynchronously.</b>
+     * <p>If this {@code Completion} is already completed, the task is run immediately on the
+     * current thread. Otherwise, the task is run on the thread which completes this
+     * {@code Completion}. This method never blocks.
+     * <p>A task which throws doesn't keep the other tasks from running. Once all of them ran,
+     * the first error is rethrown to the thread completing this {@code Completion}, with the
+     * others added as suppressed.
      *
      * @param completedTask task to run
      */
     public void whenComplete(@Nullable Consumer<@NotNull Collection<@NotNull Throwable>> completedTask) {
-        if (completedTask != null) {
-            if (latch.getCount() == 0) {
-                completedTask.accept(getErrors());
-            } else {
-                try {
-                    latch.await();
-                    completedTask.accept(getErrors());
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+        if (completedTask == null) {
+            return;
+        }
+        Object current;
+        do {
+            current = state;
+            if (current instanceof Result) {
+                completedTask.accept(((Result) current).errors);
+                return;
+            }
+        } while (!STATE.compareAndSet(
+                this,
+                current,
+                new Continuation(completedTask, (Continuation) current)
+        ));
+    }
+
+    /**
+     * Returns a {@link CompletableFuture} which completes when this {@code Completion} completes.
+     * If this {@code Completion} completes with a single error, the future is completed
+     * exceptionally with it. If it completes with multiple errors, the future is completed
+     * exceptionally with a {@link CompletionException} caused by the first error, with the rest
+     * of them added as suppressed.
+     *
+     * @return completable future
+     * @since 2.0.2
+     */
+    @NotNull
+    public CompletableFuture<Void> toCompletableFuture() {
+        CompletableFuture<Void> ret = new CompletableFuture<>();
+        whenComplete(errors -> {
+            if (errors.isEmpty()) {
+                ret.complete(null);
+                return;
+            }
+            Iterator<Throwable> iterator = errors.iterator();
+            Throwable first = iterator.next();
+            if (!iterator.hasNext()) {
+                ret.completeExceptionally(first);
+                return;
+            }
+            CompletionException error = new CompletionException(first);
+            while (iterator.hasNext()) {
+                error.addSuppressed(iterator.next());
             }
+            ret.completeExceptionally(error);
+        });
+        return ret;
+    }
+
+    private static final class Result {
+
+        static final Result SUCCESS = new Result(Collections.emptyList());
+
+        final Collection<Throwable> errors;
+
+        Result(Collection<Throwable> errors) {
+            this.errors = errors;
+        }
+
+    }
+
+    private static final class Continuation {
+
+        final Consumer<@NotNull Collection<@NotNull Throwable>> task;
+        final Continuation next;
+
+        Continuation(Consumer<@NotNull Collection<@NotNull Throwable>> task, Continuation next) {
+            this.task = task;
+            this.next = next;
         }
+
     }
 
 }
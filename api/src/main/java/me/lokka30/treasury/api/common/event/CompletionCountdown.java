@@ -0,0 +1,46 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Joins a known amount of {@link Completion Completions} without blocking. Every joined
+ * completion counts down once it's done, and whoever counts down last runs the callback with
+ * the aggregated errors.
+ */
+class CompletionCountdown implements Consumer<@NotNull Collection<@NotNull Throwable>> {
+
+    private final AtomicInteger remaining;
+    private final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    private final Consumer<@NotNull Collection<@NotNull Throwable>> whenDone;
+
+    CompletionCountdown(
+            int count, @NotNull Consumer<@NotNull Collection<@NotNull Throwable>> whenDone
+    ) {
+        this.remaining = new AtomicInteger(count);
+        this.whenDone = whenDone;
+    }
+
+    @Override
+    public void accept(@NotNull Collection<@NotNull Throwable> errors) {
+        if (!errors.isEmpty()) {
+            this.errors.addAll(errors);
+        }
+        if (remaining.decrementAndGet() == 0) {
+            whenDone.accept(this.errors.isEmpty()
+                    ? Collections.emptyList()
+                    : new ArrayList<>(this.errors));
+        }
+    }
+
+}
@@ -5,12 +5,20 @@
 package me.lokka30.treasury.api.common.event;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import me.lokka30.treasury.api.common.misc.CopyOnWriteSortedList;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
@@ -23,9 +31,16 @@ import org.jetbrains.annotations.NotNull;
 public enum EventBus {
     INSTANCE;
 
-    private Map<Class<?>, EventCaller> events = new ConcurrentHashMap<>();
+    private final Map<Class<?>, CopyOnWriteSortedList<EventSubscriber<?>>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Set<EventSubscriber<?>>> ownedSubscriptions = new ConcurrentHashMap<>();
     private EventTypeTracker eventTypes = new EventTypeTracker();
 
+    // replaced after every subscription, so that a plan computed from stale subscriptions is never
+    // stored in the current map
+    private volatile Map<Class<?>, EventCaller> dispatchPlans = new ConcurrentHashMap<>();
+    private volatile EventBusMetrics metrics;
+    private volatile long subscriberTimeoutMillis;
+
     /**
      * Subscribes this {@link EventSubscriber} for calling whenever the event the specified
      * {@code subscription} is listening for gets fired.
@@ -36,11 +51,191 @@ public enum EventBus {
      */
     public <T> void subscribe(@NotNull EventSubscriber<T> subscription) {
         Objects.requireNonNull(subscription, "subscription");
-        events
-                .computeIfAbsent(subscription.eventClass(),
-                        k -> new EventCaller()
+        subscriptions
+                .computeIfAbsent(
+                        subscription.eventClass(),
+                        k -> new CopyOnWriteSortedList<>(Comparator.comparing(EventSubscriber::priority))
                 )
-                .register(subscription);
+                .add(subscription);
+        dispatchPlans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Subscribes this {@link EventSubscriber} for calling whenever the event the specified
+     * {@code subscription} is listening for gets fired, on behalf of the specified
+     * {@code owner}. All the subscriptions of an owner can be removed at once via
+     * {@link #unsubscribeAll(String)}, e.g. when the owning plugin gets disabled or reloaded.
+     *
+     * @param owner        who subscribes, compared case-insensitively
+     * @param subscription the subscription to subscribe
+     * @param <T> event type
+     * @see #unsubscribeAll(String)
+     * @since 2.0.2
+     */
+    public <T> void subscribe(@NotNull String owner, @NotNull EventSubscriber<T> subscription) {
+        Objects.requireNonNull(owner, "owner");
+        Objects.requireNonNull(subscription, "subscription");
+        ownedSubscriptions
+                .computeIfAbsent(owner.toLowerCase(Locale.ROOT), k -> ConcurrentHashMap.newKeySet())
+                .add(subscription);
+        subscribe(subscription);
+    }
+
+    /**
+     * Unsubscribes the specified {@link EventSubscriber}, so it no longer gets called.
+     *
+     * @param subscription the subscription to unsubscribe
+     * @return whether the subscription was subscribed
+     * @see EventSubscriber#unregister()
+     * @since 2.0.2
+     */
+    public boolean unsubscribe(@NotNull EventSubscriber<?> subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        for (Set<EventSubscriber<?>> owned : ownedSubscriptions.values()) {
+            owned.remove(subscription);
+        }
+        if (!removeSubscription(subscription)) {
+            return false;
+        }
+        dispatchPlans = new ConcurrentHashMap<>();
+        forgetMetrics(subscription);
+        return true;
+    }
+
+    /**
+     * Unsubscribes all the {@link EventSubscriber EventSubscribers} subscribed on behalf of the
+     * specified {@code owner} via {@link #subscribe(String, EventSubscriber)}.
+     *
+     * @param owner the owner, compared case-insensitively
+     * @since 2.0.2
+     */
+    public void unsubscribeAll(@NotNull String owner) {
+        Objects.requireNonNull(owner, "owner");
+        Set<EventSubscriber<?>> owned = ownedSubscriptions.remove(owner.toLowerCase(Locale.ROOT));
+        if (owned == null) {
+            return;
+        }
+        boolean removed = false;
+        for (EventSubscriber<?> subscription : owned) {
+            removed |= removeSubscription(subscription);
+            forgetMetrics(subscription);
+        }
+        if (removed) {
+            dispatchPlans = new ConcurrentHashMap<>();
+        }
+    }
+
+    private void forgetMetrics(@NotNull EventSubscriber<?> subscription) {
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.forget(subscription);
+        }
+    }
+
+    private boolean removeSubscription(@NotNull EventSubscriber<?> subscription) {
+        CopyOnWriteSortedList<EventSubscriber<?>> list = subscriptions.get(subscription.eventClass());
+        // subscribers don't override equals, hence compare by identity
+        return list != null && list.removeIf(other -> other == subscription);
+    }
+
+    /**
+     * Starts recording {@link EventBusMetrics}, if not recording already. Recording adds a small
+     * overhead to every fire and subscriber call, hence it is disabled by default.
+     *
+     * @return the metrics being recorded
+     * @see #disableMetrics()
+     * @since 2.0.2
+     */
+    @NotNull
+    public synchronized EventBusMetrics enableMetrics() {
+        EventBusMetrics metrics = this.metrics;
+        if (metrics == null) {
+            this.metrics = metrics = new EventBusMetrics();
+            dispatchPlans = new ConcurrentHashMap<>();
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops recording {@link EventBusMetrics} and discards the recorded ones.
+     *
+     * @since 2.0.2
+     */
+    public synchronized void disableMetrics() {
+        if (this.metrics != null) {
+            this.metrics = null;
+            dispatchPlans = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the {@link EventBusMetrics} being recorded, if {@link #enableMetrics() enabled}.
+     *
+     * @return metrics
+     * @since 2.0.2
+     */
+    @NotNull
+    public Optional<EventBusMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    /**
+     * Sets the default timeout for {@link EventSubscriber EventSubscribers} which don't specify
+     * one via {@link EventSubscriber#timeoutMillis()}. Once a subscriber's {@link Completion}
+     * doesn't complete within the timeout, the bus continues with the next subscribers, so a
+     * misbehaving subscriber can't hold an event forever, and reports a
+     * {@link java.util.concurrent.TimeoutException} among the errors of the event. Timeouts are
+     * tracked by a single timer thread, and are only as precise as a couple of milliseconds.
+     * <p>Subscribers which do their work on the calling thread, e.g.
+     * {@link SimpleEventSubscriber SimpleEventSubscribers}, can't be timed out.
+     * <p>The default is 0, meaning no timeout.
+     *
+     * @param timeout timeout, 0 for none
+     * @param unit    unit of the timeout
+     * @since 2.0.2
+     */
+    public void setSubscriberTimeout(long timeout, @NotNull TimeUnit unit) {
+        Objects.requireNonNull(unit, "unit");
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative");
+        }
+        this.subscriberTimeoutMillis = unit.toMillis(timeout);
+        dispatchPlans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the default subscriber timeout in milliseconds, 0 meaning no timeout.
+     *
+     * @return default subscriber timeout millis
+     * @see #setSubscriberTimeout(long, TimeUnit)
+     * @since 2.0.2
+     */
+    public long getSubscriberTimeoutMillis() {
+        return subscriberTimeoutMillis;
+    }
+
+    /**
+     * Returns the {@link EventExecutor} event calls are currently run on.
+     *
+     * @return event executor
+     * @since 2.0.2
+     */
+    @NotNull
+    public EventExecutor getExecutor() {
+        return ExecutorHolder.INSTANCE.getExecutor();
+    }
+
+    /**
+     * Sets the {@link EventExecutor} event calls are run on. The previous executor gets
+     * {@link EventExecutor#shutdown() shut down}, after running the tasks which were already
+     * submitted to it.
+     *
+     * @param executor the new event executor
+     * @see EventExecutor
+     * @since 2.0.2
+     */
+    public void setExecutor(@NotNull EventExecutor executor) {
+        ExecutorHolder.INSTANCE.setExecutor(executor);
     }
 
     /**
@@ -66,35 +261,182 @@ public enum EventBus {
     @NotNull
     public <T> FireCompletion<T> fire(@NotNull T event) {
         Objects.requireNonNull(event, "event");
-        List<Class<?>> friends = eventTypes.getFriendsOf(event.getClass());
+        EventCaller caller = dispatchPlanFor(event.getClass());
+        long start = caller.startTiming();
+        if (caller.isEmpty()) {
+            caller.recordFire(start, 1, 0);
+            return new FireCompletion<>(event, null);
+        }
+        if (caller.isInline()) {
+            return callInline(caller, event, start);
+        }
+        FireCompletion<T> ret = new FireCompletion<>();
+        ExecutorHolder.INSTANCE.getExecutor().execute(() -> caller
+                .call(event)
+                .whenComplete(errors -> complete(ret, event, errors, caller, start)));
+        return ret;
+    }
+
+    /**
+     * Calls/Fires the {@link EventSubscriber EventSubscribers} of the specified {@code event} on
+     * the current thread.
+     * <p>If all the subscribers are {@link SimpleEventSubscriber SimpleEventSubscribers}, the
+     * returned {@link FireCompletion} is already completed. Otherwise, the subscribers following
+     * one which returned a {@link Completion} that is not yet completed are called on the thread
+     * completing it.
+     * <p><b>WARNING: The subscribers are run on the thread this is called onto. Do not use this
+     * for events whose subscribers may do blocking work.</b>
+     *
+     * @param event the event to fire
+     * @param <T> event type
+     * @return {@link FireCompletion}
+     * @see InlineProcessing
+     * @since 2.0.2
+     */
+    @NotNull
+    public <T> FireCompletion<T> fireSync(@NotNull T event) {
+        Objects.requireNonNull(event, "event");
+        EventCaller caller = dispatchPlanFor(event.getClass());
+        long start = caller.startTiming();
+        if (caller.isEmpty()) {
+            caller.recordFire(start, 1, 0);
+            return new FireCompletion<>(event, null);
+        }
+        if (caller.isSimpleSequential()) {
+            return callInline(caller, event, start);
+        }
         FireCompletion<T> ret = new FireCompletion<>();
-        ExecutorHolder.INSTANCE.getExecutor().execute(() -> {
-            List<Completion> completions = new ArrayList<>();
-            EventCaller caller = events.get(event.getClass());
-            if (caller != null) {
-                completions.add(caller.call(event));
+        caller.call(event).whenComplete(errors -> complete(ret, event, errors, caller, start));
+        return ret;
+    }
+
+    /**
+     * Calls/Fires the {@link EventSubscriber EventSubscribers} of all the specified
+     * {@code events} as one batch.
+     * <p>This is meant for bulk operations, which would otherwise fire a lot of events one by one.
+     * The subscribers of each event class are resolved once, and every subscriber is called with
+     * the whole batch before the next one is, keeping the {@link EventPriority} ordering for each
+     * event. The whole batch is handed over to the {@link EventExecutor} at once.
+     * <p>If a subscriber errors for an event, that event is not passed to the subsequent
+     * subscribers, while the rest of the batch is. The returned {@link FireCompletion} is
+     * completed exceptionally with all the errors of the batch.
+     *
+     * @param events the events to fire
+     * @param <T> event type
+     * @return {@link FireCompletion} of the specified {@code events}
+     * @see #fire(Object)
+     * @since 2.0.2
+     */
+    @NotNull
+    public <T> FireCompletion<Collection<T>> fireAll(@NotNull Collection<T> events) {
+        Objects.requireNonNull(events, "events");
+        long start = System.nanoTime();
+        Map<Class<?>, List<Object>> batches = new LinkedHashMap<>();
+        for (T event : events) {
+            Objects.requireNonNull(event, "event");
+            batches.computeIfAbsent(event.getClass(), k -> new ArrayList<>()).add(event);
+        }
+
+        List<EventCaller> callers = new ArrayList<>(batches.size());
+        List<Object[]> batchArrays = new ArrayList<>(batches.size());
+        boolean inline = true;
+        for (Map.Entry<Class<?>, List<Object>> batch : batches.entrySet()) {
+            EventCaller caller = dispatchPlanFor(batch.getKey());
+            if (caller.isEmpty()) {
+                continue;
             }
-            for (Class<?> friend : friends) {
-                EventCaller friendCaller = events.get(friend);
-                if (friendCaller != null) {
-                    completions.add(friendCaller.call(event));
-                }
+            inline &= caller.isInline();
+            callers.add(caller);
+            batchArrays.add(batch.getValue().toArray());
+        }
+        if (callers.isEmpty()) {
+            return new FireCompletion<>(events, null);
+        }
+
+        if (inline) {
+            List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < callers.size(); i++) {
+                EventCaller caller = callers.get(i);
+                Object[] batch = batchArrays.get(i);
+                Collection<Throwable> batchErrors = caller.callAll(batch).getErrors();
+                caller.recordFire(start, batch.length, Math.min(batchErrors.size(), batch.length));
+                errors.addAll(batchErrors);
             }
-            if (!completions.isEmpty()) {
-                Completion.join(completions.toArray(new Completion[0])).whenComplete(errors -> {
-                    if (!errors.isEmpty()) {
-                        ret.completeExceptionally(errors);
-                    } else {
-                        ret.complete(event);
-                    }
+            return new FireCompletion<>(events, errors.isEmpty() ? null : errors);
+        }
+
+        FireCompletion<Collection<T>> ret = new FireCompletion<>();
+        ExecutorHolder.INSTANCE.getExecutor().execute(() -> {
+            CompletionCountdown countdown = new CompletionCountdown(callers.size(), errors -> {
+                if (!errors.isEmpty()) {
+                    ret.completeExceptionally(errors);
+                } else {
+                    ret.complete(events);
+                }
+            });
+            for (int i = 0; i < callers.size(); i++) {
+                EventCaller caller = callers.get(i);
+                Object[] batch = batchArrays.get(i);
+                caller.callAll(batch).whenComplete(batchErrors -> {
+                    // errors are not tracked per event, each error is assumed to be of another event
+                    caller.recordFire(start, batch.length, Math.min(batchErrors.size(), batch.length));
+                    countdown.accept(batchErrors);
                 });
-            } else {
-                ret.complete(event);
             }
         });
         return ret;
     }
 
+    @NotNull
+    private static <T> FireCompletion<T> callInline(
+            @NotNull EventCaller caller, @NotNull T event, long start
+    ) {
+        Collection<Throwable> errors = caller.callInline(event);
+        caller.recordFire(start, 1, errors.isEmpty() ? 0 : 1);
+        return new FireCompletion<>(event, errors.isEmpty() ? null : errors);
+    }
+
+    private static <T> void complete(
+            @NotNull FireCompletion<T> completion,
+            @NotNull T event,
+            @NotNull Collection<@NotNull Throwable> errors,
+            @NotNull EventCaller caller,
+            long start
+    ) {
+        caller.recordFire(start, 1, errors.isEmpty() ? 0 : 1);
+        if (!errors.isEmpty()) {
+            completion.completeExceptionally(errors);
+        } else {
+            completion.complete(event);
+        }
+    }
+
+    @NotNull
+    private EventCaller dispatchPlanFor(@NotNull Class<?> eventClass) {
+        Map<Class<?>, EventCaller> plans = this.dispatchPlans;
+        EventCaller caller = plans.get(eventClass);
+        if (caller == null) {
+            caller = plans.computeIfAbsent(eventClass, this::createDispatchPlan);
+        }
+        return caller;
+    }
+
+    @NotNull
+    private EventCaller createDispatchPlan(@NotNull Class<?> eventClass) {
+        List<EventSubscriber<?>> subscribers = new ArrayList<>();
+        CopyOnWriteSortedList<EventSubscriber<?>> own = subscriptions.get(eventClass);
+        if (own != null) {
+            subscribers.addAll(own);
+        }
+        for (Class<?> friend : eventTypes.getFriendsOf(eventClass)) {
+            CopyOnWriteSortedList<EventSubscriber<?>> friendSubscribers = subscriptions.get(friend);
+            if (friendSubscribers != null) {
+                subscribers.addAll(friendSubscribers);
+            }
+        }
+        return new EventCaller(eventClass, subscribers, metrics, subscriberTimeoutMillis);
+    }
+
     /**
      * Represents a builder of a {@link EventSubscriber}
      *
@@ -106,6 +448,7 @@ public enum EventBus {
 
         private final Class<T> eventClass;
         private EventPriority priority;
+        private long timeoutMillis = -1;
         private Consumer<T> eventConsumer;
         private Function<T, Completion> completions;
 
@@ -125,6 +468,26 @@ public enum EventBus {
             return this;
         }
 
+        /**
+         * Specifies how long the {@link EventBus} waits for the {@link Completion} of the
+         * currently building {@link EventSubscriber} to complete, 0 meaning no timeout.
+         *
+         * @param timeout timeout
+         * @param unit    unit of the timeout
+         * @return this instance for chaining
+         * @see EventSubscriber#timeoutMillis()
+         * @since 2.0.2
+         */
+        @Contract("_, _ -> this")
+        public EventSubscriberBuilder<T> withTimeout(long timeout, @NotNull TimeUnit unit) {
+            Objects.requireNonNull(unit, "unit");
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout cannot be negative");
+            }
+            this.timeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
         /**
          * Specifies the action to do whenever the event the currently building
          * {@link EventSubscriber} subscribes for gets fired.
@@ -168,6 +531,16 @@ public enum EventBus {
                     public void subscribe(@NotNull final T event) {
                         eventConsumer.accept(event);
                     }
+
+                    @Override
+                    public long timeoutMillis() {
+                        return timeoutMillis;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return describe(this, eventConsumer);
+                    }
                 };
             } else {
                 Objects.requireNonNull(completions, "completions");
@@ -177,10 +550,29 @@ public enum EventBus {
                     public Completion onEvent(@NotNull final T event) {
                         return completions.apply(event);
                     }
+
+                    @Override
+                    public long timeoutMillis() {
+                        return timeoutMillis;
+                    }
+
+                    @Override
+                    public String toString() {
+                        return describe(this, completions);
+                    }
                 };
             }
         }
 
+        // lambda class names contain the class declaring them, which is what identifies a
+        // subscriber made via the builder
+        @NotNull
+        private static String describe(@NotNull EventSubscriber<?> subscriber, @NotNull Object handler) {
+            return "EventSubscriber{eventClass=" + subscriber.eventClass().getName()
+                    + ", priority=" + subscriber.priority()
+                    + ", handler=" + handler.getClass().getName() + '}';
+        }
+
     }
 
 }
@@ -0,0 +1,402 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import com.google.common.annotations.Beta;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Timing metrics of the {@link EventBus}. Metrics are opt-in, and are only recorded while
+ * enabled via {@link EventBus#enableMetrics()}.
+ * <p>For every fired event class, the amount of fires, the amount of fires which completed
+ * exceptionally and a histogram of the end-to-end latency, from firing until the
+ * {@link FireCompletion} completes, are recorded. For every {@link EventSubscriber}, the amount of
+ * calls, the amount of errors and a histogram of the time until its {@link Completion} completes
+ * are recorded.
+ * <p>Recording is cheap: counters are striped and histograms use fixed buckets, so recording never
+ * allocates nor locks.
+ *
+ * @see EventBus#enableMetrics()
+ * @since 2.0.2
+ */
+@Beta
+public final class EventBusMetrics {
+
+    private final Map<Class<?>, EventMetrics> events = new ConcurrentHashMap<>();
+    private final Map<EventSubscriber<?>, SubscriberMetrics> subscribers = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    EventBusMetrics() {
+    }
+
+    /**
+     * Returns the epoch millis since when these metrics are recorded.
+     *
+     * @return recording start
+     */
+    public long since() {
+        return since;
+    }
+
+    /**
+     * Returns the metrics of the specified {@code eventClass}, if it was fired.
+     *
+     * @param eventClass the concrete event class
+     * @return event metrics or null
+     */
+    @Nullable
+    public EventMetrics forEvent(@NotNull Class<?> eventClass) {
+        Objects.requireNonNull(eventClass, "eventClass");
+        return events.get(eventClass);
+    }
+
+    /**
+     * Returns the metrics of all the fired event classes.
+     *
+     * @return event metrics
+     */
+    @NotNull
+    public Collection<@NotNull EventMetrics> events() {
+        return Collections.unmodifiableCollection(events.values());
+    }
+
+    /**
+     * Returns the metrics of the specified {@code subscriber}, if it was called.
+     *
+     * @param subscriber the subscriber
+     * @return subscriber metrics or null
+     */
+    @Nullable
+    public SubscriberMetrics forSubscriber(@NotNull EventSubscriber<?> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        return subscribers.get(subscriber);
+    }
+
+    /**
+     * Returns the metrics of all the called subscribers.
+     *
+     * @return subscriber metrics
+     */
+    @NotNull
+    public Collection<@NotNull SubscriberMetrics> subscribers() {
+        return Collections.unmodifiableCollection(subscribers.values());
+    }
+
+    /**
+     * Returns the at most {@code limit} subscribers with the highest mean execution time, slowest
+     * first.
+     *
+     * @param limit max amount of subscribers to return
+     * @return slowest subscribers
+     */
+    @NotNull
+    public List<@NotNull SubscriberMetrics> slowestSubscribers(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative");
+        }
+        List<SubscriberMetrics> ret = new ArrayList<>(subscribers.values());
+        ret.sort(Comparator.comparingLong((SubscriberMetrics metrics) -> metrics
+                .executionTime()
+                .mean()).reversed());
+        return ret.size() > limit ? new ArrayList<>(ret.subList(0, limit)) : ret;
+    }
+
+    /**
+     * Clears all the recorded metrics.
+     */
+    public void reset() {
+        events.clear();
+        subscribers.clear();
+        since = System.currentTimeMillis();
+    }
+
+    void recordFire(@NotNull Class<?> eventClass, long startNanos, int fires, int failures) {
+        long nanos = System.nanoTime() - startNanos;
+        EventMetrics metrics = events.get(eventClass);
+        if (metrics == null) {
+            metrics = events.computeIfAbsent(eventClass, EventMetrics::new);
+        }
+        metrics.latency.record(nanos, fires);
+        if (failures != 0) {
+            metrics.errors.add(failures);
+        }
+    }
+
+    void recordCall(@NotNull EventSubscriber<?> subscriber, long startNanos, boolean failed) {
+        long nanos = System.nanoTime() - startNanos;
+        SubscriberMetrics metrics = subscribers.get(subscriber);
+        if (metrics == null) {
+            metrics = subscribers.computeIfAbsent(subscriber, SubscriberMetrics::new);
+        }
+        metrics.executionTime.record(nanos, 1);
+        if (failed) {
+            metrics.errors.increment();
+        }
+    }
+
+    void recordTimeout(@NotNull EventSubscriber<?> subscriber) {
+        SubscriberMetrics metrics = subscribers.get(subscriber);
+        if (metrics == null) {
+            metrics = subscribers.computeIfAbsent(subscriber, SubscriberMetrics::new);
+        }
+        metrics.timeouts.increment();
+    }
+
+    void forget(@NotNull EventSubscriber<?> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Metrics of a single concrete event class.
+     *
+     * @since 2.0.2
+     */
+    public static final class EventMetrics {
+
+        private final Class<?> eventClass;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        private EventMetrics(@NotNull Class<?> eventClass) {
+            this.eventClass = eventClass;
+        }
+
+        /**
+         * Returns the event class these metrics are of.
+         *
+         * @return event class
+         */
+        @NotNull
+        public Class<?> eventClass() {
+            return eventClass;
+        }
+
+        /**
+         * Returns how many times the event was fired and completed.
+         *
+         * @return fire count
+         */
+        public long fireCount() {
+            return latency.count();
+        }
+
+        /**
+         * Returns how many fires of the event completed exceptionally.
+         *
+         * @return error count
+         */
+        public long errorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * Returns the latency histogram, from firing until completion.
+         *
+         * @return latency
+         */
+        @NotNull
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+    }
+
+    /**
+     * Metrics of a single {@link EventSubscriber}.
+     *
+     * @since 2.0.2
+     */
+    public static final class SubscriberMetrics {
+
+        private final EventSubscriber<?> subscriber;
+        private final LatencyHistogram executionTime = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private SubscriberMetrics(@NotNull EventSubscriber<?> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Returns the subscriber these metrics are of.
+         *
+         * @return subscriber
+         */
+        @NotNull
+        public EventSubscriber<?> subscriber() {
+            return subscriber;
+        }
+
+        /**
+         * Returns how many times the subscriber was called.
+         *
+         * @return call count
+         */
+        public long callCount() {
+            return executionTime.count();
+        }
+
+        /**
+         * Returns how many calls of the subscriber threw or completed exceptionally.
+         *
+         * @return error count
+         */
+        public long errorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * Returns how many calls of the subscriber were given up on because its
+         * {@link Completion} didn't complete in time.
+         *
+         * @return timeout count
+         * @see EventSubscriber#timeoutMillis()
+         */
+        public long timeoutCount() {
+            return timeouts.sum();
+        }
+
+        /**
+         * Returns the execution time histogram, from calling the subscriber until its
+         * {@link Completion} completes.
+         *
+         * @return execution time
+         */
+        @NotNull
+        public LatencyHistogram executionTime() {
+            return executionTime;
+        }
+
+    }
+
+    /**
+     * A fixed size histogram of nanosecond durations. Values are put in log-linear buckets, each
+     * power of two range being split in {@value #SUB_BUCKETS} buckets, so values reported by
+     * {@link #percentile(double)} are at most 12.5% above the recorded ones. Durations above
+     * about 18 minutes all land in the last bucket.
+     *
+     * @since 2.0.2
+     */
+    public static final class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int MAX_EXPONENT = 40;
+        private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        LatencyHistogram() {
+        }
+
+        void record(long nanos, int times) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.addAndGet(bucketIndex(nanos), times);
+            count.add(times);
+            total.add(nanos * times);
+            if (nanos > max.get()) {
+                max.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        static int bucketIndex(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return Math.min((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+        }
+
+        static long bucketLowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        /**
+         * Returns the amount of recorded values.
+         *
+         * @return count
+         */
+        public long count() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the mean of the recorded values, in nanoseconds.
+         *
+         * @return mean nanos
+         */
+        public long mean() {
+            long count = this.count.sum();
+            return count == 0 ? 0 : total.sum() / count;
+        }
+
+        /**
+         * Returns the highest recorded value, in nanoseconds.
+         *
+         * @return max nanos
+         */
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * Returns an upper bound of the specified {@code percentile} of the recorded values, in
+         * nanoseconds.
+         *
+         * @param percentile percentile, between 0 and 100
+         * @return percentile nanos
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            long[] snapshot = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                count += snapshot[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return i == BUCKETS - 1
+                            ? max.get()
+                            : Math.min(bucketLowerBound(i + 1) - 1, max.get());
+                }
+            }
+            return max.get();
+        }
+
+    }
+
+}
@@ -5,92 +5,452 @@
 package me.lokka30.treasury.api.common.event;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.function.Consumer;
-import me.lokka30.treasury.api.common.misc.SortedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * The dispatch plan of a concrete event class. It holds the subscribers of the event class and
+ * all of its super types, merged by their priority, together with whether the event is processed
+ * in parallel or inline. Plans are immutable, and are recomputed by the {@link EventBus} whenever
+ * a subscription is made or removed, or metrics get enabled or disabled.
+ */
 class EventCaller {
 
-    private List<EventSubscriber> subscriptions = new SortedList<>();
+    private final Class<?> eventClass;
+    private final EventSubscriber[] subscribers;
+    private final boolean parallel;
+    // how many subscribers of a parallel event may be called at the same time
+    private final int lanes;
+    // whether all subscribers are simple ones, thus can never return a pending completion
+    private final boolean simple;
+    private final boolean inline;
+    @Nullable
+    private final EventBusMetrics metrics;
+    // timeout of each subscriber, 0 for none
+    private final long[] timeoutNanos;
+
+    EventCaller(
+            @NotNull Class<?> eventClass,
+            @NotNull List<EventSubscriber<?>> subscribers,
+            @Nullable EventBusMetrics metrics,
+            long defaultTimeoutMillis
+    ) {
+        this.eventClass = eventClass;
+        this.metrics = metrics;
+        // List#sort is stable, so subscribers with the same priority keep their order
+        List<EventSubscriber<?>> sorted = new ArrayList<>(subscribers);
+        sorted.sort(Comparator.comparing(EventSubscriber::priority));
+        this.subscribers = sorted.toArray(new EventSubscriber[0]);
+        this.timeoutNanos = new long[this.subscribers.length];
+        for (int i = 0; i < this.subscribers.length; i++) {
+            long timeoutMillis = this.subscribers[i].timeoutMillis();
+            this.timeoutNanos[i] = TimeUnit.MILLISECONDS.toNanos(timeoutMillis < 0
+                    ? defaultTimeoutMillis
+                    : timeoutMillis);
+        }
+        ParallelProcessing parallelProcessing = eventClass.getAnnotation(ParallelProcessing.class);
+        this.parallel = parallelProcessing != null;
+        this.lanes = parallelProcessing == null || parallelProcessing.maxConcurrency() <= 0
+                ? this.subscribers.length
+                : Math.min(parallelProcessing.maxConcurrency(), this.subscribers.length);
+        boolean simple = true;
+        for (EventSubscriber subscriber : this.subscribers) {
+            if (!(subscriber instanceof SimpleEventSubscriber)) {
+                simple = false;
+                break;
+            }
+        }
+        this.simple = simple;
+        this.inline = simple && !parallel && eventClass.getAnnotation(InlineProcessing.class) != null;
+    }
+
+    /**
+     * Returns the start timestamp to pass to {@link #recordFire(long, int, int)}, or 0 if no
+     * metrics are recorded.
+     *
+     * @return start nanos
+     */
+    public long startTiming() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records that the specified amount of events of this plan completed, if metrics are enabled.
+     *
+     * @param startNanos timestamp from {@link #startTiming()}
+     * @param fires      amount of events
+     * @param failures   amount of events which completed exceptionally
+     */
+    public void recordFire(long startNanos, int fires, int failures) {
+        if (metrics != null) {
+            metrics.recordFire(eventClass, startNanos, fires, failures);
+        }
+    }
 
-    EventCaller() {
+    public boolean isEmpty() {
+        return subscribers.length == 0;
     }
 
-    public void register(@NotNull EventSubscriber subscriber) {
-        subscriptions.add(Objects.requireNonNull(subscriber, "subscriber"));
+    /**
+     * Returns whether the event can be called on the thread firing it.
+     *
+     * @return whether inline
+     * @see InlineProcessing
+     */
+    public boolean isInline() {
+        return inline;
     }
 
+    /**
+     * Returns whether all the subscribers are {@link SimpleEventSubscriber SimpleEventSubscribers}
+     * and the event is not processed in parallel, hence {@link #callInline(Object)} can be used.
+     *
+     * @return whether simple
+     */
+    public boolean isSimpleSequential() {
+        return simple && !parallel;
+    }
+
+    /**
+     * Calls all the subscribers of the specified {@code event} on the current thread. May only be
+     * used if {@link #isSimpleSequential()} is {@code true}.
+     *
+     * @param event the event to call
+     * @return errors or an empty collection
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public Collection<@NotNull Throwable> callInline(@NotNull Object event) {
+        for (EventSubscriber subscriber : subscribers) {
+            long start = metrics == null ? 0 : System.nanoTime();
+            try {
+                ((SimpleEventSubscriber) subscriber).subscribe(event);
+            } catch (Throwable error) {
+                if (metrics != null) {
+                    metrics.recordCall(subscriber, start, true);
+                }
+                return Collections.singletonList(error);
+            }
+            if (metrics != null) {
+                metrics.recordCall(subscriber, start, false);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Calls all the subscribers of the specified {@code event} on the current thread. Whenever
+     * a subscriber returns a {@link Completion} which is not yet completed, the rest of the
+     * subscribers get called from the thread completing it, so no thread waits for it.
+     *
+     * @param event the event to call
+     * @return completion, completed once all the subscribers are done
+     */
     @NotNull
     public Completion call(@NotNull Object event) {
-        if (subscriptions.isEmpty()) {
+        if (subscribers.length == 0) {
             return Completion.completed();
         }
         Completion completion = new Completion();
-        ExecutorHolder.INSTANCE.getExecutor().execute(() -> {
-            ParallelProcessing parallelAnno = event
-                    .getClass()
-                    .getAnnotation(ParallelProcessing.class);
-            if (parallelAnno == null) {
-                List<Throwable> errors = call(event, new ArrayList<>(), 0);
-                if (!errors.isEmpty()) {
-                    completion.completeExceptionally(errors);
-                } else {
-                    completion.complete();
-                }
-            } else {
-                parallelCall(event, (errors) -> {
+        if (!parallel) {
+            call(event, completion, 0, null);
+        } else {
+            parallelCall(event, completion);
+        }
+        return completion;
+    }
+
+    private void call(
+            Object event, Completion completion, int startIndex, @Nullable List<Throwable> timeouts
+    ) {
+        for (int index = startIndex; index < subscribers.length; index++) {
+            Completion subscriberCompletion = callSubscriber(index, event);
+            if (!subscriberCompletion.isCompleted()) {
+                final int nextStart = index + 1;
+                final List<Throwable> previousTimeouts = timeouts;
+                subscriberCompletion.whenComplete(errors -> {
+                    List<Throwable> newTimeouts = previousTimeouts;
                     if (!errors.isEmpty()) {
-                        completion.completeExceptionally(errors);
-                    } else {
-                        completion.complete();
+                        if (!isTimeout(errors)) {
+                            completion.completeExceptionally(withTimeouts(errors, newTimeouts));
+                            return;
+                        }
+                        newTimeouts = withTimeouts(errors, newTimeouts);
                     }
+                    call(event, completion, nextStart, newTimeouts);
                 });
+                return;
             }
-        });
-        return completion;
-    }
 
-    private List<Throwable> call(Object event, List<Throwable> errorsToThrow, int startIndex) {
-        EventSubscriber subscriber = subscriptions.get(startIndex);
-        final int nextStart = startIndex + 1;
-        subscriber.onEvent(event).whenComplete(errors -> {
+            Collection<Throwable> errors = subscriberCompletion.getErrors();
             if (!errors.isEmpty()) {
-                errorsToThrow.addAll(errors);
+                completion.completeExceptionally(withTimeouts(errors, timeouts));
                 return;
             }
+        }
+        if (timeouts != null) {
+            completion.completeExceptionally(timeouts);
+        } else {
+            completion.complete();
+        }
+    }
+
+    // timed out subscribers are reported, but don't stop the rest of the subscribers from
+    // running the way errors do
+    private static boolean isTimeout(@NotNull Collection<Throwable> errors) {
+        return errors.size() == 1 && errors.iterator().next() instanceof SubscriberTimeoutException;
+    }
 
-            if (nextStart < subscriptions.size()) {
-                call(event, errorsToThrow, nextStart);
+    @NotNull
+    private static List<Throwable> withTimeouts(
+            @NotNull Collection<Throwable> errors, @Nullable List<Throwable> timeouts
+    ) {
+        List<Throwable> ret = new ArrayList<>(errors.size() + (timeouts == null
+                ? 0
+                : timeouts.size()));
+        if (timeouts != null) {
+            ret.addAll(timeouts);
+        }
+        ret.addAll(errors);
+        return ret;
+    }
+
+    private void parallelCall(Object event, Completion completion) {
+        CompletionCountdown countdown = new CompletionCountdown(subscribers.length, errors -> {
+            if (!errors.isEmpty()) {
+                completion.completeExceptionally(errors);
+            } else {
+                completion.complete();
             }
         });
+        if (lanes == subscribers.length) {
+            for (int i = 0; i < subscribers.length; i++) {
+                final int index = i;
+                ExecutorHolder.INSTANCE.getExecutor().execute(() -> callSubscriber(
+                        index,
+                        event
+                ).whenComplete(countdown));
+            }
+            return;
+        }
+        // capped fan-out: every lane calls the next subscriber not yet taken once its current
+        // one is done
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < lanes; i++) {
+            ExecutorHolder.INSTANCE.getExecutor().execute(() -> runLane(event, next, countdown));
+        }
+    }
+
+    private void runLane(Object event, AtomicInteger next, CompletionCountdown countdown) {
+        int index;
+        while ((index = next.getAndIncrement()) < subscribers.length) {
+            Completion subscriberCompletion = callSubscriber(index, event);
+            if (!subscriberCompletion.isCompleted()) {
+                subscriberCompletion.whenComplete(errors -> {
+                    countdown.accept(errors);
+                    runLane(event, next, countdown);
+                });
+                return;
+            }
+            countdown.accept(subscriberCompletion.getErrors());
+        }
+    }
 
-        return errorsToThrow;
+    /**
+     * Calls all the subscribers with every event of the specified {@code events} batch. Each
+     * subscriber is run over the whole batch before the next one is, which keeps the priority
+     * ordering for every single event. Events for which a subscriber errored are not passed to
+     * the subsequent subscribers, same as with {@link #call(Object)}.
+     *
+     * @param events the events to call, all of the concrete class of this plan
+     * @return completion, completed once all the subscribers are done with all the events
+     */
+    @NotNull
+    public Completion callAll(@NotNull Object @NotNull [] events) {
+        if (subscribers.length == 0 || events.length == 0) {
+            return Completion.completed();
+        }
+        Completion completion = new Completion();
+        if (!parallel) {
+            callAll(events, new boolean[events.length], new ConcurrentLinkedQueue<>(), completion, 0);
+        } else {
+            parallelCallAll(events, completion);
+        }
+        return completion;
     }
 
-    private void parallelCall(Object event, Consumer<Set<Throwable>> callback) {
-        CountDownLatch latch = new CountDownLatch(subscriptions.size());
-        Set<Throwable> errors = ConcurrentHashMap.newKeySet();
-        for (EventSubscriber subscriber : subscriptions) {
-            ExecutorHolder.INSTANCE.getExecutor().submit(() -> {
-                subscriber.onEvent(event).whenComplete(e -> {
-                    if (!e.isEmpty()) {
-                        errors.addAll(e);
+    private void callAll(
+            Object[] events,
+            boolean[] failed,
+            Queue<Throwable> errors,
+            Completion completion,
+            int startIndex
+    ) {
+        for (int index = startIndex; index < subscribers.length; index++) {
+            List<Integer> pendingEvents = null;
+            List<Completion> pending = null;
+            for (int i = 0; i < events.length; i++) {
+                if (failed[i]) {
+                    continue;
+                }
+                Completion subscriberCompletion = callSubscriber(index, events[i]);
+                if (!subscriberCompletion.isCompleted()) {
+                    if (pending == null) {
+                        pendingEvents = new ArrayList<>();
+                        pending = new ArrayList<>();
                     }
-                    latch.countDown();
-                });
+                    pendingEvents.add(i);
+                    pending.add(subscriberCompletion);
+                    continue;
+                }
+                Collection<Throwable> eventErrors = subscriberCompletion.getErrors();
+                if (!eventErrors.isEmpty()) {
+                    failed[i] = !isTimeout(eventErrors);
+                    errors.addAll(eventErrors);
+                }
+            }
+
+            if (pending != null) {
+                // the next subscriber may only run once this one is done with the whole batch
+                final int nextStart = index + 1;
+                CompletionCountdown countdown = new CompletionCountdown(
+                        pending.size(),
+                        ignored -> callAll(events, failed, errors, completion, nextStart)
+                );
+                for (int i = 0; i < pending.size(); i++) {
+                    final int eventIndex = pendingEvents.get(i);
+                    pending.get(i).whenComplete(eventErrors -> {
+                        if (!eventErrors.isEmpty()) {
+                            failed[eventIndex] = !isTimeout(eventErrors);
+                            errors.addAll(eventErrors);
+                        }
+                        countdown.accept(Collections.emptyList());
+                    });
+                }
+                return;
+            }
+        }
+        if (!errors.isEmpty()) {
+            completion.completeExceptionally(new ArrayList<>(errors));
+        } else {
+            completion.complete();
+        }
+    }
+
+    private void parallelCallAll(Object[] events, Completion completion) {
+        CompletionCountdown countdown = new CompletionCountdown(
+                subscribers.length * events.length,
+                errors -> {
+                    if (!errors.isEmpty()) {
+                        completion.completeExceptionally(errors);
+                    } else {
+                        completion.complete();
+                    }
+                }
+        );
+        // every lane takes the next subscriber not yet taken and runs it over the whole batch
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < lanes; i++) {
+            ExecutorHolder.INSTANCE.getExecutor().execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < subscribers.length) {
+                    for (Object event : events) {
+                        callSubscriber(index, event).whenComplete(countdown);
+                    }
+                }
             });
         }
+    }
+
+    @NotNull
+    private Completion callSubscriber(int index, @NotNull Object event) {
+        EventSubscriber subscriber = subscribers[index];
+        EventBusMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Completion completion = invokeSubscriber(subscriber, event);
+        if (!completion.isCompleted() && timeoutNanos[index] > 0) {
+            completion = withTimeout(subscriber, completion, timeoutNanos[index]);
+        }
+        if (metrics != null) {
+            if (completion.isCompleted()) {
+                metrics.recordCall(subscriber, start, !completion.getErrors().isEmpty());
+            } else {
+                completion.whenComplete(errors -> metrics.recordCall(
+                        subscriber,
+                        start,
+                        !errors.isEmpty()
+                ));
+            }
+        }
+        return completion;
+    }
+
+    // returns a completion which completes same as the specified one, or with a
+    // SubscriberTimeoutException once the timeout passes, which lets the rest of the subscribers
+    // run. whichever of the two wins the timeout's state completes it
+    @NotNull
+    private Completion withTimeout(
+            @NotNull EventSubscriber subscriber, @NotNull Completion completion, long timeoutNanos
+    ) {
+        Completion guarded = new Completion();
+        TimeoutTimer.Timeout timeout = TimeoutTimer.INSTANCE.schedule(
+                // continuations run on the completing thread, which mustn't be the timer's one
+                () -> ExecutorHolder.INSTANCE.getExecutor().execute(() -> {
+                    if (metrics != null) {
+                        metrics.recordTimeout(subscriber);
+                    }
+                    guarded.completeExceptionally(new SubscriberTimeoutException(
+                            subscriber,
+                            timeoutNanos
+                    ));
+                }),
+                timeoutNanos
+        );
+        completion.whenComplete(errors -> {
+            if (!timeout.cancel()) {
+                return;
+            }
+            if (!errors.isEmpty()) {
+                guarded.completeExceptionally(errors);
+            } else {
+                guarded.complete();
+            }
+        });
+        return guarded;
+    }
+
+    @NotNull
+    private static Completion invokeSubscriber(
+            @NotNull EventSubscriber subscriber, @NotNull Object event
+    ) {
         try {
-            latch.await();
-            callback.accept(errors);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return subscriber.onEvent(event);
+        } catch (Throwable error) {
+            return Completion.completedExceptionally(error);
         }
     }
 
+    /**
+     * Reported for a subscriber whose {@link Completion} didn't complete within its timeout.
+     */
+    static final class SubscriberTimeoutException extends TimeoutException {
+
+        private static final long serialVersionUID = 1L;
+
+        SubscriberTimeoutException(@NotNull EventSubscriber subscriber, long timeoutNanos) {
+            super(subscriber + " didn't complete within " + TimeUnit.NANOSECONDS.toMillis(
+                    timeoutNanos) + "ms");
+        }
+
+    }
+
 }
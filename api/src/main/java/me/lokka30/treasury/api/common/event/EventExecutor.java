@@ -0,0 +1,142 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the {@link Executor} the {@link EventBus} runs event calls on.
+ * <p>The event executor can be changed via {@link EventBus#setExecutor(EventExecutor)}. By
+ * default, a {@link #cached() cached} executor is used, which starts new threads as needed, so
+ * that subscribers blocking their thread can't starve the rest of the bus.
+ *
+ * @see EventBus#setExecutor(EventExecutor)
+ * @since 2.0.2
+ */
+public interface EventExecutor extends Executor {
+
+    /**
+     * Returns a new {@code EventExecutor} backed by a cached thread pool, which starts a new
+     * thread whenever all of its threads are busy and stops threads which are idle for a minute.
+     * This is the default executor.
+     *
+     * @return cached event executor
+     */
+    @NotNull
+    static EventExecutor cached() {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        return new PooledEventExecutor(Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task);
+            thread.setName("Event caller thread #" + threadCount.getAndIncrement());
+            return thread;
+        }), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a new {@code EventExecutor} backed by a work stealing pool with as many threads
+     * as there are available processors.
+     * <p>The pool doesn't grow when its threads block, so it's only suited to servers whose
+     * subscribers never block, e.g. by joining futures or firing events and waiting on them.
+     *
+     * @return work stealing event executor
+     * @see #workStealing(int, int)
+     */
+    @NotNull
+    static EventExecutor workStealing() {
+        return workStealing(Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a new {@code EventExecutor} backed by a work stealing pool with the specified
+     * {@code parallelism}. If more than {@code maxQueuedTasks} tasks are waiting to be run, new
+     * tasks are rejected and run on the thread submitting them instead, slowing down whoever
+     * fires events faster than they can be processed.
+     *
+     * @param parallelism    the amount of threads of the pool
+     * @param maxQueuedTasks the maximum amount of tasks waiting to be run
+     * @return work stealing event executor
+     */
+    @NotNull
+    static EventExecutor workStealing(int parallelism, int maxQueuedTasks) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        if (maxQueuedTasks < 0) {
+            throw new IllegalArgumentException("maxQueuedTasks must not be negative");
+        }
+        AtomicInteger threadCount = new AtomicInteger(0);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(forkJoinPool) {
+            };
+            thread.setName("Event caller thread #" + threadCount.getAndIncrement());
+            return thread;
+        }, null, true);
+        return new PooledEventExecutor(pool, maxQueuedTasks);
+    }
+
+    /**
+     * Returns whether the running Java version supports virtual threads, required by
+     * {@link #virtualThreads()}.
+     *
+     * @return whether virtual threads are supported
+     */
+    static boolean supportsVirtualThreads() {
+        return PooledEventExecutor.supportsVirtualThreads();
+    }
+
+    /**
+     * Returns a new {@code EventExecutor} which runs every task on its own virtual thread.
+     *
+     * @return virtual thread event executor
+     * @throws UnsupportedOperationException if virtual threads are not available on the running
+     *                                       Java version
+     * @see #supportsVirtualThreads()
+     */
+    @NotNull
+    static EventExecutor virtualThreads() {
+        return new PooledEventExecutor(
+                PooledEventExecutor.newVirtualThreadPerTaskExecutor(),
+                Integer.MAX_VALUE
+        );
+    }
+
+    /**
+     * Returns an {@code EventExecutor} which runs every task immediately on the thread submitting
+     * it. Mostly useful for tests.
+     *
+     * @return caller runs event executor
+     */
+    @NotNull
+    static EventExecutor callerRuns() {
+        return CallerRunsEventExecutor.INSTANCE;
+    }
+
+    /**
+     * Returns the amount of tasks which have been submitted, but are not yet running.
+     *
+     * @return queue depth
+     */
+    int queueDepth();
+
+    /**
+     * Returns the amount of tasks which were rejected by this executor, and hence were run on
+     * the thread submitting them.
+     *
+     * @return rejected task count
+     */
+    long rejectedTaskCount();
+
+    /**
+     * Shuts this executor down. Already submitted tasks are still run, whilst newly submitted
+     * tasks are rejected.
+     */
+    void shutdown();
+
+}
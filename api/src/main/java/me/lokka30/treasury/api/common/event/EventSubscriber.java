@@ -5,6 +5,7 @@
 package me.lokka30.treasury.api.common.event;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import org.jetbrains.annotations.NotNull;
 
@@ -107,6 +108,17 @@ public abstract class EventSubscriber<T> implements Comparable<EventSubscriber<T
         EventBus.INSTANCE.subscribe(this);
     }
 
+    /**
+     * A utility method for unregistering this event subscriber from the
+     * {@link EventBus event bus}.
+     *
+     * @return whether this subscriber was registered
+     * @since 2.0.2
+     */
+    public boolean unregister() {
+        return EventBus.INSTANCE.unsubscribe(this);
+    }
+
     /**
      * Returns the event class this subscriber has a subscription to.
      *
@@ -127,6 +139,24 @@ public abstract class EventSubscriber<T> implements Comparable<EventSubscriber<T
         return priority;
     }
 
+    /**
+     * Returns how long, in milliseconds, the {@link EventBus} waits for the {@link Completion}
+     * returned by {@link #onEvent(Object)} to complete. Once the timeout passes, the bus
+     * continues with the next subscribers as if the completion completed, reports a
+     * {@link java.util.concurrent.TimeoutException} naming this subscriber among the errors of
+     * the event, and counts the timeout in its {@link EventBusMetrics metrics}. Completing the
+     * completion later on has no effect.
+     * <p>A negative value, which is the default, means the
+     * {@link EventBus#setSubscriberTimeout(long, TimeUnit) default timeout of the bus} applies,
+     * while 0 means this subscriber is waited for without a timeout.
+     *
+     * @return timeout millis
+     * @since 2.0.2
+     */
+    public long timeoutMillis() {
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,12 +19,11 @@ class EventTypeTracker {
 
     @NotNull
     public List<Class<?>> getFriendsOf(@NotNull Class<?> event) {
-        List<Class<?>> computedFriends = friends.computeIfAbsent((event), (eventType) -> {
-            return getEventTypes(eventType)
+        return friends.computeIfAbsent((event), (eventType) -> {
+            return Collections.unmodifiableList(getEventTypes(eventType)
                     .filter(type -> type != eventType)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toList()));
         });
-        return Collections.unmodifiableList(computedFriends);
     }
 
     private static <E> Stream<Class<? super E>> getEventTypes(Class<E> eventType) {
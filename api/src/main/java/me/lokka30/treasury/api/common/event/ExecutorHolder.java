@@ -4,10 +4,7 @@
 
 package me.lokka30.treasury.api.common.event;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Objects;
 import org.jetbrains.annotations.NotNull;
 
 class ExecutorHolder {
@@ -18,31 +15,34 @@ class ExecutorHolder {
 
     }
 
-    private ExecutorService executor;
+    private volatile EventExecutor executor;
 
     @NotNull
-    public ExecutorService getExecutor() {
-        if (this.executor == null) {
-            this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
-
-                private AtomicInteger amountOfThreads = new AtomicInteger(0);
-
-                @Override
-                @NotNull
-                public Thread newThread(@NotNull final Runnable r) {
-                    Thread thread = new Thread(r);
-                    thread.setName("Event caller thread #" + amountOfThreads.get());
-                    amountOfThreads.incrementAndGet();
-                    return thread;
+    public EventExecutor getExecutor() {
+        EventExecutor executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.executor;
+                if (executor == null) {
+                    executor = EventExecutor.cached();
+                    this.executor = executor;
                 }
-            });
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                if (this.executor != null) {
-                    this.executor.shutdown();
-                }
-            }));
+            }
+        }
+        return executor;
+    }
+
+    public void setExecutor(@NotNull EventExecutor executor) {
+        Objects.requireNonNull(executor, "executor");
+        EventExecutor previous;
+        synchronized (this) {
+            previous = this.executor;
+            this.executor = executor;
+        }
+        if (previous != null && previous != executor) {
+            // tasks already submitted to the previous executor still run
+            previous.shutdown();
         }
-        return this.executor;
     }
 
 }
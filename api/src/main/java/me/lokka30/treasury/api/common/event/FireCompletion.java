@@ -4,11 +4,12 @@
 
 package me.lokka30.treasury.api.common.event;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -22,16 +23,33 @@ import org.jetbrains.annotations.Nullable;
  */
 public final class FireCompletion<T> {
 
-    private CountDownLatch latch = new CountDownLatch(1);
-    private final Executor async;
+    private volatile boolean completed;
 
     @Nullable
     private T result;
     @Nullable
     private Collection<@NotNull Throwable> errors;
+    @Nullable
+    private List<Runnable> callbacks;
 
     public FireCompletion() {
-        this.async = ExecutorHolder.INSTANCE.getExecutor();
+    }
+
+    // creates an already completed FireCompletion, used when events are called inline
+    FireCompletion(@NotNull T result, @Nullable Collection<@NotNull Throwable> errors) {
+        this.result = errors == null ? result : null;
+        this.errors = errors;
+        this.completed = true;
+    }
+
+    /**
+     * Returns whether this completion is completed.
+     *
+     * @return completed or not
+     * @since 2.0.2
+     */
+    public boolean isCompleted() {
+        return completed;
     }
 
     /**
@@ -41,11 +59,8 @@ public final class FireCompletion<T> {
      * @throws IllegalStateException if this completion got already completed
      */
     public void complete(@NotNull T result) {
-        if (latch.getCount() == 0) {
-            throw new IllegalStateException("FireCompletion already completed");
-        }
-        this.result = Objects.requireNonNull(result, "result");
-        latch.countDown();
+        Objects.requireNonNull(result, "result");
+        doComplete(result, null);
     }
 
     /**
@@ -56,11 +71,53 @@ public final class FireCompletion<T> {
      * @throws IllegalStateException if this completion got already completed
      */
     public void completeExceptionally(@NotNull Collection<@NotNull Throwable> errors) {
-        if (latch.getCount() == 0) {
-            throw new IllegalStateException("FireCompletion already completed");
+        Objects.requireNonNull(errors, "errors");
+        doComplete(null, errors);
+    }
+
+    private void doComplete(
+            @Nullable T result, @Nullable Collection<@NotNull Throwable> errors
+    ) {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (completed) {
+                throw new IllegalStateException("FireCompletion already completed");
+            }
+            this.result = result;
+            this.errors = errors;
+            this.completed = true;
+            toRun = this.callbacks;
+            this.callbacks = null;
+        }
+        if (toRun != null) {
+            for (Runnable callback : toRun) {
+                callback.run();
+            }
+        }
+    }
+
+    private void onComplete(@NotNull Runnable callback) {
+        if (!completed) {
+            synchronized (this) {
+                if (!completed) {
+                    if (callbacks == null) {
+                        callbacks = new ArrayList<>(1);
+                    }
+                    callbacks.add(callback);
+                    return;
+                }
+            }
+        }
+        callback.run();
+    }
+
+    private void awaitCompletion() throws InterruptedException {
+        if (completed) {
+            return;
         }
-        this.errors = Objects.requireNonNull(errors, "errors");
-        latch.countDown();
+        CountDownLatch latch = new CountDownLatch(1);
+        onComplete(latch::countDown);
+        latch.await();
     }
 
     /**
@@ -70,7 +127,7 @@ public final class FireCompletion<T> {
      */
     public void waitCompletion() {
         try {
-            latch.await();
+            awaitCompletion();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -92,28 +149,27 @@ public final class FireCompletion<T> {
             @Nullable BiConsumer<@Nullable T, @NotNull Collection<@NotNull Throwable>> completedTask
     ) {
         if (completedTask != null) {
-            if (latch.getCount() == 0) {
+            try {
+                awaitCompletion();
                 completedTask.accept(result, errors == null ? Collections.emptyList() : errors);
-            } else {
-                try {
-                    latch.await();
-                    completedTask.accept(result, errors == null ? Collections.emptyList() : errors);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
     }
 
     /**
      * Runs the specified {@link BiConsumer} {@code task} asynchronously when this completion
-     * completes.
+     * completes. No thread is held while waiting for the completion.
      *
      * @param completedTask task to run
      */
     public void whenCompleteAsync(@Nullable BiConsumer<@Nullable T, @NotNull Collection<@NotNull Throwable>> completedTask) {
         if (completedTask != null) {
-            async.execute(() -> whenCompleteBlocking(completedTask));
+            onComplete(() -> ExecutorHolder.INSTANCE.getExecutor().execute(() -> completedTask.accept(
+                    result,
+                    errors == null ? Collections.emptyList() : errors
+            )));
         }
     }
 
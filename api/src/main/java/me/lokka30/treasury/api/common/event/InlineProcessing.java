@@ -0,0 +1,32 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import com.google.common.annotations.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tells the {@link EventBus} that the annotated event can have its {@link EventSubscriber}
+ * calls processed on the thread firing it, as long as all of its subscribers are
+ * {@link SimpleEventSubscriber SimpleEventSubscribers}. This saves the event from being handed
+ * over to the {@link EventExecutor}, and is meant for high frequency events whose subscribers do
+ * not do any blocking work.
+ * <p>If any of the subscribers of the annotated event is not a {@link SimpleEventSubscriber},
+ * the event is processed as any other event.
+ *
+ * @see EventBus#fireSync(Object)
+ * @since 2.0.2
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Beta
+public @interface InlineProcessing {
+
+}
@@ -14,6 +14,9 @@ import java.lang.annotation.Target;
 /**
  * Tells the {@link EventBus} that for the annotated event can process the
  * {@link EventSubscriber} calls in parallel.
+ * <p>Every subscriber call is handed over to the {@link EventExecutor}, and no thread waits for
+ * the calls to finish: whichever subscriber finishes last completes the event. The amount of
+ * subscribers called at the same time can be capped via {@link #maxConcurrency()}.
  *
  * @author MrIvanPlays
  * @since 2.0.0
@@ -24,4 +27,14 @@ import java.lang.annotation.Target;
 @Beta
 public @interface ParallelProcessing {
 
+    /**
+     * Returns the maximum amount of subscribers of the annotated event which may be called at
+     * the same time. Once a subscriber's {@link Completion} completes, the next subscriber
+     * waiting gets called. Values of 0 or less mean no limit, which is the default.
+     *
+     * @return max concurrent subscriber calls
+     * @since 2.0.2
+     */
+    int maxConcurrency() default 0;
+
 }
@@ -0,0 +1,108 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link EventExecutor} backed by an {@link ExecutorService}, which keeps track of the tasks
+ * waiting to be run. Rejected tasks are run on the submitting thread.
+ */
+final class PooledEventExecutor implements EventExecutor {
+
+    // looked up via reflection, so Treasury can still be compiled and run on Java versions
+    // without virtual threads
+    @Nullable
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactory();
+
+    @Nullable
+    private static Method findVirtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static boolean supportsVirtualThreads() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    @NotNull
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException(
+                    "Virtual threads are not supported by this Java version");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (InvocationTargetException e) {
+            // e.g. virtual threads being a preview feature which is not enabled
+            throw new UnsupportedOperationException(
+                    "Virtual threads are not available",
+                    e.getCause()
+            );
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+
+    private final ExecutorService delegate;
+    private final int maxQueuedTasks;
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final LongAdder rejected = new LongAdder();
+
+    PooledEventExecutor(@NotNull ExecutorService delegate, int maxQueuedTasks) {
+        this.delegate = delegate;
+        this.maxQueuedTasks = maxQueuedTasks;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable task) {
+        if (queued.incrementAndGet() > maxQueuedTasks) {
+            queued.decrementAndGet();
+            reject(task);
+            return;
+        }
+        try {
+            delegate.execute(() -> {
+                queued.decrementAndGet();
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            reject(task);
+        }
+    }
+
+    private void reject(@NotNull Runnable task) {
+        rejected.increment();
+        task.run();
+    }
+
+    @Override
+    public int queueDepth() {
+        return queued.get();
+    }
+
+    @Override
+    public long rejectedTaskCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+}
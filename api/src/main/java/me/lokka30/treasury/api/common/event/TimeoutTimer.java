@@ -0,0 +1,154 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A hashed wheel timer tracking the deadlines of {@link EventSubscriber} calls. A single daemon
+ * thread advances the wheel every tick and runs the expired tasks, so tracking a deadline costs
+ * neither a thread nor a lock. Deadlines are only as precise as the tick duration.
+ * <p>Tasks are run on the timer thread, hence they must hand any real work over to another
+ * thread.
+ */
+final class TimeoutTimer {
+
+    static final TimeoutTimer INSTANCE = new TimeoutTimer(TimeUnit.MILLISECONDS.toNanos(10), 512);
+
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+    // timeouts scheduled since the last tick, moved into the wheel by the timer thread
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private long startNanos;
+    private long tick;
+
+    TimeoutTimer(long tickNanos, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+        this.tickNanos = tickNanos;
+        this.wheel = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * Schedules the specified {@code task} to run once the specified {@code delayNanos} pass,
+     * unless the returned {@link Timeout} gets cancelled before.
+     *
+     * @param task       task to run on the timer thread
+     * @param delayNanos delay in nanoseconds
+     * @return timeout handle
+     */
+    @NotNull
+    Timeout schedule(@NotNull Runnable task, long delayNanos) {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, "Treasury event timeout timer");
+            thread.setDaemon(true);
+            this.startNanos = System.nanoTime();
+            thread.start();
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, delayNanos));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < tickDeadline) {
+                LockSupport.parkNanos(this, tickDeadline - now);
+            }
+            transferScheduled();
+            expire(tick & mask, now);
+            tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isDone()) {
+                continue;
+            }
+            long deadlineTick = (timeout.deadline - startNanos) / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            int bucket = (int) (Math.max(deadlineTick, tick) & mask);
+            timeout.next = wheel[bucket];
+            wheel[bucket] = timeout;
+        }
+    }
+
+    private void expire(long bucket, long now) {
+        Timeout kept = null;
+        Timeout timeout = wheel[(int) bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.isDone()) {
+                // dropped
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                timeout.expire();
+            } else {
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout.next = kept;
+                kept = timeout;
+            }
+            timeout = next;
+        }
+        wheel[(int) bucket] = kept;
+    }
+
+    /**
+     * A scheduled task of a {@link TimeoutTimer}.
+     */
+    static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean();
+        // only accessed by the timer thread
+        private long remainingRounds;
+        private Timeout next;
+
+        private Timeout(@NotNull Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this timeout.
+         *
+         * @return whether this call cancelled it, false if it already expired or got cancelled
+         */
+        boolean cancel() {
+            return done.compareAndSet(false, true);
+        }
+
+        boolean isDone() {
+            return done.get();
+        }
+
+        private void expire() {
+            if (done.compareAndSet(false, true)) {
+                try {
+                    task.run();
+                } catch (Throwable ignored) {
+                    // the timer thread must survive broken tasks
+                }
+            }
+        }
+
+    }
+
+}
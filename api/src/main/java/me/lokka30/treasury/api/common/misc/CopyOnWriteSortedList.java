@@ -0,0 +1,196 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.misc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a thread-safe sorted list.
+ * <p>This implementation is backed by an array which is copied on every modification, in the
+ * same fashion as {@link java.util.concurrent.CopyOnWriteArrayList}. Elements are inserted at
+ * their sorted position via a binary search, before any elements they compare equal to, like
+ * {@link SortedList} does: of elements of the same order, the last added one comes first.
+ * <p>Reads never lock and are {@code O(1)} by index. Iterators work over the snapshot of the
+ * list at the time they were created, hence they are safe to use while other threads modify the
+ * list. This makes the list suitable for data which is read a lot more often than it's modified,
+ * such as event subscribers and service registrations.
+ * <p>The list does not permit {@code null} elements, and does not support setting or adding
+ * elements at a specific index.
+ *
+ * @param <T> type
+ * @since 2.0.2
+ */
+public final class CopyOnWriteSortedList<T> extends AbstractList<T> implements RandomAccess {
+
+    /**
+     * Creates a new empty {@code CopyOnWriteSortedList}, sorted by the natural ordering of its
+     * elements.
+     *
+     * @param <T> type
+     * @return new list
+     */
+    @NotNull
+    public static <T extends Comparable<? super T>> CopyOnWriteSortedList<T> naturalOrder() {
+        return new CopyOnWriteSortedList<>(Comparator.naturalOrder());
+    }
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object lock = new Object();
+    private final Comparator<? super T> comparator;
+    private volatile Object[] array = EMPTY;
+
+    /**
+     * Creates a new empty {@code CopyOnWriteSortedList}, sorted by the specified
+     * {@link Comparator}.
+     *
+     * @param comparator comparator to sort elements with
+     */
+    public CopyOnWriteSortedList(@NotNull Comparator<? super T> comparator) {
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+    }
+
+    /**
+     * Returns the backing array of this list. The returned array must not be modified.
+     *
+     * @return current snapshot
+     */
+    @NotNull
+    public Object @NotNull [] snapshot() {
+        return array;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public T get(int index) {
+        return (T) array[index];
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return array.length == 0;
+    }
+
+    @Override
+    public boolean add(@NotNull T element) {
+        Objects.requireNonNull(element, "element");
+        synchronized (lock) {
+            Object[] current = array;
+            int index = insertionPoint(current, element);
+            Object[] copy = new Object[current.length + 1];
+            System.arraycopy(current, 0, copy, 0, index);
+            copy[index] = element;
+            System.arraycopy(current, index, copy, index + 1, current.length - index);
+            array = copy;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends T> elements) {
+        if (elements.isEmpty()) {
+            return false;
+        }
+        synchronized (lock) {
+            for (T element : elements) {
+                add(element);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(@Nullable Object element) {
+        if (element == null) {
+            return false;
+        }
+        synchronized (lock) {
+            Object[] current = array;
+            for (int i = 0; i < current.length; i++) {
+                if (element.equals(current[i])) {
+                    Object[] copy = new Object[current.length - 1];
+                    System.arraycopy(current, 0, copy, 0, i);
+                    System.arraycopy(current, i + 1, copy, i, current.length - i - 1);
+                    array = copy.length == 0 ? EMPTY : copy;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(@NotNull Predicate<? super T> filter) {
+        Objects.requireNonNull(filter, "filter");
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] kept = new Object[current.length];
+            int size = 0;
+            for (Object element : current) {
+                if (!filter.test((T) element)) {
+                    kept[size++] = element;
+                }
+            }
+            if (size == current.length) {
+                return false;
+            }
+            array = size == 0 ? EMPTY : Arrays.copyOf(kept, size);
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            array = EMPTY;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @NotNull
+    public Iterator<T> iterator() {
+        return Arrays.asList((T[]) array).iterator();
+    }
+
+    @Override
+    @NotNull
+    public Object @NotNull [] toArray() {
+        Object[] current = array;
+        return Arrays.copyOf(current, current.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int insertionPoint(@NotNull Object[] array, @NotNull T element) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(element, (T) array[mid]) <= 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+}
@@ -7,10 +7,12 @@ package me.lokka30.treasury.api.common.misc;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.jetbrains.annotations.NotNull;
 
@@ -84,6 +86,78 @@ public class FutureHelper {
         });
     }
 
+    /**
+     * Runs the specified {@code task} for every element of the specified {@code elements}, with
+     * at most {@code maxConcurrency} of the futures it returned not yet completed at a time. The
+     * next element is only handed to the task once one of those futures completes, so a lot of
+     * elements don't flood the storage behind the task with requests all at once.
+     * <p>The outcome of the futures is ignored, a failed one doesn't stop the rest of the
+     * elements from being run, hence tasks should handle their own errors.
+     *
+     * @param elements       the elements to run the task for
+     * @param maxConcurrency the maximum amount of futures not yet completed at a time
+     * @param task           the task
+     * @param <T>            type parameter
+     * @return future completed once all the futures returned by the task completed
+     * @since 2.0.2
+     */
+    @NotNull
+    public static <T> CompletableFuture<Void> forEachBounded(
+            @NotNull Collection<T> elements,
+            int maxConcurrency,
+            @NotNull Function<T, CompletableFuture<?>> task
+    ) {
+        Objects.requireNonNull(elements, "elements");
+        Objects.requireNonNull(task, "task");
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        int lanes = Math.min(maxConcurrency, elements.size());
+        if (lanes == 0) {
+            done.complete(null);
+            return done;
+        }
+        Iterator<T> iterator = elements.iterator();
+        AtomicInteger runningLanes = new AtomicInteger(lanes);
+        for (int i = 0; i < lanes; i++) {
+            runLane(iterator, task, runningLanes, done);
+        }
+        return done;
+    }
+
+    // every lane takes the next element once its current one is done. a loop rather than
+    // chained callbacks, so that futures completing right away can't grow the stack
+    private static <T> void runLane(
+            @NotNull Iterator<T> iterator,
+            @NotNull Function<T, CompletableFuture<?>> task,
+            @NotNull AtomicInteger runningLanes,
+            @NotNull CompletableFuture<Void> done
+    ) {
+        while (true) {
+            T element;
+            synchronized (iterator) {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                element = iterator.next();
+            }
+            CompletableFuture<?> future;
+            try {
+                future = task.apply(element);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!future.isDone()) {
+                future.whenComplete(($, ex) -> runLane(iterator, task, runningLanes, done));
+                return;
+            }
+        }
+        if (runningLanes.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
     /**
      * A helper method to create exceptionally completed {@link CompletableFuture futures}.
      * <p>
@@ -38,7 +38,10 @@ import org.jetbrains.annotations.NotNull;
  *
  * @param <T> type
  * @author <a href="mailto:ivan@mrivanplays.com">Ivan Pekov</a>
+ * @deprecated indexed access is {@code O(n)} and the list is not thread-safe, use
+ *         {@link CopyOnWriteSortedList} instead
  */
+@Deprecated
 public class SortedList<T extends Comparable<T>> extends LinkedList<T> {
 
     @Override
@@ -0,0 +1,121 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import me.lokka30.treasury.api.common.misc.CopyOnWriteSortedList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a live view of the registrations of a service class. A handle always reflects the
+ * current state of the {@link ServiceRegistry}: whenever a service of its class gets registered
+ * or unregistered, the handle updates itself. Hence callers can get a handle once, via
+ * {@link ServiceRegistry#handleFor(Class)}, and hold onto it, instead of looking the service up
+ * every time it's needed.
+ * <p>Reading a handle neither locks nor allocates.
+ *
+ * @param <T> service type
+ * @since 2.0.2
+ */
+public final class ServiceHandle<T> {
+
+    private final Class<T> serviceClass;
+    // only modified by the registry, while holding its lock
+    private final CopyOnWriteSortedList<Service<T>> services = CopyOnWriteSortedList.naturalOrder();
+    private volatile Snapshot<T> snapshot = Snapshot.empty();
+
+    ServiceHandle(@NotNull Class<T> serviceClass) {
+        this.serviceClass = serviceClass;
+    }
+
+    /**
+     * Returns the service class this handle is of.
+     *
+     * @return service class
+     */
+    @NotNull
+    public Class<T> serviceClass() {
+        return serviceClass;
+    }
+
+    /**
+     * Returns the registered service with the highest {@link ServicePriority}, if any.
+     *
+     * @return service or an empty optional if not present
+     */
+    @NotNull
+    public Optional<Service<T>> get() {
+        return snapshot.top;
+    }
+
+    /**
+     * Returns whether there is at least one registered service of this handle's class.
+     *
+     * @return boolean value
+     */
+    public boolean isPresent() {
+        return snapshot.top.isPresent();
+    }
+
+    /**
+     * Returns an unmodifiable {@link Set} of all the registered services of this handle's class,
+     * ordered from the highest to the lowest {@link ServicePriority}. The returned set is a
+     * snapshot and doesn't reflect later registrations.
+     *
+     * @return services
+     */
+    @NotNull
+    public Set<Service<T>> all() {
+        return snapshot.all;
+    }
+
+    @NotNull
+    CopyOnWriteSortedList<Service<T>> services() {
+        return services;
+    }
+
+    void rebuild() {
+        Object[] current = services.snapshot();
+        snapshot = current.length == 0 ? Snapshot.empty() : new Snapshot<>(current);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceHandle{" + "serviceClass=" + serviceClass.getName() + ", services=" + services + '}';
+    }
+
+    private static final class Snapshot<T> {
+
+        private static final Snapshot<?> EMPTY = new Snapshot<>();
+
+        @SuppressWarnings("unchecked")
+        static <T> Snapshot<T> empty() {
+            return (Snapshot<T>) EMPTY;
+        }
+
+        private final Optional<Service<T>> top;
+        private final Set<Service<T>> all;
+
+        private Snapshot() {
+            this.top = Optional.empty();
+            this.all = Collections.emptySet();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Snapshot(@NotNull Object[] services) {
+            Set<Service<T>> all = new LinkedHashSet<>(services.length);
+            for (Object service : services) {
+                all.add((Service<T>) service);
+            }
+            this.top = Optional.of((Service<T>) services[0]);
+            this.all = Collections.unmodifiableSet(all);
+        }
+
+    }
+
+}
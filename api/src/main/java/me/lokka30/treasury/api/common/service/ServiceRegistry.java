@@ -6,16 +6,17 @@ package me.lokka30.treasury.api.common.service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import me.lokka30.treasury.api.common.event.EventBus;
-import me.lokka30.treasury.api.common.misc.SortedList;
 import me.lokka30.treasury.api.common.service.event.ServiceRegisteredEvent;
 import me.lokka30.treasury.api.common.service.event.ServiceUnregisteredEvent;
 import org.jetbrains.annotations.NotNull;
@@ -33,7 +34,12 @@ import org.jetbrains.annotations.NotNull;
 public enum ServiceRegistry {
     INSTANCE;
 
-    private Map<Class<?>, List<Service<?>>> servicesMap = new ConcurrentHashMap<>();
+    // handles are never removed, so that the ones held by callers keep updating themselves
+    private final Map<Class<?>, ServiceHandle<?>> handles = new ConcurrentHashMap<>();
+    // write side indexes, only accessed while holding the lock
+    private final Map<String, Map<Class<?>, List<Service<?>>>> byRegistrar = new HashMap<>();
+    private final Map<Class<?>, Map<Object, List<Service<?>>>> byProvider = new HashMap<>();
+    private final Object lock = new Object();
 
     /**
      * Register a provider of a service.
@@ -55,45 +61,59 @@ public enum ServiceRegistry {
         Objects.requireNonNull(registrar, "registrar");
         Objects.requireNonNull(priority, "priority");
         Service<T> serviceObj = new Service<>(registrar, priority, service);
-        servicesMap.computeIfAbsent(clazz, k -> new SortedList<>()).add(serviceObj);
+        synchronized (lock) {
+            ServiceHandle<T> handle = handleFor(clazz);
+            handle.services().add(serviceObj);
+            handle.rebuild();
+            byRegistrar
+                    .computeIfAbsent(registrarKey(registrar), k -> new HashMap<>())
+                    .computeIfAbsent(clazz, k -> new ArrayList<>(1))
+                    .add(serviceObj);
+            byProvider
+                    .computeIfAbsent(clazz, k -> new HashMap<>())
+                    .computeIfAbsent(service, k -> new ArrayList<>(1))
+                    .add(serviceObj);
+        }
         EventBus.INSTANCE.fire(new ServiceRegisteredEvent(serviceObj));
     }
 
     /**
      * Unregister all services from a particular registrar.
+     * <p>A {@link ServiceUnregisteredEvent} is fired for every unregistered service, all of them
+     * as a single batch.
      *
      * @param registrar the registrar
      */
     public void unregisterAll(@NotNull String registrar) {
         Objects.requireNonNull(registrar, "registrar");
         List<Service<?>> removed = new ArrayList<>();
-        Iterator<Map.Entry<Class<?>, List<Service<?>>>> iterator = servicesMap
-                .entrySet()
-                .iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Class<?>, List<Service<?>>> entry = iterator.next();
-            entry.getValue().removeIf(service -> {
-                if (service.registrarName().equalsIgnoreCase(registrar)) {
-                    removed.add(service);
-                    return true;
+        synchronized (lock) {
+            Map<Class<?>, List<Service<?>>> registered = byRegistrar.remove(registrarKey(registrar));
+            if (registered == null) {
+                return;
+            }
+            for (Map.Entry<Class<?>, List<Service<?>>> entry : registered.entrySet()) {
+                Class<?> clazz = entry.getKey();
+                List<Service<?>> services = entry.getValue();
+                removeFromHandle(clazz, services);
+                Map<Object, List<Service<?>>> providers = byProvider.get(clazz);
+                for (Service<?> service : services) {
+                    removeFromIndex(providers, service.get(), service);
                 }
-                return false;
-            });
-
-            if (entry.getValue().isEmpty()) {
-                iterator.remove();
+                if (providers.isEmpty()) {
+                    byProvider.remove(clazz);
+                }
+                removed.addAll(services);
             }
         }
 
-        if (!removed.isEmpty()) {
-            while (!removed.isEmpty()) {
-                EventBus.INSTANCE.fire(new ServiceUnregisteredEvent(removed.remove(0)));
-            }
-        }
+        fireUnregistered(removed);
     }
 
     /**
      * Unregister a particular service.
+     * <p>A {@link ServiceUnregisteredEvent} is fired for every unregistered service, all of them
+     * as a single batch.
      *
      * @param clazz   service class
      * @param service service
@@ -102,33 +122,72 @@ public enum ServiceRegistry {
         Objects.requireNonNull(clazz, "clazz");
         Objects.requireNonNull(service, "service");
 
-        List<Service<?>> removed = new ArrayList<>();
-        Iterator<Map.Entry<Class<?>, List<Service<?>>>> iterator = servicesMap
-                .entrySet()
-                .iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Class<?>, List<Service<?>>> entry = iterator.next();
-            if (entry.getKey() != clazz) {
-                continue;
+        List<Service<?>> removed;
+        synchronized (lock) {
+            Map<Object, List<Service<?>>> providers = byProvider.get(clazz);
+            if (providers == null || (removed = providers.remove(service)) == null) {
+                return;
             }
-
-            entry.getValue().removeIf(s -> {
-                if (Objects.equals(s.get(), service)) {
-                    removed.add(s);
-                    return true;
+            if (providers.isEmpty()) {
+                byProvider.remove(clazz);
+            }
+            removeFromHandle(clazz, removed);
+            for (Service<?> s : removed) {
+                String key = registrarKey(s.registrarName());
+                Map<Class<?>, List<Service<?>>> registered = byRegistrar.get(key);
+                removeFromIndex(registered, clazz, s);
+                if (registered.isEmpty()) {
+                    byRegistrar.remove(key);
                 }
-                return false;
-            });
-            if (entry.getValue().isEmpty()) {
-                iterator.remove();
             }
         }
 
-        if (!removed.isEmpty()) {
-            while (!removed.isEmpty()) {
-                EventBus.INSTANCE.fire(new ServiceUnregisteredEvent(removed.remove(0)));
-            }
+        fireUnregistered(removed);
+    }
+
+    private void removeFromHandle(@NotNull Class<?> clazz, @NotNull List<Service<?>> services) {
+        ServiceHandle<?> handle = handles.get(clazz);
+        if (services.size() == 1) {
+            handle.services().remove(services.get(0));
+        } else {
+            // Service doesn't override equals, so the set matches by identity
+            Set<Service<?>> toRemove = new HashSet<>(services);
+            handle.services().removeIf(toRemove::contains);
+        }
+        handle.rebuild();
+    }
+
+    private static <K> void removeFromIndex(
+            @NotNull Map<K, List<Service<?>>> index, @NotNull K key, @NotNull Service<?> service
+    ) {
+        List<Service<?>> services = index.get(key);
+        if (services == null) {
+            return;
+        }
+        services.remove(service);
+        if (services.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    @NotNull
+    private static String registrarKey(@NotNull String registrar) {
+        return registrar.toLowerCase(Locale.ROOT);
+    }
+
+    private static void fireUnregistered(@NotNull List<Service<?>> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        if (removed.size() == 1) {
+            EventBus.INSTANCE.fire(new ServiceUnregisteredEvent(removed.get(0)));
+            return;
+        }
+        List<ServiceUnregisteredEvent> events = new ArrayList<>(removed.size());
+        for (Service<?> service : removed) {
+            events.add(new ServiceUnregisteredEvent(service));
         }
+        EventBus.INSTANCE.fireAll(events);
     }
 
     /**
@@ -139,7 +198,30 @@ public enum ServiceRegistry {
      */
     public boolean hasRegistration(@NotNull Class<?> clazz) {
         Objects.requireNonNull(clazz, "clazz");
-        return servicesMap.containsKey(clazz);
+        ServiceHandle<?> handle = handles.get(clazz);
+        return handle != null && handle.isPresent();
+    }
+
+    /**
+     * Returns the {@link ServiceHandle} of the specified service class. The handle updates
+     * itself whenever services of the class are registered or unregistered, so callers needing
+     * the service repeatedly should hold onto it rather than calling {@link #serviceFor(Class)}
+     * every time. The same handle is returned for every call with the same class.
+     *
+     * @param clazz service class
+     * @param <T>   service type
+     * @return service handle
+     * @since 2.0.2
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <T> ServiceHandle<T> handleFor(@NotNull Class<T> clazz) {
+        Objects.requireNonNull(clazz, "clazz");
+        ServiceHandle<?> handle = handles.get(clazz);
+        if (handle == null) {
+            handle = handles.computeIfAbsent(clazz, k -> new ServiceHandle<>(clazz));
+        }
+        return (ServiceHandle<T>) handle;
     }
 
     /**
@@ -150,46 +232,31 @@ public enum ServiceRegistry {
      * @return service or an empty optional if not present
      */
     @NotNull
+    @SuppressWarnings("unchecked")
     public <T> Optional<Service<T>> serviceFor(@NotNull Class<T> clazz) {
         Objects.requireNonNull(clazz, "clazz");
-        if (!hasRegistration(clazz)) {
-            return Optional.empty();
-        }
-
-        List<Service<?>> services = servicesMap.get(clazz);
-        if (services == null || services.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of((Service<T>) services.get(0));
+        ServiceHandle<?> handle = handles.get(clazz);
+        return handle == null ? Optional.empty() : ((ServiceHandle<T>) handle).get();
     }
 
     /**
-     * Returns a {@link Set} copy of all the services found with the provided {@link Class}. If
-     * there are no services, it returns an empty set.
+     * Returns a {@link Set} copy of all the services found with the provided {@link Class},
+     * ordered from the highest to the lowest {@link ServicePriority}. If there are no services,
+     * it returns an empty set. {@link #handleFor(Class)} gives access to the services without
+     * copying them.
      *
      * @param clazz class to find the services of
      * @param <T>   service type
      * @return services
      */
     @NotNull
+    @SuppressWarnings("unchecked")
     public <T> Set<Service<T>> allServicesFor(@NotNull Class<T> clazz) {
         Objects.requireNonNull(clazz, "clazz");
-        if (!hasRegistration(clazz)) {
-            return Collections.emptySet();
-        }
-
-        List<Service<?>> services = servicesMap.get(clazz);
-        if (services == null || services.isEmpty()) {
-            return Collections.emptySet();
-        }
-
-        Set<Service<T>> ret = new HashSet<>();
-        for (Service<?> service : services) {
-            ret.add((Service<T>) service);
-        }
-
-        return ret;
+        ServiceHandle<?> handle = handles.get(clazz);
+        return handle == null
+                ? Collections.emptySet()
+                : new LinkedHashSet<>(((ServiceHandle<T>) handle).all());
     }
 
-
 }
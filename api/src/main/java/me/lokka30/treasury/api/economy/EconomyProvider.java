@@ -6,23 +6,34 @@ package me.lokka30.treasury.api.economy;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import me.lokka30.treasury.api.common.Cause;
 import me.lokka30.treasury.api.common.NamespacedKey;
 import me.lokka30.treasury.api.common.misc.FutureHelper;
 import me.lokka30.treasury.api.common.misc.TriState;
 import me.lokka30.treasury.api.economy.account.Account;
 import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.AccountIdCursor;
 import me.lokka30.treasury.api.economy.account.AccountPermission;
 import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
 import me.lokka30.treasury.api.economy.account.PlayerAccount;
 import me.lokka30.treasury.api.economy.account.accessor.AccountAccessor;
 import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.transaction.AccountTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionType;
+import me.lokka30.treasury.api.economy.transaction.TransactionHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -80,6 +91,38 @@ public interface EconomyProvider {
      */
     @NotNull CompletableFuture<Collection<NamespacedKey>> retrieveNonPlayerAccountIds();
 
+    /**
+     * Opens an {@link AccountIdCursor} over the {@link UUID UUIDs} with associated
+     * {@link PlayerAccount PlayerAccounts}, letting consumers go through all of them in bounded
+     * memory.
+     * <p>The default implementation pages through {@link #retrievePlayerAccountIds()}, which
+     * loads all the ids at once. Providers holding a lot of accounts are encouraged to override
+     * it, for example with keyset pagination over their storage.
+     *
+     * @return a new cursor over the player account uuids
+     * @since 2.0.2
+     */
+    @NotNull
+    default AccountIdCursor<UUID> playerAccountIdCursor() {
+        return AccountIdCursor.of(this::retrievePlayerAccountIds);
+    }
+
+    /**
+     * Opens an {@link AccountIdCursor} over the {@link NamespacedKey identifiers} with associated
+     * {@link NonPlayerAccount NonPlayer Accounts}, letting consumers go through all of them in
+     * bounded memory.
+     * <p>The default implementation pages through {@link #retrieveNonPlayerAccountIds()}, which
+     * loads all the identifiers at once. Providers holding a lot of accounts are encouraged to
+     * override it.
+     *
+     * @return a new cursor over the non-player account namespaced key identifiers
+     * @since 2.0.2
+     */
+    @NotNull
+    default AccountIdCursor<NamespacedKey> nonPlayerAccountIdCursor() {
+        return AccountIdCursor.of(this::retrieveNonPlayerAccountIds);
+    }
+
     /**
      * Request all {@link NonPlayerAccount non player accounts} the given player is a member of.
      *
@@ -144,6 +187,172 @@ public interface EconomyProvider {
         });
     }
 
+    /**
+     * Request the balances of the {@link PlayerAccount player accounts} of all the given players,
+     * in all the given {@link Currency currencies}, at once.
+     * <p>This is meant for consumers loading a lot of balances, such as balance top listings,
+     * which would otherwise have to retrieve every account and then every balance one by one.
+     * The default implementation does exactly that, for up to 64 players at a time, hence
+     * providers are encouraged to override it with a single query or storage scan.
+     * <p>The returned map is keyed by player {@link UUID}, each value being a map of
+     * {@link Currency#getIdentifier() currency identifiers} to balances. Players without an
+     * account are left out of it, no account is created for them. Players whose balances
+     * couldn't be retrieved are left out as well, so one broken account doesn't fail the
+     * balances of all the others.
+     *
+     * @param playerIds  the players to retrieve the balances of
+     * @param currencies the currencies to retrieve the balances in
+     * @return a map of player uuids to their balances by currency identifier
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Map<UUID, Map<String, BigDecimal>>> retrieveBalances(
+            @NotNull Collection<UUID> playerIds, @NotNull Collection<Currency> currencies
+    ) {
+        Objects.requireNonNull(playerIds, "playerIds");
+        Objects.requireNonNull(currencies, "currencies");
+
+        Map<UUID, Map<String, BigDecimal>> result = new ConcurrentHashMap<>(playerIds.size());
+        if (currencies.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return FutureHelper.forEachBounded(playerIds, 64, playerId -> this
+                .hasAccount(AccountData.forPlayerAccount(playerId))
+                .thenCompose(exists -> {
+                    if (!exists) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return this
+                            .accountAccessor()
+                            .player()
+                            .withUniqueId(playerId)
+                            .get()
+                            .thenCompose(account -> {
+                                Map<String, BigDecimal> balances = new ConcurrentHashMap<>(
+                                        currencies.size());
+                                CompletableFuture<?>[] balanceFutures = new CompletableFuture<?>[currencies.size()];
+                                int i = 0;
+                                for (Currency currency : currencies) {
+                                    balanceFutures[i++] = account
+                                            .retrieveBalance(currency)
+                                            .thenAccept(balance -> balances.put(
+                                                    currency.getIdentifier(),
+                                                    balance
+                                            ));
+                                }
+                                // only whole rows, a player missing some is left out
+                                return CompletableFuture
+                                        .allOf(balanceFutures)
+                                        .thenRun(() -> result.put(playerId, balances));
+                            });
+                })).thenApply(ignored -> result);
+    }
+
+    /**
+     * Does all the given {@link AccountTransaction transactions}, possibly spanning multiple
+     * {@link Account accounts}, in order, stopping at the first one which fails.
+     * <p>The default implementation is compensating, not atomic: it does the transactions one
+     * after the other, undoing the done ones on a best-effort basis if one fails, as described in
+     * {@link TransactionHelper#executeSequentially(List, java.util.function.Function)}. Balances
+     * before {@link EconomyTransactionType#SET set} transactions are retrieved through
+     * {@link #findCurrency(String)}, so that they can be undone. Providers are encouraged to
+     * override it with a single storage transaction, which makes the batch all-or-nothing.
+     *
+     * @param transactions the transactions to do
+     * @return a future with the balances after each transaction, in the same order, completed
+     *     exceptionally with the error of the first failed transaction, or with an
+     *     {@link me.lokka30.treasury.api.economy.transaction.IncompleteRollbackException} if some
+     *     of the done transactions couldn't be undone
+     * @see Account#doTransactions(List)
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<List<BigDecimal>> executeBatch(
+            @NotNull List<AccountTransaction> transactions
+    ) {
+        return TransactionHelper.executeSequentially(transactions, transaction -> {
+            String currencyId = transaction.getTransaction().getCurrencyId();
+            Optional<Currency> currency = findCurrency(currencyId);
+            if (!currency.isPresent()) {
+                return FutureHelper.failedFuture(new IllegalArgumentException(
+                        "Unknown currency " + currencyId));
+            }
+            return transaction.getAccount().retrieveBalance(currency.get());
+        });
+    }
+
+    /**
+     * Transfers the given {@code amount} of the given {@link Currency} from an {@link Account}
+     * to another, with a {@link EconomyTransactionImportance#NORMAL normal} importance and no
+     * reason.
+     *
+     * @param from     the account to withdraw from
+     * @param to       the account to deposit to
+     * @param amount   the amount to transfer
+     * @param cause    the cause of the transfer
+     * @param currency the currency of the amount
+     * @return a future with the balances of {@code from} and {@code to} after the transfer
+     * @see #transfer(Account, Account, BigDecimal, Cause, Currency, EconomyTransactionImportance,
+     *     String)
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<List<BigDecimal>> transfer(
+            @NotNull Account from,
+            @NotNull Account to,
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency
+    ) {
+        return transfer(from, to, amount, cause, currency, EconomyTransactionImportance.NORMAL, null);
+    }
+
+    /**
+     * Transfers the given {@code amount} of the given {@link Currency} from an {@link Account}
+     * to another: withdraws it from {@code from} and deposits it to {@code to}.
+     * <p>The default implementation is an {@link #executeBatch(List)} of the withdrawal and the
+     * deposit, so if the deposit fails the withdrawal is compensated for, which is not atomic.
+     * Providers are encouraged to override it with a single storage transaction.
+     *
+     * @param from       the account to withdraw from
+     * @param to         the account to deposit to
+     * @param amount     the amount to transfer
+     * @param cause      the cause of the transfer
+     * @param currency   the currency of the amount
+     * @param importance the importance of the transfer
+     * @param reason     the reason of the transfer
+     * @return a future with the balances of {@code from} and {@code to} after the transfer
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<List<BigDecimal>> transfer(
+            @NotNull Account from,
+            @NotNull Account to,
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        EconomyTransaction.Builder builder = EconomyTransaction
+                .newBuilder()
+                .withCurrency(currency)
+                .withCause(cause)
+                .withAmount(amount)
+                .withImportance(importance)
+                .withReason(reason);
+        return executeBatch(Arrays.asList(
+                AccountTransaction.of(from,
+                        builder.copy().withType(EconomyTransactionType.WITHDRAWAL).build()
+                ),
+                AccountTransaction.of(to,
+                        builder.copy().withType(EconomyTransactionType.DEPOSIT).build()
+                )
+        ));
+    }
+
     /**
      * Get the primary or main {@link Currency} of the economy.
      *
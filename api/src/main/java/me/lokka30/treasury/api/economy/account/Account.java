@@ -9,6 +9,7 @@ import java.time.Instant;
 import java.time.temporal.Temporal;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -19,9 +20,11 @@ import me.lokka30.treasury.api.common.Cause;
 import me.lokka30.treasury.api.common.misc.TriState;
 import me.lokka30.treasury.api.economy.EconomyProvider;
 import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.currency.Money;
 import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
 import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
 import me.lokka30.treasury.api.economy.transaction.EconomyTransactionType;
+import me.lokka30.treasury.api.economy.transaction.TransactionHelper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -70,6 +73,23 @@ public interface Account {
      */
     @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency);
 
+    /**
+     * Request the balance of the {@code Account}, as {@link Money} in the
+     * {@link Currency#getPrecision() precision} of the specified {@code currency}.
+     * <p>The default implementation converts the result of {@link #retrieveBalance(Currency)}.
+     * Implementations which hold balances as a count of the smallest unit are encouraged to
+     * override it, so that callers don't need to go through {@link BigDecimal} at all.
+     *
+     * @param currency the {@link Currency} of the balance being requested
+     * @return the balance, rounded half even if it has more fractional digits than the precision
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Money> retrieveBalanceMoney(@NotNull Currency currency) {
+        Objects.requireNonNull(currency, "currency");
+        return retrieveBalance(currency).thenApply(balance -> Money.of(balance, currency));
+    }
+
     /**
      * Withdraw an amount from the {@code Account} balance.
      *
@@ -139,6 +159,49 @@ public interface Account {
                 .build());
     }
 
+    /**
+     * Does the same as {@link #withdrawBalance(BigDecimal, Cause, Currency)}, with the amount
+     * and the resulting balance as {@link Money}.
+     *
+     * @param amount   the amount the balance will be reduced by
+     * @param cause    the one who caused the transaction
+     * @param currency the {@link Currency} of the balance being modified
+     * @return the new balance, in the {@link Currency#getPrecision() precision} of the currency
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Money> withdrawBalance(
+            @NotNull Money amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return withdrawBalance(amount, cause, currency, EconomyTransactionImportance.NORMAL, null);
+    }
+
+    /**
+     * Does the same as
+     * {@link #withdrawBalance(BigDecimal, Cause, Currency, EconomyTransactionImportance, String)},
+     * with the amount and the resulting balance as {@link Money}.
+     *
+     * @param amount     the amount the balance will be reduced by
+     * @param cause      the one who caused the transaction
+     * @param currency   the {@link Currency} of the balance being modified
+     * @param importance how important is the transaction
+     * @param reason     the reason of why the balance is modified
+     * @return the new balance, in the {@link Currency#getPrecision() precision} of the currency
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Money> withdrawBalance(
+            @NotNull Money amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        Objects.requireNonNull(amount, "amount");
+        return withdrawBalance(amount.toBigDecimal(), cause, currency, importance, reason)
+                .thenApply(balance -> Money.of(balance, currency));
+    }
+
     /**
      * Deposit an amount into the {@code Account} balance.
      *
@@ -216,6 +279,49 @@ public interface Account {
                 .build());
     }
 
+    /**
+     * Does the same as {@link #depositBalance(BigDecimal, Cause, Currency)}, with the amount
+     * and the resulting balance as {@link Money}.
+     *
+     * @param amount   the amount the balance will be increased by
+     * @param cause    the one who caused the transaction
+     * @param currency the {@link Currency} of the balance being modified
+     * @return the new balance, in the {@link Currency#getPrecision() precision} of the currency
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Money> depositBalance(
+            @NotNull Money amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return depositBalance(amount, cause, currency, EconomyTransactionImportance.NORMAL, null);
+    }
+
+    /**
+     * Does the same as
+     * {@link #depositBalance(BigDecimal, Cause, Currency, EconomyTransactionImportance, String)},
+     * with the amount and the resulting balance as {@link Money}.
+     *
+     * @param amount     the amount the balance will be increased by
+     * @param cause      the one who caused the transaction
+     * @param currency   the {@link Currency} of the balance being modified
+     * @param importance how important is the transaction
+     * @param reason     the reason of why the balance is modified
+     * @return the new balance, in the {@link Currency#getPrecision() precision} of the currency
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<Money> depositBalance(
+            @NotNull Money amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        Objects.requireNonNull(amount, "amount");
+        return depositBalance(amount.toBigDecimal(), cause, currency, importance, reason)
+                .thenApply(balance -> Money.of(balance, currency));
+    }
+
     /**
      * Does a {@link EconomyTransaction} on this account.
      *
@@ -225,6 +331,31 @@ public interface Account {
      */
     @NotNull CompletableFuture<BigDecimal> doTransaction(@NotNull EconomyTransaction economyTransaction);
 
+    /**
+     * Does all the given {@link EconomyTransaction transactions} on this {@code Account}, in
+     * order, stopping at the first one which fails.
+     * <p>The default implementation is compensating, not atomic: it does the transactions one
+     * after the other, undoing the done ones on a best-effort basis if one fails, as described in
+     * {@link TransactionHelper#executeSequentially(List, java.util.function.Function)}. It can
+     * only undo a {@link EconomyTransactionType#SET set} transaction if an earlier transaction of
+     * the batch was in the same currency. Providers are encouraged to override it with a single
+     * storage transaction, which makes the batch all-or-nothing.
+     *
+     * @param transactions the transactions to do
+     * @return a future with the balances after each transaction, in the same order, completed
+     *     exceptionally with the error of the first failed transaction, or with an
+     *     {@link me.lokka30.treasury.api.economy.transaction.IncompleteRollbackException} if some
+     *     of the done transactions couldn't be undone
+     * @see EconomyProvider#executeBatch(List)
+     * @since 2.0.2
+     */
+    @NotNull
+    default CompletableFuture<List<BigDecimal>> doTransactions(
+            @NotNull List<EconomyTransaction> transactions
+    ) {
+        return TransactionHelper.executeSequentially(this, transactions);
+    }
+
     /**
      * Reset the {@code Account} balance to its starting amount.
      *
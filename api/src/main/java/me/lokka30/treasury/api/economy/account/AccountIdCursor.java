@@ -0,0 +1,89 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.account;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import me.lokka30.treasury.api.economy.EconomyProvider;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a cursor over the identifiers of accounts, retrieving them page by page, so that
+ * all the account identifiers of an {@link EconomyProvider} can be processed in bounded memory.
+ * <p>Pages are only retrieved when asked for, through {@link #next(int)}, hence consumers control
+ * how fast the cursor advances. Calls to {@link #next(int)} must not overlap: the next page should
+ * only be asked for once the previous one was retrieved. A cursor is not guaranteed to reflect
+ * accounts created or deleted while it's open.
+ *
+ * @param <T> identifier type
+ * @see EconomyProvider#playerAccountIdCursor()
+ * @see EconomyProvider#nonPlayerAccountIdCursor()
+ * @since 2.0.2
+ */
+public interface AccountIdCursor<T> extends AutoCloseable {
+
+    /**
+     * Creates a new {@code AccountIdCursor}, paging through the collection of identifiers
+     * retrieved by the specified {@code ids} supplier. The supplier is only called once, when the
+     * first page is asked for.
+     * <p>This is the fallback for providers which don't support paging: the whole collection is
+     * still loaded at once.
+     *
+     * @param ids supplier of all the identifiers
+     * @param <T> identifier type
+     * @return new cursor
+     */
+    @NotNull
+    static <T> AccountIdCursor<T> of(
+            @NotNull Supplier<@NotNull CompletableFuture<? extends Collection<T>>> ids
+    ) {
+        return new CollectionAccountIdCursor<>(Objects.requireNonNull(ids, "ids"));
+    }
+
+    /**
+     * Retrieves the next page of identifiers, of at most {@code maxSize} identifiers. An empty
+     * page means that the cursor is exhausted.
+     *
+     * @param maxSize the maximum amount of identifiers to retrieve
+     * @return future with the next page
+     */
+    @NotNull CompletableFuture<@NotNull List<T>> next(int maxSize);
+
+    /**
+     * Retrieves all the remaining pages, of at most {@code pageSize} identifiers, one after the
+     * other, calling the specified {@code consumer} with each of them. The next page is only
+     * retrieved once the future returned by the {@code consumer} for the previous page completes.
+     * The cursor gets {@link #close() closed} once done.
+     *
+     * @param pageSize the maximum amount of identifiers per page
+     * @param consumer page consumer
+     * @return future, completed once all the pages were consumed, or exceptionally with the
+     *     first error of the cursor or the consumer
+     */
+    @NotNull
+    default CompletableFuture<Void> forEachPage(
+            int pageSize, @NotNull Function<@NotNull List<T>, @NotNull CompletableFuture<?>> consumer
+    ) {
+        Objects.requireNonNull(consumer, "consumer");
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CollectionAccountIdCursor.drain(this, pageSize, consumer, done);
+        return done.whenComplete((v, e) -> close());
+    }
+
+    /**
+     * Releases the resources held by this cursor, if any. Does nothing by default.
+     */
+    @Override
+    default void close() {
+    }
+
+}
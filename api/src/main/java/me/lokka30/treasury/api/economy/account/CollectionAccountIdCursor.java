@@ -0,0 +1,95 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.account;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An {@link AccountIdCursor} paging through a fully retrieved collection.
+ *
+ * @param <T> identifier type
+ */
+final class CollectionAccountIdCursor<T> implements AccountIdCursor<T> {
+
+    private final Supplier<CompletableFuture<? extends Collection<T>>> supplier;
+    private CompletableFuture<Iterator<T>> iterator;
+
+    CollectionAccountIdCursor(@NotNull Supplier<CompletableFuture<? extends Collection<T>>> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public synchronized @NotNull CompletableFuture<@NotNull List<T>> next(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (iterator == null) {
+            iterator = supplier.get().thenApply(Collection::iterator);
+        }
+        return iterator.thenApply(it -> {
+            // pages don't overlap, but may be retrieved by different threads
+            synchronized (it) {
+                if (!it.hasNext()) {
+                    return Collections.emptyList();
+                }
+                List<T> page = new ArrayList<>(maxSize);
+                while (page.size() < maxSize && it.hasNext()) {
+                    page.add(it.next());
+                }
+                return page;
+            }
+        });
+    }
+
+    /**
+     * Consumes all the remaining pages of the specified {@code cursor}. Pages retrieved and
+     * consumed synchronously are looped over rather than recursed into, so that the stack
+     * doesn't grow with the amount of pages.
+     */
+    static <T> void drain(
+            @NotNull AccountIdCursor<T> cursor,
+            int pageSize,
+            @NotNull Function<List<T>, CompletableFuture<?>> consumer,
+            @NotNull CompletableFuture<Void> done
+    ) {
+        while (true) {
+            CompletableFuture<Boolean> step;
+            try {
+                step = cursor.next(pageSize).thenCompose(page -> page.isEmpty()
+                        ? CompletableFuture.completedFuture(false)
+                        : consumer.apply(page).thenApply(ignored -> true));
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+                return;
+            }
+            if (step.isDone() && !step.isCompletedExceptionally()) {
+                if (!step.join()) {
+                    done.complete(null);
+                    return;
+                }
+                continue;
+            }
+            step.whenComplete((more, error) -> {
+                if (error != null) {
+                    done.completeExceptionally(error);
+                } else if (more) {
+                    drain(cursor, pageSize, consumer, done);
+                } else {
+                    done.complete(null);
+                }
+            });
+            return;
+        }
+    }
+
+}
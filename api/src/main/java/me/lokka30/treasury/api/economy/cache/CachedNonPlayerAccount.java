@@ -0,0 +1,35 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.cache;
+
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link NonPlayerAccount} held by a {@link CachingEconomyProvider}.
+ */
+final class CachedNonPlayerAccount extends ForwardingAccount<NonPlayerAccount> implements NonPlayerAccount {
+
+    private final CachingEconomyProvider cache;
+
+    CachedNonPlayerAccount(
+            @NotNull CachingEconomyProvider cache, @NotNull NonPlayerAccount delegate
+    ) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    @Override
+    public @NotNull NamespacedKey identifier() {
+        return delegate.identifier();
+    }
+
+    @Override
+    void onDelete() {
+        cache.invalidate(delegate.identifier());
+    }
+
+}
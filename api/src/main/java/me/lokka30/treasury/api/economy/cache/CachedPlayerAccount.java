@@ -0,0 +1,33 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.cache;
+
+import java.util.UUID;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link PlayerAccount} held by a {@link CachingEconomyProvider}.
+ */
+final class CachedPlayerAccount extends ForwardingAccount<PlayerAccount> implements PlayerAccount {
+
+    private final CachingEconomyProvider cache;
+
+    CachedPlayerAccount(@NotNull CachingEconomyProvider cache, @NotNull PlayerAccount delegate) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    @Override
+    public @NotNull UUID identifier() {
+        return delegate.identifier();
+    }
+
+    @Override
+    void onDelete() {
+        cache.invalidate(delegate.identifier());
+    }
+
+}
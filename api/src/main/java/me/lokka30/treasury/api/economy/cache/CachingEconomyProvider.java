@@ -0,0 +1,469 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.EconomyProvider;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.AccountIdCursor;
+import me.lokka30.treasury.api.economy.account.AccountPermission;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.account.accessor.AccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.NonPlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.PlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.transaction.AccountTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link EconomyProvider} decorator, which caches the accounts retrieved through its
+ * {@link #accountAccessor()}, so that repeated lookups of the same account don't hit the storage
+ * of the decorated provider.
+ * <p>Accounts are kept in a bounded cache: the least recently used accounts are evicted once the
+ * {@link Builder#withMaximumSize(long) maximum size} is reached, and accounts which weren't
+ * accessed for the {@link Builder#withExpireAfterAccess(long, TimeUnit) idle time} are evicted
+ * too. Concurrent lookups of the same account are de-duplicated: only the first one reaches the
+ * decorated provider, the rest get the same pending {@link CompletableFuture}. Failed lookups
+ * aren't cached.
+ * <p>Deleting an account obtained through this provider invalidates it. Accounts deleted through
+ * other means, for example directly through the decorated provider, stay cached until they're
+ * evicted or {@link #invalidate(UUID) invalidated}.
+ * <p>The bulk lookups of {@link EconomyProvider} run through the cache, unless the decorated
+ * provider has its own implementation of them. Every other method is forwarded to the decorated
+ * provider.
+ *
+ * @since 2.0.2
+ */
+public final class CachingEconomyProvider implements EconomyProvider {
+
+    /**
+     * Creates a new {@link Builder} of a {@code CachingEconomyProvider}.
+     *
+     * @return new builder
+     */
+    @NotNull
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Decorates the specified {@link EconomyProvider} with the default cache settings.
+     *
+     * @param delegate the provider to decorate
+     * @return caching provider
+     */
+    @NotNull
+    public static CachingEconomyProvider wrap(@NotNull EconomyProvider delegate) {
+        return newBuilder().build(delegate);
+    }
+
+    private final EconomyProvider delegate;
+    private final Cache<UUID, CompletableFuture<PlayerAccount>> playerAccounts;
+    private final Cache<NamespacedKey, CompletableFuture<NonPlayerAccount>> nonPlayerAccounts;
+    private final AccountAccessor accountAccessor = new CachingAccountAccessor();
+    // whether the delegate has its own implementations of the bulk lookups, which then are
+    // preferred over the defaults running through the cache
+    private final boolean delegateMemberLookups;
+    private final boolean delegatePermissionLookups;
+    private final boolean delegateBalanceLookups;
+
+    private CachingEconomyProvider(@NotNull EconomyProvider delegate, @NotNull Builder builder) {
+        this.delegate = delegate;
+        this.playerAccounts = builder.newCache();
+        this.nonPlayerAccounts = builder.newCache();
+        this.delegateMemberLookups = overrides(delegate,
+                "retrieveAllAccountsPlayerIsMemberOf",
+                UUID.class
+        );
+        this.delegatePermissionLookups = overrides(delegate,
+                "retrieveAllAccountsPlayerHasPermissions",
+                UUID.class,
+                AccountPermission[].class
+        );
+        this.delegateBalanceLookups = overrides(delegate,
+                "retrieveBalances",
+                Collection.class,
+                Collection.class
+        );
+    }
+
+    private static boolean overrides(
+            @NotNull EconomyProvider provider,
+            @NotNull String method,
+            @NotNull Class<?> @NotNull ... parameterTypes
+    ) {
+        try {
+            return provider.getClass().getMethod(method, parameterTypes).getDeclaringClass() != EconomyProvider.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the decorated {@link EconomyProvider}.
+     *
+     * @return decorated provider
+     */
+    @NotNull
+    public EconomyProvider getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Invalidates the cached {@link PlayerAccount} of the specified player, if any.
+     *
+     * @param uniqueId player unique id
+     */
+    public void invalidate(@NotNull UUID uniqueId) {
+        playerAccounts.invalidate(Objects.requireNonNull(uniqueId, "uniqueId"));
+    }
+
+    /**
+     * Invalidates the cached {@link NonPlayerAccount} of the specified identifier, if any.
+     *
+     * @param identifier account identifier
+     */
+    public void invalidate(@NotNull NamespacedKey identifier) {
+        nonPlayerAccounts.invalidate(Objects.requireNonNull(identifier, "identifier"));
+    }
+
+    /**
+     * Invalidates all the cached accounts.
+     */
+    public void invalidateAll() {
+        playerAccounts.invalidateAll();
+        nonPlayerAccounts.invalidateAll();
+    }
+
+    @NotNull
+    private static <K, V> CompletableFuture<V> getOrLoad(
+            @NotNull Cache<K, CompletableFuture<V>> cache,
+            @NotNull K key,
+            @NotNull Supplier<CompletableFuture<V>> loader
+    ) {
+        CompletableFuture<V> future;
+        try {
+            // the cache blocks concurrent loads of the same key, hence the loader runs once
+            future = cache.get(key, () -> {
+                CompletableFuture<V> loading = loader.get();
+                loading.whenComplete((value, error) -> {
+                    if (error != null) {
+                        cache.asMap().remove(key, loading);
+                    }
+                });
+                return loading;
+            });
+        } catch (ExecutionException e) {
+            return FutureHelper.failedFuture(e.getCause());
+        } catch (RuntimeException | Error e) {
+            // the loader threw, wrapped in an unchecked exception of the cache
+            return FutureHelper.failedFuture(e.getCause() != null ? e.getCause() : e);
+        }
+        if (future.isCompletedExceptionally()) {
+            // failed before being put into the cache
+            cache.asMap().remove(key, future);
+        }
+        return future;
+    }
+
+    @Override
+    public @NotNull AccountAccessor accountAccessor() {
+        return accountAccessor;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> hasAccount(@NotNull AccountData accountData) {
+        return delegate.hasAccount(accountData);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<UUID>> retrievePlayerAccountIds() {
+        return delegate.retrievePlayerAccountIds();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NamespacedKey>> retrieveNonPlayerAccountIds() {
+        return delegate.retrieveNonPlayerAccountIds();
+    }
+
+    @Override
+    public @NotNull AccountIdCursor<UUID> playerAccountIdCursor() {
+        return delegate.playerAccountIdCursor();
+    }
+
+    @Override
+    public @NotNull AccountIdCursor<NamespacedKey> nonPlayerAccountIdCursor() {
+        return delegate.nonPlayerAccountIdCursor();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NonPlayerAccount>> retrieveAllAccountsPlayerIsMemberOf(
+            @NotNull UUID playerId
+    ) {
+        if (delegateMemberLookups) {
+            return delegate.retrieveAllAccountsPlayerIsMemberOf(playerId);
+        }
+        return EconomyProvider.super.retrieveAllAccountsPlayerIsMemberOf(playerId);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NonPlayerAccount>> retrieveAllAccountsPlayerHasPermissions(
+            @NotNull UUID playerId, @NotNull AccountPermission @NotNull ... permissions
+    ) {
+        if (delegatePermissionLookups) {
+            return delegate.retrieveAllAccountsPlayerHasPermissions(playerId, permissions);
+        }
+        return EconomyProvider.super.retrieveAllAccountsPlayerHasPermissions(playerId,
+                permissions
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<UUID, Map<String, BigDecimal>>> retrieveBalances(
+            @NotNull Collection<UUID> playerIds, @NotNull Collection<Currency> currencies
+    ) {
+        if (delegateBalanceLookups) {
+            return delegate.retrieveBalances(playerIds, currencies);
+        }
+        return EconomyProvider.super.retrieveBalances(playerIds, currencies);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> executeBatch(
+            @NotNull List<AccountTransaction> transactions
+    ) {
+        // the decorated provider may expect its own account implementations, not the cached ones
+        List<AccountTransaction> unwrapped = new ArrayList<>(transactions.size());
+        for (AccountTransaction transaction : transactions) {
+            unwrapped.add(AccountTransaction.of(ForwardingAccount.unwrap(transaction.getAccount()),
+                    transaction.getTransaction()
+            ));
+        }
+        return delegate.executeBatch(unwrapped);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> transfer(
+            @NotNull Account from,
+            @NotNull Account to,
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency
+    ) {
+        return delegate.transfer(ForwardingAccount.unwrap(from),
+                ForwardingAccount.unwrap(to),
+                amount,
+                cause,
+                currency
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> transfer(
+            @NotNull Account from,
+            @NotNull Account to,
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.transfer(ForwardingAccount.unwrap(from),
+                ForwardingAccount.unwrap(to),
+                amount,
+                cause,
+                currency,
+                importance,
+                reason
+        );
+    }
+
+    @Override
+    public @NotNull Currency getPrimaryCurrency() {
+        return delegate.getPrimaryCurrency();
+    }
+
+    @Override
+    public @NotNull Optional<Currency> findCurrency(@NotNull String identifier) {
+        return delegate.findCurrency(identifier);
+    }
+
+    @Override
+    public @NotNull Optional<Currency> findCurrencyByDisplayName(
+            @NotNull String displayName, @NotNull BigDecimal value, @Nullable Locale locale
+    ) {
+        return delegate.findCurrencyByDisplayName(displayName, value, locale);
+    }
+
+    @Override
+    public @NotNull Set<Currency> getCurrencies() {
+        return delegate.getCurrencies();
+    }
+
+    @Override
+    public @NotNull String getPrimaryCurrencyId() {
+        return delegate.getPrimaryCurrencyId();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<TriState> registerCurrency(@NotNull Currency currency) {
+        return delegate.registerCurrency(currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<TriState> unregisterCurrency(@NotNull Currency currency) {
+        return delegate.unregisterCurrency(currency);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingEconomyProvider{" + "delegate=" + delegate + '}';
+    }
+
+    private final class CachingAccountAccessor implements AccountAccessor {
+
+        @Override
+        public @NotNull PlayerAccountAccessor player() {
+            return new PlayerAccountAccessor() {
+                @Override
+                protected @NotNull CompletableFuture<PlayerAccount> getOrCreate(
+                        @NotNull PlayerAccountCreateContext context
+                ) {
+                    UUID uniqueId = context.getUniqueId();
+                    return getOrLoad(playerAccounts, uniqueId, () -> delegate
+                            .accountAccessor()
+                            .player()
+                            .withUniqueId(uniqueId)
+                            .get()
+                            .thenApply(account -> new CachedPlayerAccount(
+                                    CachingEconomyProvider.this,
+                                    account
+                            )));
+                }
+            };
+        }
+
+        @Override
+        public @NotNull NonPlayerAccountAccessor nonPlayer() {
+            return new NonPlayerAccountAccessor() {
+                @Override
+                protected @NotNull CompletableFuture<NonPlayerAccount> getOrCreate(
+                        @NotNull NonPlayerAccountCreateContext context
+                ) {
+                    NamespacedKey identifier = context.getIdentifier();
+                    // the name only matters if the account gets created, which it won't if cached
+                    return getOrLoad(nonPlayerAccounts, identifier, () -> delegate
+                            .accountAccessor()
+                            .nonPlayer()
+                            .withIdentifier(identifier)
+                            .withName(context.getName())
+                            .get()
+                            .thenApply(account -> new CachedNonPlayerAccount(
+                                    CachingEconomyProvider.this,
+                                    account
+                            )));
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Represents a builder of a {@link CachingEconomyProvider}.
+     *
+     * @since 2.0.2
+     */
+    public static final class Builder {
+
+        private long maximumSize = 10_000;
+        private long expireAfterAccessNanos = TimeUnit.MINUTES.toNanos(15);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum amount of accounts, of each account type, to cache. Defaults to
+         * 10000.
+         *
+         * @param maximumSize maximum size
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withMaximumSize(long maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("maximumSize cannot be negative");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets for how long an account can stay cached without being accessed. Defaults to 15
+         * minutes.
+         *
+         * @param duration idle duration
+         * @param unit     unit of the duration
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withExpireAfterAccess(long duration, @NotNull TimeUnit unit) {
+            Objects.requireNonNull(unit, "unit");
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration cannot be negative");
+            }
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Builds a new {@link CachingEconomyProvider}, decorating the specified provider.
+         *
+         * @param delegate the provider to decorate
+         * @return caching provider
+         */
+        @NotNull
+        public CachingEconomyProvider build(@NotNull EconomyProvider delegate) {
+            Objects.requireNonNull(delegate, "delegate");
+            if (delegate instanceof CachingEconomyProvider) {
+                throw new IllegalArgumentException("The provider is already caching accounts");
+            }
+            return new CachingEconomyProvider(delegate, this);
+        }
+
+        @NotNull
+        private <K, V> Cache<K, V> newCache() {
+            return CacheBuilder
+                    .newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterAccess(expireAfterAccessNanos, TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+    }
+
+}
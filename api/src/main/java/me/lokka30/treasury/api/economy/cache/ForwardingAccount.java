@@ -0,0 +1,301 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.cache;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountPermission;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.currency.Money;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An {@link Account} forwarding every call, default methods included, to the account it wraps,
+ * so that the overrides of the provider are kept. Deletion is forwarded through
+ * {@link #onDelete()}, so that caches can invalidate the account.
+ *
+ * @param <A> wrapped account type
+ */
+abstract class ForwardingAccount<A extends Account> implements Account {
+
+    protected final A delegate;
+
+    ForwardingAccount(@NotNull A delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Called whenever this account is about to be deleted, and once again when the deletion
+     * completes.
+     */
+    abstract void onDelete();
+
+    @NotNull
+    A delegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the account wrapped by the specified {@code account}, if it is a forwarding one.
+     *
+     * @param account account
+     * @return unwrapped account
+     */
+    @NotNull
+    static Account unwrap(@NotNull Account account) {
+        return account instanceof ForwardingAccount ? ((ForwardingAccount<?>) account).delegate : account;
+    }
+
+    @Override
+    public @NotNull Optional<String> getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> setName(@Nullable String name) {
+        return delegate.setName(name);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency) {
+        return delegate.retrieveBalance(currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Money> retrieveBalanceMoney(@NotNull Currency currency) {
+        return delegate.retrieveBalanceMoney(currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> withdrawBalance(
+            @NotNull BigDecimal amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return delegate.withdrawBalance(amount, cause, currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> withdrawBalance(
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance
+    ) {
+        return delegate.withdrawBalance(amount, cause, currency, importance);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> withdrawBalance(
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.withdrawBalance(amount, cause, currency, importance, reason);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Money> withdrawBalance(
+            @NotNull Money amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return delegate.withdrawBalance(amount, cause, currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Money> withdrawBalance(
+            @NotNull Money amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.withdrawBalance(amount, cause, currency, importance, reason);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> depositBalance(
+            @NotNull BigDecimal amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return delegate.depositBalance(amount, cause, currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> depositBalance(
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance
+    ) {
+        return delegate.depositBalance(amount, cause, currency, importance);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> depositBalance(
+            @NotNull BigDecimal amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.depositBalance(amount, cause, currency, importance, reason);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Money> depositBalance(
+            @NotNull Money amount, @NotNull Cause<?> cause, @NotNull Currency currency
+    ) {
+        return delegate.depositBalance(amount, cause, currency);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Money> depositBalance(
+            @NotNull Money amount,
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.depositBalance(amount, cause, currency, importance, reason);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> doTransaction(
+            @NotNull EconomyTransaction economyTransaction
+    ) {
+        return delegate.doTransaction(economyTransaction);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> doTransactions(
+            @NotNull List<EconomyTransaction> transactions
+    ) {
+        return delegate.doTransactions(transactions);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> resetBalance(
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance
+    ) {
+        return delegate.resetBalance(cause, currency, importance);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> resetBalance(
+            @NotNull Cause<?> cause,
+            @NotNull Currency currency,
+            @NotNull EconomyTransactionImportance importance,
+            @Nullable String reason
+    ) {
+        return delegate.resetBalance(cause, currency, importance, reason);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteAccount() {
+        // invalidate before, so no new caller gets the account, and after, in case a caller
+        // re-cached it while the deletion was running
+        onDelete();
+        return delegate.deleteAccount().whenComplete((deleted, error) -> onDelete());
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> retrieveHeldCurrencies() {
+        return delegate.retrieveHeldCurrencies();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+            int transactionCount, @NotNull Temporal from, @NotNull Temporal to
+    ) {
+        return delegate.retrieveTransactionHistory(transactionCount, from, to);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+            int transactionCount
+    ) {
+        return delegate.retrieveTransactionHistory(transactionCount);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<UUID>> retrieveMemberIds() {
+        return delegate.retrieveMemberIds();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isMember(@NotNull UUID player) {
+        return delegate.isMember(player);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> setPermissions(
+            @NotNull UUID player,
+            @NotNull TriState permissionValue,
+            @NotNull AccountPermission @NotNull ... permissions
+    ) {
+        return delegate.setPermissions(player, permissionValue, permissions);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> setPermissions(
+            @NotNull UUID player, @NotNull Map<AccountPermission, TriState> permissionsMap
+    ) {
+        return delegate.setPermissions(player, permissionsMap);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<AccountPermission, TriState>> retrievePermissions(
+            @NotNull UUID player
+    ) {
+        return delegate.retrievePermissions(player);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<UUID, Map<AccountPermission, TriState>>> retrievePermissionsMap() {
+        return delegate.retrievePermissionsMap();
+    }
+
+    @Override
+    public @NotNull CompletableFuture<TriState> hasPermissions(
+            @NotNull UUID player, @NotNull AccountPermission @NotNull ... permissions
+    ) {
+        return delegate.hasPermissions(player, permissions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof ForwardingAccount) {
+            return delegate.equals(((ForwardingAccount<?>) o).delegate);
+        }
+        return delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+}
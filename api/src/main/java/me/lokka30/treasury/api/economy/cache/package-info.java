@@ -0,0 +1,4 @@
+/**
+ * Holds caching decorators for economy providers.
+ */
+package me.lokka30.treasury.api.economy.cache;
@@ -158,6 +158,29 @@ public interface Currency {
         );
     }
 
+    /**
+     * Does the same as {@link #to(Currency, BigDecimal)}, with the converted amount in the
+     * {@link #getPrecision() precision} of the specified currency.
+     * <p>The conversion is done with {@link BigDecimal} arithmetic, unless both currencies have
+     * the same conversion rate.
+     *
+     * @param currency The currency we are converting to.
+     * @param amount   The amount to be converted to the specified {@link Currency}
+     * @return converted balance
+     * @since 2.0.2
+     */
+    @NotNull
+    default Money to(@NotNull Currency currency, @NotNull Money amount) {
+        Objects.requireNonNull(currency, "currency");
+        Objects.requireNonNull(amount, "amount");
+
+        if (amount.scale() == currency.getPrecision()
+                && this.getConversionRate().compareTo(currency.getConversionRate()) == 0) {
+            return amount;
+        }
+        return Money.of(this.to(currency, amount.toBigDecimal()), currency);
+    }
+
     /**
      * Converts a formatted amount string (i.e., one generated via
      * {@link Currency#format(BigDecimal, Locale)}) into the BigDecimal value it represents,
@@ -191,6 +214,21 @@ public interface Currency {
      */
     @NotNull String format(@NotNull BigDecimal amount, @Nullable Locale locale);
 
+    /**
+     * Does the same as {@link #format(BigDecimal, Locale)}, for a {@link Money} amount.
+     *
+     * @param amount The amount to format.
+     * @param locale The locale to use for formatting the balance. This value may be
+     *               {@code null} if the provider should assume a default locale.
+     * @return human-readable representation of the amount as a formatted string
+     * @since 2.0.2
+     */
+    @NotNull
+    default String format(@NotNull Money amount, @Nullable Locale locale) {
+        Objects.requireNonNull(amount, "amount");
+        return format(amount.toBigDecimal(), locale);
+    }
+
     /**
      * Used to translate an amount to a user readable format with the specified amount of decimal places.
      * <p>
@@ -0,0 +1,303 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.currency;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable monetary amount with a fixed number of fractional digits, its scale, which
+ * usually is the {@link Currency#getPrecision() precision} of the currency it is an amount of.
+ * <p>Amounts are held as a {@code long} count of the smallest unit, so that comparing, adding
+ * and subtracting them doesn't allocate any {@link BigDecimal}. Amounts which don't fit in a
+ * {@code long} transparently fall back to a {@link BigDecimal}.
+ *
+ * @since 2.0.2
+ */
+public final class Money implements Comparable<Money> {
+
+    private final long unscaled;
+    private final int scale;
+    // only set when the amount doesn't fit in unscaled
+    @Nullable
+    private final BigDecimal big;
+
+    private Money(long unscaled, int scale, @Nullable BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * Creates a new {@code Money} of the specified count of the smallest unit, e.g.
+     * {@code Money.ofUnscaled(1050, 2)} is {@code 10.50}.
+     *
+     * @param unscaled the amount, in the smallest unit
+     * @param scale    the number of fractional digits
+     * @return money
+     */
+    @NotNull
+    public static Money ofUnscaled(long unscaled, int scale) {
+        return new Money(unscaled, checkScale(scale), null);
+    }
+
+    /**
+     * Creates a new {@code Money} of the specified {@code amount}, in the specified
+     * {@code scale}.
+     *
+     * @param amount the amount
+     * @param scale  the number of fractional digits
+     * @return money
+     * @throws ArithmeticException if the amount has more fractional digits than the scale
+     */
+    @NotNull
+    public static Money of(@NotNull BigDecimal amount, int scale) {
+        return of(amount, scale, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Creates a new {@code Money} of the specified {@code amount}, in the specified
+     * {@code scale}, rounding it with the specified {@code rounding} if it has more fractional
+     * digits than the scale.
+     *
+     * @param amount   the amount
+     * @param scale    the number of fractional digits
+     * @param rounding how to round the amount
+     * @return money
+     * @throws ArithmeticException if rounding is needed while {@code rounding} is
+     *                             {@link RoundingMode#UNNECESSARY}
+     */
+    @NotNull
+    public static Money of(@NotNull BigDecimal amount, int scale, @NotNull RoundingMode rounding) {
+        Objects.requireNonNull(amount, "amount");
+        Objects.requireNonNull(rounding, "rounding");
+        checkScale(scale);
+        return ofBig(amount.setScale(scale, rounding));
+    }
+
+    /**
+     * Creates a new {@code Money} of the specified {@code amount}, in the
+     * {@link Currency#getPrecision() precision} of the specified {@code currency}, rounding it
+     * half even if it has more fractional digits than that.
+     *
+     * @param amount   the amount
+     * @param currency the currency the amount is of
+     * @return money
+     */
+    @NotNull
+    public static Money of(@NotNull BigDecimal amount, @NotNull Currency currency) {
+        Objects.requireNonNull(currency, "currency");
+        return of(amount, currency.getPrecision(), RoundingMode.HALF_EVEN);
+    }
+
+    private static int checkScale(int scale) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("scale must not be negative");
+        }
+        return scale;
+    }
+
+    @NotNull
+    private static Money ofBig(@NotNull BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            return new Money(unscaled.longValue(), value.scale(), null);
+        }
+        return new Money(0, value.scale(), value);
+    }
+
+    /**
+     * Returns the number of fractional digits of this amount.
+     *
+     * @return scale
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Returns whether this amount is held as a {@code long}, i.e. whether
+     * {@link #unscaledValue()} can be used.
+     *
+     * @return whether compact
+     */
+    public boolean isCompact() {
+        return big == null;
+    }
+
+    /**
+     * Returns this amount as a count of the smallest unit, e.g. {@code 1050} for {@code 10.50}
+     * at a scale of {@code 2}.
+     *
+     * @return unscaled value
+     * @throws ArithmeticException if the amount doesn't fit in a {@code long}
+     * @see #isCompact()
+     */
+    public long unscaledValue() {
+        if (big != null) {
+            throw new ArithmeticException("Amount doesn't fit in a long");
+        }
+        return unscaled;
+    }
+
+    /**
+     * Returns this amount as a {@link BigDecimal}, with a scale of {@link #scale()}.
+     *
+     * @return big decimal
+     */
+    @NotNull
+    public BigDecimal toBigDecimal() {
+        return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Returns the sign of this amount.
+     *
+     * @return -1, 0 or 1 when this amount is negative, zero or positive respectively
+     */
+    public int signum() {
+        return big != null ? big.signum() : Long.signum(unscaled);
+    }
+
+    /**
+     * Returns the sum of this amount and the specified one, which must have the same scale.
+     *
+     * @param other the amount to add
+     * @return sum
+     */
+    @NotNull
+    public Money add(@NotNull Money other) {
+        checkSameScale(other);
+        if (big == null && other.big == null) {
+            long sum = unscaled + other.unscaled;
+            // overflow iff both operands have a different sign than the result
+            if (((unscaled ^ sum) & (other.unscaled ^ sum)) >= 0) {
+                return new Money(sum, scale, null);
+            }
+        }
+        return ofBig(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    /**
+     * Returns the difference of this amount and the specified one, which must have the same
+     * scale.
+     *
+     * @param other the amount to subtract
+     * @return difference
+     */
+    @NotNull
+    public Money subtract(@NotNull Money other) {
+        checkSameScale(other);
+        if (big == null && other.big == null) {
+            long difference = unscaled - other.unscaled;
+            // overflow iff the operands differ in sign and the result differs in sign from this
+            if (((unscaled ^ other.unscaled) & (unscaled ^ difference)) >= 0) {
+                return new Money(difference, scale, null);
+            }
+        }
+        return ofBig(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+
+    /**
+     * Returns the negation of this amount.
+     *
+     * @return negated
+     */
+    @NotNull
+    public Money negate() {
+        if (big == null && unscaled != Long.MIN_VALUE) {
+            return new Money(-unscaled, scale, null);
+        }
+        return ofBig(toBigDecimal().negate());
+    }
+
+    private void checkSameScale(@NotNull Money other) {
+        Objects.requireNonNull(other, "other");
+        if (other.scale != scale) {
+            throw new IllegalArgumentException("Scale mismatch: " + scale + " and " + other.scale);
+        }
+    }
+
+    /**
+     * Compares this amount to the specified one, numerically. Amounts of different scales are
+     * compared as well, e.g. {@code 1.5} and {@code 1.50} are equal in this respect.
+     *
+     * @param other the amount to compare to
+     * @return a negative integer, zero or a positive integer when this amount is less than,
+     *         equal to or greater than the specified one
+     */
+    @Override
+    public int compareTo(@NotNull Money other) {
+        if (big == null && other.big == null && scale == other.scale) {
+            return Long.compare(unscaled, other.unscaled);
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /**
+     * Checks whether the specified object is a {@code Money} of the same amount and scale.
+     * Unlike {@link #compareTo(Money)}, {@code 1.5} and {@code 1.50} are not equal.
+     *
+     * @param o the object to check
+     * @return whether equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return scale == other.scale && unscaled == other.unscaled && Objects.equals(big,
+                other.big
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return big != null ? big.hashCode() : 31 * Long.hashCode(unscaled) + scale;
+    }
+
+    /**
+     * Returns this amount as a plain string, e.g. {@code -10.50}.
+     *
+     * @return string
+     */
+    @Override
+    public String toString() {
+        if (big != null) {
+            return big.toPlainString();
+        }
+        if (scale == 0) {
+            return Long.toString(unscaled);
+        }
+        String digits = Long.toString(Math.abs(unscaled));
+        if (unscaled == Long.MIN_VALUE) {
+            digits = digits.substring(1);
+        }
+        StringBuilder builder = new StringBuilder(digits.length() + scale + 3);
+        if (unscaled < 0) {
+            builder.append('-');
+        }
+        int whole = digits.length() - scale;
+        if (whole > 0) {
+            builder.append(digits, 0, whole).append('.').append(digits, whole, digits.length());
+        } else {
+            builder.append("0.");
+            for (int i = whole; i < 0; i++) {
+                builder.append('0');
+            }
+            builder.append(digits);
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.transaction;
+
+import java.util.Objects;
+import me.lokka30.treasury.api.economy.account.Account;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents an {@link EconomyTransaction} bound to the {@link Account} it is to be done on, as
+ * part of a batch spanning multiple accounts.
+ *
+ * @see me.lokka30.treasury.api.economy.EconomyProvider#executeBatch(java.util.List)
+ * @since 2.0.2
+ */
+public final class AccountTransaction {
+
+    /**
+     * Creates a new {@code AccountTransaction}.
+     *
+     * @param account     the account to do the transaction on
+     * @param transaction the transaction
+     * @return new account transaction
+     */
+    @NotNull
+    public static AccountTransaction of(
+            @NotNull Account account, @NotNull EconomyTransaction transaction
+    ) {
+        return new AccountTransaction(account, transaction);
+    }
+
+    private final Account account;
+    private final EconomyTransaction transaction;
+
+    private AccountTransaction(@NotNull Account account, @NotNull EconomyTransaction transaction) {
+        this.account = Objects.requireNonNull(account, "account");
+        this.transaction = Objects.requireNonNull(transaction, "transaction");
+    }
+
+    /**
+     * Returns the {@link Account} the transaction is to be done on.
+     *
+     * @return account
+     */
+    @NotNull
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Returns the {@link EconomyTransaction} to do.
+     *
+     * @return transaction
+     */
+    @NotNull
+    public EconomyTransaction getTransaction() {
+        return transaction;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountTransaction{" + "account=" + account + ", transaction=" + transaction + '}';
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.transaction;
+
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Completes a transaction batch in which a transaction failed, and some of the transactions done
+ * before it couldn't be undone, hence are still applied. The {@link #getCause() cause} is the
+ * error of the failed transaction, and the errors of the failed undos are attached as
+ * suppressed exceptions.
+ *
+ * @see TransactionHelper#executeSequentially(List, java.util.function.Function)
+ * @since 2.0.2
+ */
+public final class IncompleteRollbackException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Integer> notUndone;
+
+    IncompleteRollbackException(@NotNull Throwable cause, @NotNull List<Integer> notUndone) {
+        super("Transaction batch failed and transactions " + notUndone + " could not be undone",
+                cause
+        );
+        this.notUndone = Collections.unmodifiableList(notUndone);
+    }
+
+    /**
+     * Returns the indexes in the batch of the transactions which are still applied, in
+     * ascending order.
+     *
+     * @return indexes of the transactions which couldn't be undone
+     */
+    @NotNull
+    public List<Integer> getNotUndone() {
+        return notUndone;
+    }
+
+}
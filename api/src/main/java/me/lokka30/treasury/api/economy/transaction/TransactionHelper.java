@@ -0,0 +1,253 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.transaction;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.economy.account.Account;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds the sequential, compensating implementation of transaction batches, which the default
+ * {@link Account#doTransactions(List)} and
+ * {@link me.lokka30.treasury.api.economy.EconomyProvider#executeBatch(List)} implementations use.
+ * Providers which can't run a batch as a single storage transaction may use it as well.
+ *
+ * @since 2.0.2
+ */
+public final class TransactionHelper {
+
+    private TransactionHelper() {
+    }
+
+    /**
+     * Does the specified {@code transactions} one after the other, each one only once the
+     * previous one completed. If one fails, the ones done before it are compensated for, in
+     * reverse order, and the returned future completes exceptionally with the error of the failed
+     * transaction.
+     * <p>Transactions are undone by doing their inverse: a deposit by withdrawing the same
+     * amount, a withdrawal by depositing it back, and a {@link EconomyTransactionType#SET set} by
+     * setting the balance back to what it was before. The balance before a set is the one
+     * returned by the previous transaction of the batch on the same account and currency, if any,
+     * otherwise it is retrieved through the specified {@code balanceLookup} right before the set
+     * is done.
+     * <p>Undoing is best-effort. If some transactions can't be undone, e.g. a set with an
+     * unknown previous balance, or a withdrawal back of a deposit which was already spent, the
+     * returned future completes exceptionally with an {@link IncompleteRollbackException} listing
+     * them instead, with the error of the failed transaction as its cause.
+     * <p>This is not atomic: other transactions on the same accounts may happen in between, and
+     * can observe the intermediate balances, or make undoing fail.
+     *
+     * @param transactions  the transactions to do
+     * @param balanceLookup lookup of the current balance of the account and currency of a
+     *                      transaction, or null if balances can't be looked up
+     * @return future with the balances after each transaction, in the same order
+     */
+    @NotNull
+    public static CompletableFuture<List<BigDecimal>> executeSequentially(
+            @NotNull List<AccountTransaction> transactions,
+            @Nullable Function<@NotNull AccountTransaction, @NotNull CompletableFuture<BigDecimal>> balanceLookup
+    ) {
+        Objects.requireNonNull(transactions, "transactions");
+        if (transactions.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        Batch batch = new Batch(new ArrayList<>(transactions), balanceLookup);
+        batch.run(0);
+        return batch.result;
+    }
+
+    /**
+     * Does the same as {@link #executeSequentially(List, Function)}, with all the specified
+     * {@code transactions} being done on the specified {@code account}.
+     *
+     * @param account      the account to do the transactions on
+     * @param transactions the transactions to do
+     * @return future with the balances after each transaction, in the same order
+     */
+    @NotNull
+    public static CompletableFuture<List<BigDecimal>> executeSequentially(
+            @NotNull Account account, @NotNull List<EconomyTransaction> transactions
+    ) {
+        Objects.requireNonNull(account, "account");
+        Objects.requireNonNull(transactions, "transactions");
+        List<AccountTransaction> bound = new ArrayList<>(transactions.size());
+        for (EconomyTransaction transaction : transactions) {
+            bound.add(AccountTransaction.of(account, transaction));
+        }
+        return executeSequentially(bound, null);
+    }
+
+    private static final class Batch {
+
+        private final List<AccountTransaction> transactions;
+        private final Function<AccountTransaction, CompletableFuture<BigDecimal>> balanceLookup;
+        private final BigDecimal[] balances;
+        // balances before each set transaction, null if unknown
+        private final BigDecimal[] previousBalances;
+        private final CompletableFuture<List<BigDecimal>> result = new CompletableFuture<>();
+
+        private Batch(
+                @NotNull List<AccountTransaction> transactions,
+                @Nullable Function<AccountTransaction, CompletableFuture<BigDecimal>> balanceLookup
+        ) {
+            this.transactions = transactions;
+            this.balanceLookup = balanceLookup;
+            this.balances = new BigDecimal[transactions.size()];
+            this.previousBalances = new BigDecimal[transactions.size()];
+        }
+
+        // loops over transactions which complete synchronously, so that the stack doesn't grow
+        // with the size of the batch
+        private void run(int index) {
+            while (index < transactions.size()) {
+                CompletableFuture<BigDecimal> step;
+                try {
+                    step = execute(index);
+                } catch (Throwable t) {
+                    rollback(index, t);
+                    return;
+                }
+                if (step.isDone() && !step.isCompletedExceptionally()) {
+                    balances[index] = step.join();
+                    index++;
+                    continue;
+                }
+                final int current = index;
+                step.whenComplete((balance, error) -> {
+                    if (error != null) {
+                        rollback(current, error);
+                    } else {
+                        balances[current] = balance;
+                        run(current + 1);
+                    }
+                });
+                return;
+            }
+            result.complete(Collections.unmodifiableList(Arrays.asList(balances)));
+        }
+
+        @NotNull
+        private CompletableFuture<BigDecimal> execute(int index) {
+            AccountTransaction transaction = transactions.get(index);
+            if (transaction.getTransaction().getType() != EconomyTransactionType.SET) {
+                return transaction.getAccount().doTransaction(transaction.getTransaction());
+            }
+            CompletableFuture<BigDecimal> previous;
+            BigDecimal known = lastKnownBalance(index);
+            if (known != null) {
+                previous = CompletableFuture.completedFuture(known);
+            } else if (balanceLookup != null) {
+                previous = balanceLookup.apply(transaction);
+            } else {
+                previous = CompletableFuture.completedFuture(null);
+            }
+            return previous.thenCompose(balance -> {
+                previousBalances[index] = balance;
+                return transaction.getAccount().doTransaction(transaction.getTransaction());
+            });
+        }
+
+        @Nullable
+        private BigDecimal lastKnownBalance(int index) {
+            AccountTransaction transaction = transactions.get(index);
+            String currencyId = transaction.getTransaction().getCurrencyId();
+            for (int i = index - 1; i >= 0; i--) {
+                AccountTransaction other = transactions.get(i);
+                if (other.getAccount() == transaction.getAccount() && other
+                        .getTransaction()
+                        .getCurrencyId()
+                        .equals(currencyId)) {
+                    return balances[i];
+                }
+            }
+            return null;
+        }
+
+        private void rollback(int failedIndex, @NotNull Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            // only touched by the chain, one undo after the other
+            List<Integer> notUndone = new ArrayList<>();
+            List<Throwable> undoErrors = new ArrayList<>();
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = failedIndex - 1; i >= 0; i--) {
+                final int index = i;
+                chain = chain.thenCompose(v -> undo(index).handle((balance, undoError) -> {
+                    if (undoError != null) {
+                        notUndone.add(0, index);
+                        undoErrors.add(undoError);
+                    }
+                    return null;
+                }));
+            }
+            chain.whenComplete((v, e) -> {
+                if (notUndone.isEmpty()) {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+                IncompleteRollbackException incomplete = new IncompleteRollbackException(cause,
+                        notUndone
+                );
+                for (Throwable undoError : undoErrors) {
+                    incomplete.addSuppressed(undoError);
+                }
+                result.completeExceptionally(incomplete);
+            });
+        }
+
+        @NotNull
+        private CompletableFuture<BigDecimal> undo(int index) {
+            AccountTransaction transaction = transactions.get(index);
+            EconomyTransaction done = transaction.getTransaction();
+            EconomyTransactionType inverseType;
+            BigDecimal amount = done.getAmount();
+            switch (done.getType()) {
+                case DEPOSIT:
+                    inverseType = EconomyTransactionType.WITHDRAWAL;
+                    break;
+                case WITHDRAWAL:
+                    inverseType = EconomyTransactionType.DEPOSIT;
+                    break;
+                case SET:
+                    inverseType = EconomyTransactionType.SET;
+                    amount = previousBalances[index];
+                    if (amount == null) {
+                        return FutureHelper.failedFuture(new IllegalStateException(
+                                "Cannot undo " + done.getType() + " transaction #" + index + ", the balance before it is unknown"));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown transaction type " + done.getType());
+            }
+            try {
+                return transaction.getAccount().doTransaction(EconomyTransaction
+                        .newBuilder()
+                        .withCurrencyId(done.getCurrencyId())
+                        .withCause(done.getCause())
+                        .withType(inverseType)
+                        .withAmount(amount)
+                        .withImportance(done.getImportance())
+                        .withReason("Rollback" + done.getReason().map(reason -> ": " + reason).orElse(
+                                ""))
+                        .build());
+            } catch (Throwable t) {
+                return FutureHelper.failedFuture(t);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BatchFireTest {
+
+    static class Event {
+
+        final int id;
+        volatile boolean seenByAsync;
+
+        Event(int id) {
+            this.id = id;
+        }
+
+    }
+
+    @Test
+    void testFireAll() {
+        EventBus bus = EventBus.INSTANCE;
+        ScheduledExecutorService scheduled = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger lastSubscriberCalls = new AtomicInteger();
+        AtomicInteger outOfOrder = new AtomicInteger();
+
+        bus.subscribe(bus
+                .subscriptionFor(Event.class)
+                .withPriority(EventPriority.LOW)
+                .whenCalled((Consumer<Event>) event -> {
+                    if (event.id % 10 == 0) {
+                        throw new IllegalArgumentException();
+                    }
+                })
+                .completeSubscription());
+        bus.subscribe(bus.subscriptionFor(Event.class).whenCalled(event -> {
+            Completion completion = new Completion();
+            scheduled.schedule(() -> {
+                event.seenByAsync = true;
+                completion.complete();
+            }, 10, TimeUnit.MILLISECONDS);
+            return completion;
+        }).completeSubscription());
+        bus.subscribe(bus
+                .subscriptionFor(Event.class)
+                .withPriority(EventPriority.HIGH)
+                .whenCalled(event -> {
+                    if (!event.seenByAsync) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    lastSubscriberCalls.incrementAndGet();
+                })
+                .completeSubscription());
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new Event(i));
+        }
+
+        bus.fireAll(events).whenCompleteBlocking((result, errors) -> {
+            Assertions.assertNull(result);
+            Assertions.assertEquals(10, errors.size());
+        });
+
+        Assertions.assertEquals(90, lastSubscriberCalls.get());
+        Assertions.assertEquals(0, outOfOrder.get());
+        scheduled.shutdown();
+    }
+
+}
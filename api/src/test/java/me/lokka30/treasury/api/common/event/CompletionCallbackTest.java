@@ -0,0 +1,71 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CompletionCallbackTest {
+
+    @Test
+    void testCallbacksRunOnCompletionInOrder() {
+        Completion completion = new Completion();
+        LogCatcher log = new LogCatcher();
+
+        completion.whenComplete(errors -> log.log("first"));
+        completion.whenComplete(errors -> log.log("second"));
+        Assertions.assertTrue(log.logs.isEmpty());
+
+        completion.complete();
+        completion.whenComplete(errors -> log.log("third"));
+
+        Assertions.assertEquals(3, log.logs.size());
+        Assertions.assertEquals("first", log.logs.get(0));
+        Assertions.assertEquals("second", log.logs.get(1));
+        Assertions.assertEquals("third", log.logs.get(2));
+        Assertions.assertThrows(IllegalStateException.class, completion::complete);
+    }
+
+    @Test
+    void testThrowingCallbackDoesNotSkipTheRest() {
+        Completion completion = new Completion();
+        LogCatcher log = new LogCatcher();
+        IllegalStateException error = new IllegalStateException("first");
+
+        completion.whenComplete(errors -> {
+            throw error;
+        });
+        completion.whenComplete(errors -> log.log("second"));
+
+        IllegalStateException thrown = Assertions.assertThrows(
+                IllegalStateException.class,
+                completion::complete
+        );
+        Assertions.assertSame(error, thrown);
+        Assertions.assertTrue(completion.isCompleted());
+        Assertions.assertEquals(1, log.logs.size());
+        Assertions.assertEquals("second", log.logs.get(0));
+    }
+
+    @Test
+    void testToCompletableFuture() {
+        Completion completion = new Completion();
+        CompletableFuture<Void> future = completion.toCompletableFuture();
+        Assertions.assertFalse(future.isDone());
+        completion.complete();
+        Assertions.assertTrue(future.isDone());
+        Assertions.assertFalse(future.isCompletedExceptionally());
+
+        RuntimeException error = new RuntimeException();
+        CompletionException thrown = Assertions.assertThrows(
+                CompletionException.class,
+                () -> Completion.completedExceptionally(error).toCompletableFuture().join()
+        );
+        Assertions.assertSame(error, thrown.getCause());
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DispatchPlanTest {
+
+    static class ParentEvent {
+
+    }
+
+    static class ChildEvent extends ParentEvent {
+
+    }
+
+    @Test
+    void testHierarchyMergedByPriority() {
+        EventBus bus = EventBus.INSTANCE;
+        LogCatcher log = new LogCatcher();
+        bus.subscribe(bus
+                .subscriptionFor(ParentEvent.class)
+                .withPriority(EventPriority.HIGH)
+                .whenCalled(event -> {
+                    log.log("parent HIGH");
+                })
+                .completeSubscription());
+        bus.subscribe(bus
+                .subscriptionFor(ChildEvent.class)
+                .withPriority(EventPriority.LOW)
+                .whenCalled(event -> {
+                    log.log("child LOW");
+                })
+                .completeSubscription());
+        bus.subscribe(bus
+                .subscriptionFor(ParentEvent.class)
+                .withPriority(EventPriority.LOWEST)
+                .whenCalled(event -> {
+                    log.log("parent LOWEST");
+                })
+                .completeSubscription());
+
+        bus.fire(new ChildEvent()).waitCompletion();
+
+        Assertions.assertEquals(3, log.logs.size());
+        Assertions.assertEquals("parent LOWEST", log.logs.get(0));
+        Assertions.assertEquals("child LOW", log.logs.get(1));
+        Assertions.assertEquals("parent HIGH", log.logs.get(2));
+
+        // a new subscription must invalidate the cached plan
+        bus.subscribe(bus
+                .subscriptionFor(ChildEvent.class)
+                .withPriority(EventPriority.HIGHEST)
+                .whenCalled(event -> {
+                    log.log("child HIGHEST");
+                })
+                .completeSubscription());
+
+        bus.fire(new ChildEvent()).waitCompletion();
+
+        Assertions.assertEquals(7, log.logs.size());
+        Assertions.assertEquals("child HIGHEST", log.logs.get(6));
+    }
+
+}
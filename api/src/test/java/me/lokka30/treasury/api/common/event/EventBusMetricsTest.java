@@ -0,0 +1,111 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.List;
+import java.util.function.Consumer;
+import me.lokka30.treasury.api.common.event.EventBusMetrics.LatencyHistogram;
+import me.lokka30.treasury.api.common.event.EventBusMetrics.SubscriberMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EventBusMetricsTest {
+
+    static class MeasuredEvent {
+
+        final boolean fail;
+
+        MeasuredEvent(boolean fail) {
+            this.fail = fail;
+        }
+
+    }
+
+    @Test
+    void testBuckets() {
+        long previousLower = -1;
+        for (int i = 0; i < 200; i++) {
+            long lower = LatencyHistogram.bucketLowerBound(i);
+            Assertions.assertTrue(lower > previousLower);
+            Assertions.assertEquals(i, LatencyHistogram.bucketIndex(lower));
+            Assertions.assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.bucketLowerBound(i + 1) - 1));
+            previousLower = lower;
+        }
+    }
+
+    @Test
+    void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000, 1);
+        }
+        Assertions.assertEquals(1000, histogram.count());
+        Assertions.assertEquals(1_000_000, histogram.max());
+        long median = histogram.percentile(50);
+        Assertions.assertTrue(median >= 500_000 && median <= 500_000 * 1.125, "median " + median);
+        Assertions.assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void testRecording() {
+        EventBus bus = EventBus.INSTANCE;
+        EventBusMetrics metrics = bus.enableMetrics();
+        EventSubscriber<MeasuredEvent> slow = bus
+                .subscriptionFor(MeasuredEvent.class)
+                .whenCalled((Consumer<MeasuredEvent>) event -> {
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .completeSubscription();
+        EventSubscriber<MeasuredEvent> failing = bus
+                .subscriptionFor(MeasuredEvent.class)
+                .withPriority(EventPriority.HIGH)
+                .whenCalled((Consumer<MeasuredEvent>) event -> {
+                    if (event.fail) {
+                        throw new IllegalStateException();
+                    }
+                })
+                .completeSubscription();
+        bus.subscribe(slow);
+        bus.subscribe(failing);
+
+        for (int i = 0; i < 10; i++) {
+            bus.fire(new MeasuredEvent(i % 5 == 0)).whenCompleteBlocking((event, errors) -> {
+            });
+        }
+
+        EventBusMetrics.EventMetrics eventMetrics = metrics.forEvent(MeasuredEvent.class);
+        Assertions.assertNotNull(eventMetrics);
+        Assertions.assertEquals(10, eventMetrics.fireCount());
+        Assertions.assertEquals(2, eventMetrics.errorCount());
+
+        SubscriberMetrics failingMetrics = metrics.forSubscriber(failing);
+        Assertions.assertNotNull(failingMetrics);
+        Assertions.assertEquals(10, failingMetrics.callCount());
+        Assertions.assertEquals(2, failingMetrics.errorCount());
+
+        SubscriberMetrics slowMetrics = metrics.forSubscriber(slow);
+        Assertions.assertNotNull(slowMetrics);
+        Assertions.assertTrue(slowMetrics.executionTime().mean() >= 2_000_000);
+
+        // other tests share the bus, so only the ordering can be checked
+        List<SubscriberMetrics> slowest = metrics.slowestSubscribers(2);
+        Assertions.assertEquals(2, slowest.size());
+        Assertions.assertTrue(slowest.get(0).executionTime().mean() >= slowest
+                .get(1)
+                .executionTime()
+                .mean());
+
+        failing.unregister();
+        Assertions.assertNull(metrics.forSubscriber(failing));
+        slow.unregister();
+        bus.disableMetrics();
+        Assertions.assertFalse(bus.getMetrics().isPresent());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+class EventExecutorTest {
+
+    @Test
+    void testCallerRuns() {
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        EventExecutor.callerRuns().execute(() -> ranOn.set(Thread.currentThread()));
+        Assertions.assertSame(Thread.currentThread(), ranOn.get());
+    }
+
+    @Test
+    void testCachedGrowsWhenThreadsBlock() throws InterruptedException {
+        EventExecutor executor = EventExecutor.cached();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(4);
+        try {
+            // more blocking tasks than there may be processors
+            for (int i = 0; i < 4; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        blocker.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, executor.rejectedTaskCount());
+        } finally {
+            blocker.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testWorkStealingRejectsOverCapacity() throws InterruptedException {
+        EventExecutor executor = EventExecutor.workStealing(1, 1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            executor.execute(() -> {
+            });
+            Assertions.assertEquals(1, executor.queueDepth());
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            executor.execute(() -> ranOn.set(Thread.currentThread()));
+            Assertions.assertSame(Thread.currentThread(), ranOn.get());
+            Assertions.assertEquals(1, executor.rejectedTaskCount());
+        } finally {
+            blocker.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualThreads() throws InterruptedException {
+        Assumptions.assumeTrue(EventExecutor.supportsVirtualThreads());
+        EventExecutor executor = EventExecutor.virtualThreads();
+        CountDownLatch ran = new CountDownLatch(1);
+        executor.execute(ran::countDown);
+        Assertions.assertTrue(ran.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+}
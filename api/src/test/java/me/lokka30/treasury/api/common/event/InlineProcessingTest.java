@@ -0,0 +1,57 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class InlineProcessingTest {
+
+    @InlineProcessing
+    static class InlineEvent {
+
+    }
+
+    static class SyncEvent {
+
+    }
+
+    @Test
+    void testInlineEventRunsOnFiringThread() {
+        EventBus bus = EventBus.INSTANCE;
+        AtomicReference<Thread> calledOn = new AtomicReference<>();
+        bus.subscribe(bus.subscriptionFor(InlineEvent.class).whenCalled(event -> {
+            calledOn.set(Thread.currentThread());
+        }).completeSubscription());
+
+        FireCompletion<InlineEvent> completion = bus.fire(new InlineEvent());
+
+        Assertions.assertTrue(completion.isCompleted());
+        Assertions.assertSame(Thread.currentThread(), calledOn.get());
+    }
+
+    @Test
+    void testFireSyncForwardsErrors() {
+        EventBus bus = EventBus.INSTANCE;
+        bus.subscribe(bus
+                .subscriptionFor(SyncEvent.class)
+                .whenCalled((Consumer<SyncEvent>) event -> {
+                    throw new IllegalStateException();
+                })
+                .completeSubscription());
+
+        FireCompletion<SyncEvent> completion = bus.fireSync(new SyncEvent());
+
+        Assertions.assertTrue(completion.isCompleted());
+        completion.whenCompleteBlocking((event, errors) -> {
+            Assertions.assertNull(event);
+            Assertions.assertEquals(1, errors.size());
+            Assertions.assertInstanceOf(IllegalStateException.class, errors.iterator().next());
+        });
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class NonBlockingDispatchTest {
+
+    static class Event {
+
+    }
+
+    @Test
+    void testPendingCompletionsDoNotHoldThreads() throws InterruptedException {
+        EventBus bus = EventBus.INSTANCE;
+        Queue<Completion> pending = new ConcurrentLinkedQueue<>();
+        bus.subscribe(bus.subscriptionFor(Event.class).whenCalled(event -> {
+            Completion completion = new Completion();
+            pending.add(completion);
+            return completion;
+        }).completeSubscription());
+
+        int fires = 200;
+        CountDownLatch done = new CountDownLatch(fires);
+        for (int i = 0; i < fires; i++) {
+            bus.fire(new Event()).whenCompleteAsync((event, errors) -> done.countDown());
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pending.size() < fires && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(fires, pending.size());
+
+        int waiting = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("Event caller thread")
+                    && thread.getState() == Thread.State.WAITING) {
+                waiting++;
+            }
+        }
+        // pool threads are idle, not parked on the pending completions
+        Assertions.assertTrue(waiting < fires / 2, "waiting threads: " + waiting);
+
+        Completion completion;
+        while ((completion = pending.poll()) != null) {
+            completion.complete();
+        }
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ParallelFanOutTest {
+
+    @ParallelProcessing(maxConcurrency = 2)
+    static class CappedEvent {
+
+    }
+
+    @Test
+    void testMaxConcurrency() {
+        EventBus bus = EventBus.INSTANCE;
+        ScheduledExecutorService scheduled = Executors.newScheduledThreadPool(4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            bus.subscribe(bus.subscriptionFor(CappedEvent.class).whenCalled(event -> {
+                calls.incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Completion completion = new Completion();
+                scheduled.schedule(() -> {
+                    running.decrementAndGet();
+                    completion.complete();
+                }, 10, TimeUnit.MILLISECONDS);
+                return completion;
+            }).completeSubscription());
+        }
+
+        bus.fire(new CappedEvent()).whenCompleteBlocking((event, errors) -> {
+            Assertions.assertNotNull(event);
+            Assertions.assertTrue(errors.isEmpty());
+        });
+
+        Assertions.assertEquals(8, calls.get());
+        Assertions.assertTrue(maxRunning.get() <= 2, "max running " + maxRunning.get());
+        scheduled.shutdown();
+    }
+
+}
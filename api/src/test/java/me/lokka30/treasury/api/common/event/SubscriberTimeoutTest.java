@@ -0,0 +1,118 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SubscriberTimeoutTest {
+
+    static class StuckEvent {
+
+    }
+
+    static class StuckBatchEvent {
+
+    }
+
+    @Test
+    void testStuckSubscriberIsSkipped() throws InterruptedException {
+        EventBus bus = EventBus.INSTANCE;
+        AtomicBoolean nextCalled = new AtomicBoolean();
+        bus.subscribe(bus
+                .subscriptionFor(StuckEvent.class)
+                .withPriority(EventPriority.LOW)
+                .withTimeout(50, TimeUnit.MILLISECONDS)
+                .whenCalled(event -> {
+                    return new Completion();
+                })
+                .completeSubscription());
+        bus.subscribe(bus
+                .subscriptionFor(StuckEvent.class)
+                .withPriority(EventPriority.HIGH)
+                .whenCalled(event -> {
+                    nextCalled.set(true);
+                })
+                .completeSubscription());
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Collection<Throwable>> reported = new AtomicReference<>();
+        bus.fire(new StuckEvent()).whenCompleteAsync((event, errors) -> {
+            reported.set(errors);
+            done.countDown();
+        });
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(nextCalled.get());
+        Collection<Throwable> errors = reported.get();
+        Assertions.assertEquals(1, errors.size());
+        Throwable error = errors.iterator().next();
+        Assertions.assertInstanceOf(TimeoutException.class, error);
+        Assertions.assertTrue(error.getMessage().contains(StuckEvent.class.getName()));
+    }
+
+    @Test
+    void testStuckSubscriberIsReportedPerEvent() {
+        EventBus bus = EventBus.INSTANCE;
+        AtomicInteger nextCalls = new AtomicInteger();
+        bus.subscribe(bus
+                .subscriptionFor(StuckBatchEvent.class)
+                .withPriority(EventPriority.LOW)
+                .withTimeout(50, TimeUnit.MILLISECONDS)
+                .whenCalled(event -> {
+                    return new Completion();
+                })
+                .completeSubscription());
+        bus.subscribe(bus
+                .subscriptionFor(StuckBatchEvent.class)
+                .withPriority(EventPriority.HIGH)
+                .whenCalled(event -> {
+                    nextCalls.incrementAndGet();
+                })
+                .completeSubscription());
+
+        bus
+                .fireAll(Arrays.asList(new StuckBatchEvent(), new StuckBatchEvent()))
+                .whenCompleteBlocking((events, errors) -> {
+                    Assertions.assertEquals(2, errors.size());
+                    for (Throwable error : errors) {
+                        Assertions.assertInstanceOf(TimeoutException.class, error);
+                    }
+                });
+        Assertions.assertEquals(2, nextCalls.get());
+    }
+
+    @Test
+    void testTimer() throws InterruptedException {
+        TimeoutTimer timer = new TimeoutTimer(TimeUnit.MILLISECONDS.toNanos(1), 8);
+        CountDownLatch expired = new CountDownLatch(2);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+
+        long start = System.nanoTime();
+        timer.schedule(expired::countDown, TimeUnit.MILLISECONDS.toNanos(5));
+        // spans several rounds of the wheel
+        timer.schedule(expired::countDown, TimeUnit.MILLISECONDS.toNanos(30));
+        TimeoutTimer.Timeout cancelled = timer.schedule(
+                cancelledRuns::incrementAndGet,
+                TimeUnit.MILLISECONDS.toNanos(10)
+        );
+        Assertions.assertTrue(cancelled.cancel());
+
+        Assertions.assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        Thread.sleep(20);
+        Assertions.assertEquals(0, cancelledRuns.get());
+        Assertions.assertFalse(cancelled.cancel());
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class UnsubscribeTest {
+
+    @InlineProcessing
+    static class UnregisterEvent {
+
+    }
+
+    @InlineProcessing
+    static class OwnedEvent {
+
+    }
+
+    @Test
+    void testUnregister() {
+        EventBus bus = EventBus.INSTANCE;
+        AtomicInteger calls = new AtomicInteger();
+        EventSubscriber<UnregisterEvent> subscriber = bus
+                .subscriptionFor(UnregisterEvent.class)
+                .whenCalled(event -> {
+                    calls.incrementAndGet();
+                })
+                .completeSubscription();
+        bus.subscribe(subscriber);
+
+        bus.fire(new UnregisterEvent());
+        Assertions.assertEquals(1, calls.get());
+
+        Assertions.assertTrue(subscriber.unregister());
+        Assertions.assertFalse(subscriber.unregister());
+
+        bus.fire(new UnregisterEvent());
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testUnsubscribeAll() {
+        EventBus bus = EventBus.INSTANCE;
+        AtomicInteger ownedCalls = new AtomicInteger();
+        AtomicInteger otherCalls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            bus.subscribe("Owner", bus.subscriptionFor(OwnedEvent.class).whenCalled(event -> {
+                ownedCalls.incrementAndGet();
+            }).completeSubscription());
+        }
+        bus.subscribe(bus.subscriptionFor(OwnedEvent.class).whenCalled(event -> {
+            otherCalls.incrementAndGet();
+        }).completeSubscription());
+
+        bus.fire(new OwnedEvent());
+        Assertions.assertEquals(3, ownedCalls.get());
+        Assertions.assertEquals(1, otherCalls.get());
+
+        bus.unsubscribeAll("owner");
+
+        bus.fire(new OwnedEvent());
+        Assertions.assertEquals(3, ownedCalls.get());
+        Assertions.assertEquals(2, otherCalls.get());
+    }
+
+}
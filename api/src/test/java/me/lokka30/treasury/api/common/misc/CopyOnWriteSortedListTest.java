@@ -0,0 +1,107 @@
+package me.lokka30.treasury.api.common.misc;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CopyOnWriteSortedListTest {
+
+    @Test
+    void testSortedList() {
+        List<Integer> list = CopyOnWriteSortedList.naturalOrder();
+        list.add(3);
+        list.add(1);
+        list.add(2);
+        list.add(5);
+        list.add(4);
+
+        for (int i = 0; i < list.size(); i++) {
+            Assertions.assertEquals(i + 1, list.get(i));
+        }
+    }
+
+    @Test
+    void testEqualElementsGoFirst() {
+        List<Map.Entry<Integer, String>> list = new CopyOnWriteSortedList<>(Comparator.comparing(
+                Map.Entry::getKey));
+        list.add(new AbstractMap.SimpleImmutableEntry<>(2, "first two"));
+        list.add(new AbstractMap.SimpleImmutableEntry<>(1, "one"));
+        list.add(new AbstractMap.SimpleImmutableEntry<>(2, "second two"));
+
+        Assertions.assertEquals("one", list.get(0).getValue());
+        Assertions.assertEquals("second two", list.get(1).getValue());
+        Assertions.assertEquals("first two", list.get(2).getValue());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testSameOrderAsSortedList() {
+        List<Item> list = CopyOnWriteSortedList.naturalOrder();
+        List<Item> baseline = new SortedList<>();
+        int[] orders = {3, 1, 2, 1, 3, 2, 2, 1};
+        for (int i = 0; i < orders.length; i++) {
+            Item item = new Item(orders[i], i);
+            list.add(item);
+            baseline.add(item);
+        }
+        Assertions.assertEquals(baseline, list);
+    }
+
+    @Test
+    void testIterationDuringModification() {
+        List<Integer> list = CopyOnWriteSortedList.naturalOrder();
+        list.add(1);
+        list.add(2);
+
+        Iterator<Integer> iterator = list.iterator();
+        list.add(0);
+        list.remove((Object) 2);
+
+        Assertions.assertEquals(1, iterator.next());
+        Assertions.assertEquals(2, iterator.next());
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals(0, list.get(0));
+    }
+
+    @Test
+    void testRemoveOnlyFirstMatch() {
+        List<Integer> list = CopyOnWriteSortedList.naturalOrder();
+        list.add(1);
+        list.add(2);
+        list.add(2);
+
+        Assertions.assertTrue(list.remove((Object) 2));
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals(2, list.get(1));
+        Assertions.assertFalse(list.remove((Object) 3));
+    }
+
+    private static final class Item implements Comparable<Item> {
+
+        private final int order;
+        private final int id;
+
+        Item(int order, int id) {
+            this.order = order;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(@NotNull Item o) {
+            return Integer.compare(order, o.order);
+        }
+
+        @Override
+        public String toString() {
+            return order + "#" + id;
+        }
+
+    }
+
+}
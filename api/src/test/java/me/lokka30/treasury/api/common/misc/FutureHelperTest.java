@@ -0,0 +1,51 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FutureHelperTest {
+
+    @Test
+    void testForEachBoundedCapsPendingFutures() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            elements.add(i);
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<Void> done = FutureHelper.forEachBounded(elements, 3, element -> {
+            started.incrementAndGet();
+            if (element % 2 == 0) {
+                // completed right away, the lane carries on with the next element
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        while (!pending.isEmpty()) {
+            Assertions.assertFalse(done.isDone());
+            Assertions.assertTrue(pending.size() <= 3);
+            CompletableFuture<Void> next = pending.remove(0);
+            if (started.get() % 3 == 0) {
+                // failures don't stop the rest of the elements
+                next.completeExceptionally(new IllegalStateException());
+            } else {
+                next.complete(null);
+            }
+        }
+        Assertions.assertTrue(done.isDone());
+        Assertions.assertFalse(done.isCompletedExceptionally());
+        Assertions.assertEquals(10, started.get());
+    }
+
+}
@@ -0,0 +1,65 @@
+package me.lokka30.treasury.api.common.service;
+
+import java.util.Iterator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ServiceHandleTest {
+
+    static class HandledService {
+
+    }
+
+    static class PrioritizedService {
+
+    }
+
+    @Test
+    void testHandleUpdates() {
+        ServiceHandle<HandledService> handle = ServiceRegistry.INSTANCE.handleFor(HandledService.class);
+        Assertions.assertSame(handle, ServiceRegistry.INSTANCE.handleFor(HandledService.class));
+        Assertions.assertFalse(handle.isPresent());
+        Assertions.assertFalse(ServiceRegistry.INSTANCE.hasRegistration(HandledService.class));
+
+        HandledService service = new HandledService();
+        ServiceRegistry.INSTANCE.registerService(HandledService.class,
+                service,
+                "ServiceHandleTest",
+                ServicePriority.NORMAL
+        );
+        Assertions.assertTrue(handle.isPresent());
+        Assertions.assertSame(service, handle.get().get().get());
+        Assertions.assertSame(ServiceRegistry.INSTANCE.serviceFor(HandledService.class),
+                ServiceRegistry.INSTANCE.serviceFor(HandledService.class)
+        );
+
+        ServiceRegistry.INSTANCE.unregister(HandledService.class, service);
+        Assertions.assertFalse(handle.isPresent());
+        Assertions.assertTrue(handle.all().isEmpty());
+    }
+
+    @Test
+    void testPriorityOrder() {
+        PrioritizedService low = new PrioritizedService();
+        PrioritizedService high = new PrioritizedService();
+        ServiceRegistry.INSTANCE.registerService(PrioritizedService.class,
+                low,
+                "ServiceHandleTest",
+                ServicePriority.LOW
+        );
+        ServiceRegistry.INSTANCE.registerService(PrioritizedService.class,
+                high,
+                "ServiceHandleTest",
+                ServicePriority.HIGH
+        );
+
+        ServiceHandle<PrioritizedService> handle = ServiceRegistry.INSTANCE.handleFor(
+                PrioritizedService.class);
+        Assertions.assertSame(high, handle.get().get().get());
+        Iterator<Service<PrioritizedService>> all = handle.all().iterator();
+        Assertions.assertSame(high, all.next().get());
+        Assertions.assertSame(low, all.next().get());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> handle.all().clear());
+    }
+
+}
@@ -1,6 +1,11 @@
 package me.lokka30.treasury.api.common.service;
 
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import me.lokka30.treasury.api.common.event.EventBus;
+import me.lokka30.treasury.api.common.event.EventSubscriber;
+import me.lokka30.treasury.api.common.service.event.ServiceUnregisteredEvent;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,4 +47,47 @@ class ServiceRegistryTest {
         Assertions.assertEquals(2, services.size());
     }
 
+    static class IndexedService {
+
+    }
+
+    @Test
+    void testIndexedUnregister() throws InterruptedException {
+        Semaphore unregistered = new Semaphore(0);
+        EventSubscriber<ServiceUnregisteredEvent> subscriber = EventBus.INSTANCE
+                .subscriptionFor(ServiceUnregisteredEvent.class)
+                .whenCalled(event -> {
+                    if (event.getService().get() instanceof IndexedService) {
+                        unregistered.release();
+                    }
+                })
+                .completeSubscription();
+        EventBus.INSTANCE.subscribe(subscriber);
+
+        ServiceRegistry registry = ServiceRegistry.INSTANCE;
+        IndexedService first = new IndexedService();
+        IndexedService second = new IndexedService();
+        IndexedService third = new IndexedService();
+        registry.registerService(IndexedService.class, first, "Indexed", ServicePriority.HIGH);
+        registry.registerService(IndexedService.class, second, "Indexed", ServicePriority.LOW);
+        registry.registerService(IndexedService.class, third, "Other", ServicePriority.NORMAL);
+
+        registry.unregister(IndexedService.class, third);
+        Assertions.assertEquals(2, registry.allServicesFor(IndexedService.class).size());
+        // a copy, which can be changed freely
+        registry.allServicesFor(IndexedService.class).clear();
+        Assertions.assertEquals(2, registry.allServicesFor(IndexedService.class).size());
+        Assertions.assertTrue(unregistered.tryAcquire(1, 5, TimeUnit.SECONDS));
+
+        registry.unregisterAll("indexed");
+        Assertions.assertFalse(registry.hasRegistration(IndexedService.class));
+        Assertions.assertTrue(unregistered.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // the registrar index must have forgotten about the already unregistered services
+        registry.unregisterAll("Other");
+        registry.unregister(IndexedService.class, first);
+        Assertions.assertFalse(unregistered.tryAcquire(1, 100, TimeUnit.MILLISECONDS));
+        subscriber.unregister();
+    }
+
 }
@@ -0,0 +1,62 @@
+package me.lokka30.treasury.api.economy.account;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AccountIdCursorTest {
+
+    @Test
+    void testPages() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ids.add(i);
+        }
+        AtomicInteger retrievals = new AtomicInteger();
+        AccountIdCursor<Integer> cursor = AccountIdCursor.of(() -> {
+            retrievals.incrementAndGet();
+            return CompletableFuture.completedFuture(ids);
+        });
+        Assertions.assertEquals(0, retrievals.get());
+
+        Assertions.assertEquals(ids.subList(0, 10), cursor.next(10).join());
+        Assertions.assertEquals(ids.subList(10, 20), cursor.next(10).join());
+        Assertions.assertEquals(ids.subList(20, 25), cursor.next(10).join());
+        Assertions.assertTrue(cursor.next(10).join().isEmpty());
+        Assertions.assertEquals(1, retrievals.get());
+    }
+
+    @Test
+    void testForEachPage() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(i);
+        }
+        List<Integer> seen = new ArrayList<>();
+        AccountIdCursor
+                .of(() -> CompletableFuture.completedFuture(ids))
+                .forEachPage(1, page -> {
+                    seen.addAll(page);
+                    return CompletableFuture.completedFuture(null);
+                })
+                .join();
+        Assertions.assertEquals(ids, seen);
+    }
+
+    @Test
+    void testForEachPageFailure() {
+        CompletableFuture<Void> done = AccountIdCursor
+                .of(() -> CompletableFuture.completedFuture(Arrays.asList(1, 2, 3)))
+                .forEachPage(1, page -> {
+                    CompletableFuture<Void> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new IllegalStateException());
+                    return failed;
+                });
+        Assertions.assertTrue(done.isCompletedExceptionally());
+    }
+
+}
@@ -0,0 +1,406 @@
+package me.lokka30.treasury.api.economy.cache;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.EconomyProvider;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.account.accessor.AccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.NonPlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.PlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.currency.Money;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CachingEconomyProviderTest {
+
+    @Test
+    void testLookupsAreCached() {
+        CountingProvider delegate = new CountingProvider();
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        UUID uuid = UUID.randomUUID();
+
+        PlayerAccount first = provider.accountAccessor().player().withUniqueId(uuid).get().join();
+        PlayerAccount second = provider.accountAccessor().player().withUniqueId(uuid).get().join();
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(uuid, first.identifier());
+        Assertions.assertEquals(1, delegate.lookups.get());
+    }
+
+    @Test
+    void testConcurrentLookupsAreDeduplicated() {
+        CountingProvider delegate = new CountingProvider();
+        delegate.pending = new CompletableFuture<>();
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        UUID uuid = UUID.randomUUID();
+
+        CompletableFuture<PlayerAccount> first = provider.accountAccessor().player().withUniqueId(
+                uuid).get();
+        CompletableFuture<PlayerAccount> second = provider.accountAccessor().player().withUniqueId(
+                uuid).get();
+        Assertions.assertFalse(first.isDone());
+        Assertions.assertEquals(1, delegate.lookups.get());
+
+        delegate.pending.complete(null);
+        Assertions.assertSame(first.join(), second.join());
+    }
+
+    @Test
+    void testDeleteInvalidates() {
+        CountingProvider delegate = new CountingProvider();
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        UUID uuid = UUID.randomUUID();
+
+        PlayerAccount account = provider.accountAccessor().player().withUniqueId(uuid).get().join();
+        Assertions.assertTrue(account.deleteAccount().join());
+        Assertions.assertNotSame(account,
+                provider.accountAccessor().player().withUniqueId(uuid).get().join()
+        );
+        Assertions.assertEquals(2, delegate.lookups.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        CountingProvider delegate = new CountingProvider();
+        delegate.fail = true;
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        UUID uuid = UUID.randomUUID();
+
+        Assertions.assertTrue(provider
+                .accountAccessor()
+                .player()
+                .withUniqueId(uuid)
+                .get()
+                .isCompletedExceptionally());
+        delegate.fail = false;
+        Assertions.assertFalse(provider
+                .accountAccessor()
+                .player()
+                .withUniqueId(uuid)
+                .get()
+                .isCompletedExceptionally());
+        Assertions.assertEquals(2, delegate.lookups.get());
+    }
+
+    @Test
+    void testBulkBalancesRunThroughCache() {
+        CountingProvider delegate = new CountingProvider();
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        List<UUID> uuids = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+        for (UUID uuid : uuids) {
+            delegate.accounts.put(uuid, new SimplePlayerAccount(uuid, delegate.accounts));
+        }
+        Currency currency = new TestCurrency();
+
+        Map<UUID, Map<String, BigDecimal>> balances = provider
+                .retrieveBalances(uuids, Collections.singleton(currency))
+                .join();
+        Assertions.assertEquals(2, balances.size());
+        Assertions.assertEquals(BigDecimal.ZERO, balances.get(uuids.get(0)).get("test"));
+
+        provider.retrieveBalances(uuids, Collections.singleton(currency)).join();
+        Assertions.assertEquals(2, delegate.lookups.get());
+    }
+
+    @Test
+    void testBulkBalancesSkipMissingAndBrokenAccounts() {
+        CountingProvider provider = new CountingProvider();
+        UUID present = UUID.randomUUID();
+        UUID broken = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        provider.accounts.put(present, new SimplePlayerAccount(present, provider.accounts));
+        provider.accounts.put(broken, new SimplePlayerAccount(broken, provider.accounts) {
+            @Override
+            public @NotNull CompletableFuture<BigDecimal> retrieveBalance(
+                    @NotNull Currency currency
+            ) {
+                CompletableFuture<BigDecimal> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("storage"));
+                return failed;
+            }
+        });
+
+        Map<UUID, Map<String, BigDecimal>> balances = provider
+                .retrieveBalances(Arrays.asList(present, broken, missing),
+                        Collections.singleton(new TestCurrency())
+                )
+                .join();
+        Assertions.assertEquals(Collections.singleton(present), balances.keySet());
+        // no account got created for the missing player
+        Assertions.assertFalse(provider.accounts.containsKey(missing));
+        Assertions.assertEquals(2, provider.lookups.get());
+    }
+
+    @Test
+    void testMoneyOverridesAreForwarded() {
+        CountingProvider delegate = new CountingProvider();
+        CachingEconomyProvider provider = CachingEconomyProvider.wrap(delegate);
+        UUID uuid = UUID.randomUUID();
+        Money marker = Money.ofUnscaled(42, 2);
+        delegate.accounts.put(uuid, new SimplePlayerAccount(uuid, delegate.accounts) {
+            @Override
+            public @NotNull CompletableFuture<Money> retrieveBalanceMoney(
+                    @NotNull Currency currency
+            ) {
+                return CompletableFuture.completedFuture(marker);
+            }
+
+            @Override
+            public @NotNull CompletableFuture<Money> withdrawBalance(
+                    @NotNull Money amount,
+                    @NotNull Cause<?> cause,
+                    @NotNull Currency currency,
+                    @NotNull EconomyTransactionImportance importance,
+                    @Nullable String reason
+            ) {
+                return CompletableFuture.completedFuture(marker);
+            }
+
+            @Override
+            public @NotNull CompletableFuture<Money> depositBalance(
+                    @NotNull Money amount,
+                    @NotNull Cause<?> cause,
+                    @NotNull Currency currency,
+                    @NotNull EconomyTransactionImportance importance,
+                    @Nullable String reason
+            ) {
+                return CompletableFuture.completedFuture(marker);
+            }
+        });
+        Currency currency = new TestCurrency();
+        Money amount = Money.ofUnscaled(1, 2);
+
+        PlayerAccount account = provider.accountAccessor().player().withUniqueId(uuid).get().join();
+        Assertions.assertSame(marker, account.retrieveBalanceMoney(currency).join());
+        Assertions.assertSame(marker,
+                account.withdrawBalance(amount, Cause.SERVER, currency).join()
+        );
+        Assertions.assertSame(marker,
+                account.depositBalance(amount, Cause.SERVER, currency).join()
+        );
+    }
+
+    static final class CountingProvider implements EconomyProvider {
+
+        final AtomicInteger lookups = new AtomicInteger();
+        final Map<UUID, PlayerAccount> accounts = new ConcurrentHashMap<>();
+        volatile CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        volatile boolean fail;
+
+        @Override
+        public @NotNull AccountAccessor accountAccessor() {
+            return new AccountAccessor() {
+                @Override
+                public @NotNull PlayerAccountAccessor player() {
+                    return new PlayerAccountAccessor() {
+                        @Override
+                        protected @NotNull CompletableFuture<PlayerAccount> getOrCreate(
+                                @NotNull PlayerAccountCreateContext context
+                        ) {
+                            lookups.incrementAndGet();
+                            if (fail) {
+                                CompletableFuture<PlayerAccount> failed = new CompletableFuture<>();
+                                failed.completeExceptionally(new IllegalStateException("storage"));
+                                return failed;
+                            }
+                            return pending.thenApply(v -> accounts.computeIfAbsent(context.getUniqueId(),
+                                    uuid -> new SimplePlayerAccount(uuid, accounts)
+                            ));
+                        }
+                    };
+                }
+
+                @Override
+                public @NotNull NonPlayerAccountAccessor nonPlayer() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Boolean> hasAccount(@NotNull AccountData accountData) {
+            return CompletableFuture.completedFuture(accountData
+                    .getPlayerIdentifier()
+                    .map(accounts::containsKey)
+                    .orElse(false));
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<UUID>> retrievePlayerAccountIds() {
+            return CompletableFuture.completedFuture(accounts.keySet());
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<NamespacedKey>> retrieveNonPlayerAccountIds() {
+            return CompletableFuture.completedFuture(Collections.emptySet());
+        }
+
+        @Override
+        public @NotNull Currency getPrimaryCurrency() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull Optional<Currency> findCurrency(@NotNull String identifier) {
+            return Optional.empty();
+        }
+
+        @Override
+        public @NotNull Set<Currency> getCurrencies() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<TriState> registerCurrency(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(TriState.FALSE);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<TriState> unregisterCurrency(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(TriState.FALSE);
+        }
+
+    }
+
+    static class SimplePlayerAccount implements PlayerAccount {
+
+        private final UUID uuid;
+        private final Map<UUID, PlayerAccount> storage;
+
+        SimplePlayerAccount(UUID uuid, Map<UUID, PlayerAccount> storage) {
+            this.uuid = uuid;
+            this.storage = storage;
+        }
+
+        @Override
+        public @NotNull UUID identifier() {
+            return uuid;
+        }
+
+        @Override
+        public @NotNull Optional<String> getName() {
+            return Optional.empty();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(BigDecimal.ZERO);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> doTransaction(
+                @NotNull EconomyTransaction economyTransaction
+        ) {
+            return CompletableFuture.completedFuture(BigDecimal.ZERO);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Boolean> deleteAccount() {
+            return CompletableFuture.completedFuture(storage.remove(uuid) != null);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<String>> retrieveHeldCurrencies() {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+                int transactionCount, @NotNull Temporal from, @NotNull Temporal to
+        ) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+    }
+
+    static final class TestCurrency implements Currency {
+
+        @Override
+        public @NotNull String getIdentifier() {
+            return "test";
+        }
+
+        @Override
+        public @NotNull String getSymbol() {
+            return "T";
+        }
+
+        @Override
+        public char getDecimal(@Nullable Locale locale) {
+            return '.';
+        }
+
+        @Override
+        public @NotNull Map<Locale, Character> getLocaleDecimalMap() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public @NotNull String getDisplayName(@NotNull BigDecimal value, @Nullable Locale locale) {
+            return "Test";
+        }
+
+        @Override
+        public int getPrecision() {
+            return 2;
+        }
+
+        @Override
+        public boolean isPrimary() {
+            return true;
+        }
+
+        @Override
+        public @NotNull BigDecimal getStartingBalance(@NotNull Account account) {
+            return BigDecimal.ZERO;
+        }
+
+        @Override
+        public @NotNull BigDecimal getConversionRate() {
+            return BigDecimal.ONE;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> parse(
+                @NotNull String formattedAmount, @Nullable Locale locale
+        ) {
+            return CompletableFuture.completedFuture(new BigDecimal(formattedAmount));
+        }
+
+        @Override
+        public @NotNull String format(@NotNull BigDecimal amount, @Nullable Locale locale) {
+            return amount.toPlainString();
+        }
+
+        @Override
+        public @NotNull String format(
+                @NotNull BigDecimal amount, @Nullable Locale locale, int precision
+        ) {
+            return amount.toPlainString();
+        }
+
+    }
+
+}
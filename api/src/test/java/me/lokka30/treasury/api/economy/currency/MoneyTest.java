@@ -0,0 +1,77 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.economy.currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void testConversions() {
+        Money money = Money.of(new BigDecimal("10.5"), 2);
+        Assertions.assertTrue(money.isCompact());
+        Assertions.assertEquals(1050, money.unscaledValue());
+        Assertions.assertEquals(new BigDecimal("10.50"), money.toBigDecimal());
+        Assertions.assertEquals(money, Money.ofUnscaled(1050, 2));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> Money.of(new BigDecimal("10.505"), 2)
+        );
+        Assertions.assertEquals(Money.ofUnscaled(1050, 2),
+                Money.of(new BigDecimal("10.505"), 2, RoundingMode.HALF_EVEN)
+        );
+    }
+
+    @Test
+    void testToString() {
+        Assertions.assertEquals("10.50", Money.ofUnscaled(1050, 2).toString());
+        Assertions.assertEquals("-0.05", Money.ofUnscaled(-5, 2).toString());
+        Assertions.assertEquals("0.000", Money.ofUnscaled(0, 3).toString());
+        Assertions.assertEquals("42", Money.ofUnscaled(42, 0).toString());
+        Assertions.assertEquals(BigDecimal.valueOf(Long.MIN_VALUE, 4).toPlainString(),
+                Money.ofUnscaled(Long.MIN_VALUE, 4).toString()
+        );
+    }
+
+    @Test
+    void testArithmeticOverflowsToBigDecimal() {
+        Money max = Money.ofUnscaled(Long.MAX_VALUE, 2);
+        Money one = Money.ofUnscaled(1, 2);
+
+        Money sum = max.add(one);
+        Assertions.assertFalse(sum.isCompact());
+        Assertions.assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).add(new BigDecimal("0.01")),
+                sum.toBigDecimal()
+        );
+        Assertions.assertThrows(ArithmeticException.class, sum::unscaledValue);
+
+        // back in range, back to a long
+        Money back = sum.subtract(one);
+        Assertions.assertTrue(back.isCompact());
+        Assertions.assertEquals(max, back);
+
+        Money min = Money.ofUnscaled(Long.MIN_VALUE, 2);
+        Assertions.assertFalse(min.subtract(one).isCompact());
+        Assertions.assertFalse(min.negate().isCompact());
+        Assertions.assertEquals(Money.ofUnscaled(-3, 2), one.subtract(Money.ofUnscaled(4, 2)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> one.add(Money.ofUnscaled(1, 3))
+        );
+    }
+
+    @Test
+    void testComparison() {
+        Money small = Money.ofUnscaled(150, 2);
+        Money big = Money.ofUnscaled(Long.MAX_VALUE, 2).add(small);
+        Assertions.assertTrue(small.compareTo(big) < 0);
+        Assertions.assertTrue(big.compareTo(small) > 0);
+        Assertions.assertEquals(0, small.compareTo(Money.ofUnscaled(15, 1)));
+        Assertions.assertNotEquals(small, Money.ofUnscaled(15, 1));
+        Assertions.assertEquals(-1, small.negate().signum());
+    }
+
+}
@@ -0,0 +1,192 @@
+package me.lokka30.treasury.api.economy.transaction;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TransactionHelperTest {
+
+    @Test
+    void testBatchSucceeds() {
+        BalanceAccount account = new BalanceAccount(new BigDecimal("10"));
+        List<BigDecimal> balances = account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.DEPOSIT, "5"),
+                transaction(EconomyTransactionType.SET, "3"),
+                transaction(EconomyTransactionType.WITHDRAWAL, "1")
+        )).join();
+        Assertions.assertEquals(Arrays.asList(new BigDecimal("15"),
+                new BigDecimal("3"),
+                new BigDecimal("2")
+        ), balances);
+    }
+
+    @Test
+    void testBatchRollsBack() {
+        BalanceAccount account = new BalanceAccount(new BigDecimal("10"));
+        CompletableFuture<List<BigDecimal>> result = account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.DEPOSIT, "5"),
+                transaction(EconomyTransactionType.SET, "3"),
+                transaction(EconomyTransactionType.WITHDRAWAL, "7")
+        ));
+        Assertions.assertTrue(result.isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("10"), account.balance);
+    }
+
+    @Test
+    void testTransferRollsBack() {
+        BalanceAccount from = new BalanceAccount(new BigDecimal("10"));
+        BalanceAccount to = new BalanceAccount(BigDecimal.ZERO);
+        to.rejectDeposits = true;
+        CompletableFuture<List<BigDecimal>> result = TransactionHelper.executeSequentially(Arrays.asList(
+                AccountTransaction.of(from, transaction(EconomyTransactionType.WITHDRAWAL, "4")),
+                AccountTransaction.of(to, transaction(EconomyTransactionType.DEPOSIT, "4"))
+        ), null);
+        Assertions.assertTrue(result.isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("10"), from.balance);
+        Assertions.assertEquals(BigDecimal.ZERO, to.balance);
+    }
+
+    @Test
+    void testFailedUndoIsReported() {
+        BalanceAccount from = new BalanceAccount(new BigDecimal("10"));
+        BalanceAccount to = new BalanceAccount(BigDecimal.ZERO);
+        // the withdrawal goes through, but neither the deposit nor giving the money back do
+        from.rejectDeposits = true;
+        to.rejectDeposits = true;
+        CompletableFuture<List<BigDecimal>> result = TransactionHelper.executeSequentially(Arrays.asList(
+                AccountTransaction.of(from, transaction(EconomyTransactionType.WITHDRAWAL, "4")),
+                AccountTransaction.of(to, transaction(EconomyTransactionType.DEPOSIT, "4"))
+        ), null);
+
+        IncompleteRollbackException error = Assertions.assertThrows(
+                IncompleteRollbackException.class,
+                () -> unwrap(result)
+        );
+        Assertions.assertEquals(Collections.singletonList(0), error.getNotUndone());
+        Assertions.assertEquals("rejected", error.getCause().getMessage());
+        Assertions.assertEquals(1, error.getSuppressed().length);
+        Assertions.assertEquals(new BigDecimal("6"), from.balance);
+    }
+
+    @Test
+    void testSetWithoutPreviousBalanceIsReported() {
+        BalanceAccount account = new BalanceAccount(new BigDecimal("10"));
+        CompletableFuture<List<BigDecimal>> result = account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.SET, "3"),
+                transaction(EconomyTransactionType.DEPOSIT, "2"),
+                transaction(EconomyTransactionType.WITHDRAWAL, "7")
+        ));
+
+        IncompleteRollbackException error = Assertions.assertThrows(
+                IncompleteRollbackException.class,
+                () -> unwrap(result)
+        );
+        // the deposit got undone, the set couldn't be
+        Assertions.assertEquals(Collections.singletonList(0), error.getNotUndone());
+        Assertions.assertEquals("overdraft", error.getCause().getMessage());
+        Assertions.assertEquals(new BigDecimal("3"), account.balance);
+    }
+
+    private static void unwrap(CompletableFuture<?> future) throws Throwable {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static EconomyTransaction transaction(EconomyTransactionType type, String amount) {
+        return EconomyTransaction
+                .newBuilder()
+                .withCurrencyId("test")
+                .withCause(Cause.SERVER)
+                .withType(type)
+                .withAmount(new BigDecimal(amount))
+                .withImportance(EconomyTransactionImportance.NORMAL)
+                .build();
+    }
+
+    static final class BalanceAccount implements PlayerAccount {
+
+        private final UUID uuid = UUID.randomUUID();
+        BigDecimal balance;
+        boolean rejectDeposits;
+
+        BalanceAccount(BigDecimal balance) {
+            this.balance = balance;
+        }
+
+        @Override
+        public @NotNull UUID identifier() {
+            return uuid;
+        }
+
+        @Override
+        public @NotNull Optional<String> getName() {
+            return Optional.empty();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(balance);
+        }
+
+        @Override
+        public synchronized @NotNull CompletableFuture<BigDecimal> doTransaction(
+                @NotNull EconomyTransaction economyTransaction
+        ) {
+            BigDecimal amount = economyTransaction.getAmount();
+            switch (economyTransaction.getType()) {
+                case DEPOSIT:
+                    if (rejectDeposits) {
+                        return FutureHelper.failedFuture(new IllegalStateException("rejected"));
+                    }
+                    balance = balance.add(amount);
+                    break;
+                case WITHDRAWAL:
+                    if (balance.compareTo(amount) < 0) {
+                        return FutureHelper.failedFuture(new IllegalStateException("overdraft"));
+                    }
+                    balance = balance.subtract(amount);
+                    break;
+                case SET:
+                    balance = amount;
+                    break;
+            }
+            return CompletableFuture.completedFuture(balance);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Boolean> deleteAccount() {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<String>> retrieveHeldCurrencies() {
+            return CompletableFuture.completedFuture(Collections.singletonList("test"));
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+                int transactionCount, @NotNull Temporal from, @NotNull Temporal to
+        ) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+    }
+
+}
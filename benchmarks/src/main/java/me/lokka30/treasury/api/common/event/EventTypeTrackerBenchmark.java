@@ -0,0 +1,90 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.api.common.event;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures event type resolution for deep type hierarchies, both through the package-private
+ * {@link EventTypeTracker} directly and through a full {@link EventBus#fire(Object)} of an event
+ * with subscribers at several levels of its hierarchy.
+ * <p>
+ * Lives in the event package so it can reach {@link EventTypeTracker}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventTypeTrackerBenchmark {
+
+    public interface Marker0 {}
+
+    public interface Marker1 extends Marker0 {}
+
+    public interface Marker2 extends Marker1 {}
+
+    public static class Level0 implements Marker0 {}
+
+    public static class Level1 extends Level0 implements Marker1 {}
+
+    public static class Level2 extends Level1 {}
+
+    public static class Level3 extends Level2 implements Marker2 {}
+
+    public static class Level4 extends Level3 {}
+
+    public static class Level5 extends Level4 {}
+
+    public static class Level6 extends Level5 {}
+
+    public static class Level7 extends Level6 {}
+
+    private EventTypeTracker warmTracker;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        warmTracker = new EventTypeTracker();
+        warmTracker.getFriendsOf(Level7.class);
+
+        EventBus bus = EventBus.INSTANCE;
+        Class<?>[] subscribed = {Marker0.class, Level1.class, Marker2.class, Level5.class, Level7.class};
+        for (Class<?> type : subscribed) {
+            bus.subscribe(bus.subscriptionFor(type).whenCalled(event -> {
+            }).completeSubscription());
+        }
+    }
+
+    @Benchmark
+    public Object resolveCold() {
+        return new EventTypeTracker().getFriendsOf(Level7.class);
+    }
+
+    @Benchmark
+    public Object resolveCached() {
+        return warmTracker.getFriendsOf(Level7.class);
+    }
+
+    @Benchmark
+    public void fireDeepEvent(Blackhole blackhole) {
+        EventBus.INSTANCE.fire(new Level7()).whenCompleteBlocking((event, errors) -> {
+            blackhole.consume(event);
+        });
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import me.lokka30.treasury.api.common.event.EventBus;
+import me.lokka30.treasury.api.common.event.ParallelProcessing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link EventBus#fire(Object)} round trips, from firing until the returned completion
+ * completes, for sequential and {@link ParallelProcessing parallel} events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBusBenchmark {
+
+    // the bus is a singleton keyed by event class, so every subscriber count gets its own classes
+
+    public static class SequentialEvent1 {}
+
+    public static class SequentialEvent10 {}
+
+    public static class SequentialEvent100 {}
+
+    @ParallelProcessing
+    public static class ParallelEvent1 {}
+
+    @ParallelProcessing
+    public static class ParallelEvent10 {}
+
+    @ParallelProcessing
+    public static class ParallelEvent100 {}
+
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    private Supplier<Object> sequential;
+    private Supplier<Object> parallel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (subscribers) {
+            case 1:
+                sequential = subscribe(SequentialEvent1.class, SequentialEvent1::new);
+                parallel = subscribe(ParallelEvent1.class, ParallelEvent1::new);
+                break;
+            case 10:
+                sequential = subscribe(SequentialEvent10.class, SequentialEvent10::new);
+                parallel = subscribe(ParallelEvent10.class, ParallelEvent10::new);
+                break;
+            case 100:
+                sequential = subscribe(SequentialEvent100.class, SequentialEvent100::new);
+                parallel = subscribe(ParallelEvent100.class, ParallelEvent100::new);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported subscriber count " + subscribers);
+        }
+    }
+
+    private <T> Supplier<Object> subscribe(Class<T> eventClass, Supplier<T> factory) {
+        EventBus bus = EventBus.INSTANCE;
+        for (int i = 0; i < subscribers; i++) {
+            bus.subscribe(bus.subscriptionFor(eventClass).whenCalled(event -> {
+                Blackhole.consumeCPU(16);
+            }).completeSubscription());
+        }
+        return factory::get;
+    }
+
+    @Benchmark
+    public void fireSequential(Blackhole blackhole) {
+        EventBus.INSTANCE.fire(sequential.get()).whenCompleteBlocking((event, errors) -> {
+            blackhole.consume(event);
+        });
+    }
+
+    @Benchmark
+    public void fireParallel(Blackhole blackhole) {
+        EventBus.INSTANCE.fire(parallel.get()).whenCompleteBlocking((event, errors) -> {
+            blackhole.consume(event);
+        });
+    }
+
+}
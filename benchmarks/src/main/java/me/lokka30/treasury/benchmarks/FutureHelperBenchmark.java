@@ -0,0 +1,67 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.common.misc.TriState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FutureHelper#mapJoinFilter(Function, Function, Collection)} over a large
+ * amount of already completed futures, which is what account id lookups end up doing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FutureHelperBenchmark {
+
+    private static final CompletableFuture<TriState> ALLOWED = CompletableFuture.completedFuture(
+            TriState.TRUE);
+    private static final CompletableFuture<TriState> DENIED = CompletableFuture.completedFuture(
+            TriState.FALSE);
+
+    @Param({"10000"})
+    public int futures;
+
+    private List<CompletableFuture<Integer>> input;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = new ArrayList<>(futures);
+        for (int i = 0; i < futures; i++) {
+            input.add(CompletableFuture.completedFuture(i));
+        }
+    }
+
+    @Benchmark
+    public Collection<String> mapJoinFilter() {
+        return FutureHelper.mapJoinFilter(
+                value -> (value & 1) == 0 ? ALLOWED : DENIED,
+                String::valueOf,
+                input
+        ).join();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.memory.MemoryCurrency;
+import me.lokka30.treasury.memory.MemoryEconomyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of balance reads, deposits and transfers of the
+ * {@link MemoryEconomyProvider}, from several threads at once, over random accounts. This is the
+ * baseline other providers can be compared against, as nothing is ever stored nor handed off to
+ * another thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MemoryEconomyProviderBenchmark {
+
+    private static final MemoryCurrency CURRENCY = MemoryCurrency
+            .newBuilder("coins")
+            .withPrimary(true)
+            .withStartingBalance(new BigDecimal("1000000"))
+            .build();
+
+    @Param({"1000"})
+    public int accounts;
+
+    private PlayerAccount[] players;
+    private MemoryEconomyProvider provider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        provider = MemoryEconomyProvider.newBuilder(CURRENCY).withHistoryLimit(0).build();
+        players = new PlayerAccount[accounts];
+        for (int i = 0; i < accounts; i++) {
+            players[i] = provider
+                    .accountAccessor()
+                    .player()
+                    .withUniqueId(UUID.randomUUID())
+                    .get()
+                    .join();
+        }
+    }
+
+    private PlayerAccount randomAccount() {
+        return players[ThreadLocalRandom.current().nextInt(players.length)];
+    }
+
+    @Benchmark
+    public BigDecimal retrieveBalance() {
+        return randomAccount().retrieveBalance(CURRENCY).join();
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        return randomAccount().depositBalance(BigDecimal.ONE, Cause.SERVER, CURRENCY).join();
+    }
+
+    @Benchmark
+    public List<BigDecimal> transfer() {
+        // moves one coin around, so balances stay around their starting value
+        return provider
+                .transfer(randomAccount(), randomAccount(), BigDecimal.ONE, Cause.SERVER, CURRENCY)
+                .join();
+    }
+
+}
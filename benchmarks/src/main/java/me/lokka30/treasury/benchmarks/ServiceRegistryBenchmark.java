@@ -0,0 +1,106 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import me.lokka30.treasury.api.common.service.ServiceHandle;
+import me.lokka30.treasury.api.common.service.ServicePriority;
+import me.lokka30.treasury.api.common.service.ServiceRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link ServiceRegistry#serviceFor(Class)} lookups, uncontended, with many reading
+ * threads, and with readers racing a thread which keeps (un)registering services, as well as
+ * reads of a held {@link ServiceHandle}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceRegistryBenchmark {
+
+    public interface BenchmarkService {}
+
+    private static final String REGISTRAR = "benchmark";
+    private static final String CHURN_REGISTRAR = "benchmark-churn";
+
+    private ServiceHandle<BenchmarkService> handle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ServiceRegistry registry = ServiceRegistry.INSTANCE;
+        handle = registry.handleFor(BenchmarkService.class);
+        ServicePriority[] priorities = ServicePriority.values();
+        for (int i = 0; i < 8; i++) {
+            registry.registerService(BenchmarkService.class,
+                    new BenchmarkService() {},
+                    REGISTRAR,
+                    priorities[i % priorities.length]
+            );
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ServiceRegistry.INSTANCE.unregisterAll(REGISTRAR);
+        ServiceRegistry.INSTANCE.unregisterAll(CHURN_REGISTRAR);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void serviceForUncontended(Blackhole blackhole) {
+        blackhole.consume(ServiceRegistry.INSTANCE.serviceFor(BenchmarkService.class));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void serviceForReaders(Blackhole blackhole) {
+        blackhole.consume(ServiceRegistry.INSTANCE.serviceFor(BenchmarkService.class));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void handleReaders(Blackhole blackhole) {
+        blackhole.consume(handle.get());
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(7)
+    public void churnReader(Blackhole blackhole) {
+        blackhole.consume(ServiceRegistry.INSTANCE.serviceFor(BenchmarkService.class));
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void churnWriter() {
+        ServiceRegistry registry = ServiceRegistry.INSTANCE;
+        registry.registerService(BenchmarkService.class,
+                new BenchmarkService() {},
+                CHURN_REGISTRAR,
+                ServicePriority.LOW
+        );
+        registry.unregisterAll(CHURN_REGISTRAR);
+    }
+
+}
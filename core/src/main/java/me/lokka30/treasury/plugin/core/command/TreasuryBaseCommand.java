@@ -12,6 +12,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import me.lokka30.treasury.plugin.core.command.subcommand.DebugSubcommand;
 import me.lokka30.treasury.plugin.core.command.subcommand.DownloadLatestSubcommand;
 import me.lokka30.treasury.plugin.core.command.subcommand.HelpSubcommand;
 import me.lokka30.treasury.plugin.core.command.subcommand.InfoSubcommand;
@@ -41,6 +42,7 @@ public final class TreasuryBaseCommand {
         registerSubcommand("reload", new ReloadSubcommand());
         registerSubcommand("downloadLatest", new DownloadLatestSubcommand());
         registerSubcommand("economy", new EconomySubcommand());
+        registerSubcommand("debug", new DebugSubcommand());
     }
 
     /**
@@ -98,7 +100,8 @@ public final class TreasuryBaseCommand {
             "info",
             "reload",
             "downloadLatest",
-            "economy"
+            "economy",
+            "debug"
     );
 
     /**
@@ -0,0 +1,206 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.command.subcommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import me.lokka30.treasury.api.common.event.EventBus;
+import me.lokka30.treasury.api.common.event.EventBusMetrics;
+import me.lokka30.treasury.plugin.core.command.CommandSource;
+import me.lokka30.treasury.plugin.core.command.Subcommand;
+import me.lokka30.treasury.plugin.core.config.messaging.Message;
+import me.lokka30.treasury.plugin.core.config.messaging.MessageKey;
+import me.lokka30.treasury.plugin.core.config.messaging.MessagePlaceholder;
+import me.lokka30.treasury.plugin.core.utils.Utils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static me.lokka30.treasury.plugin.core.config.messaging.MessagePlaceholder.placeholder;
+
+public class DebugSubcommand implements Subcommand {
+
+    /*
+    inf: Controls and views the event bus metrics.
+    cmd: /treasury debug <enable|disable|reset|events|subscribers> [amount]
+    arg:         |     0      1                                      2
+    len:         0     1      2                                      3
+     */
+
+    private static final int DEFAULT_SUBSCRIBERS_AMOUNT = 10;
+
+    @Override
+    public void execute(
+            @NotNull CommandSource sender, @NotNull String label, @NotNull String[] args
+    ) {
+        if (!Utils.checkPermissionForCommand(sender, "treasury.command.treasury.debug")) {
+            return;
+        }
+
+        if (args.length == 0 || args.length > 2) {
+            sendInvalidUsage(sender, label);
+            return;
+        }
+
+        String action = args[0].toLowerCase(Locale.ROOT);
+        if (args.length == 2 && !action.equals("subscribers")) {
+            sendInvalidUsage(sender, label);
+            return;
+        }
+
+        EventBus bus = EventBus.INSTANCE;
+        switch (action) {
+            case "enable":
+                bus.enableMetrics();
+                sender.sendMessage(Message.of(MessageKey.DEBUG_METRICS_ENABLED));
+                return;
+            case "disable":
+                bus.disableMetrics();
+                sender.sendMessage(Message.of(MessageKey.DEBUG_METRICS_DISABLED));
+                return;
+            case "reset":
+                Optional<EventBusMetrics> toReset = requireMetrics(sender, label);
+                if (toReset.isPresent()) {
+                    toReset.get().reset();
+                    sender.sendMessage(Message.of(MessageKey.DEBUG_METRICS_RESET));
+                }
+                return;
+            case "events":
+                requireMetrics(sender, label).ifPresent(metrics -> sendEvents(sender, metrics));
+                return;
+            case "subscribers":
+                int amount = DEFAULT_SUBSCRIBERS_AMOUNT;
+                if (args.length == 2) {
+                    try {
+                        amount = Integer.parseInt(args[1]);
+                    } catch (NumberFormatException e) {
+                        amount = -1;
+                    }
+                    if (amount <= 0) {
+                        sendInvalidUsage(sender, label);
+                        return;
+                    }
+                }
+                final int limit = amount;
+                requireMetrics(sender, label).ifPresent(metrics -> sendSubscribers(sender,
+                        metrics,
+                        limit
+                ));
+                return;
+            default:
+                sendInvalidUsage(sender, label);
+        }
+    }
+
+    private void sendInvalidUsage(@NotNull CommandSource sender, @NotNull String label) {
+        sender.sendMessage(Message.of(
+                MessageKey.DEBUG_INVALID_USAGE,
+                MessagePlaceholder.placeholder("label", label)
+        ));
+    }
+
+    @NotNull
+    private Optional<EventBusMetrics> requireMetrics(
+            @NotNull CommandSource sender, @NotNull String label
+    ) {
+        Optional<EventBusMetrics> metrics = EventBus.INSTANCE.getMetrics();
+        if (!metrics.isPresent()) {
+            sender.sendMessage(Message.of(
+                    MessageKey.DEBUG_METRICS_NOT_ENABLED,
+                    MessagePlaceholder.placeholder("label", label)
+            ));
+        }
+        return metrics;
+    }
+
+    private void sendEvents(@NotNull CommandSource sender, @NotNull EventBusMetrics metrics) {
+        sender.sendMessage(Message.of(
+                MessageKey.DEBUG_EVENTS_HEADER,
+                placeholder("time", secondsSince(metrics.since()))
+        ));
+        List<EventBusMetrics.EventMetrics> events = new ArrayList<>(metrics.events());
+        if (events.isEmpty()) {
+            sender.sendMessage(Message.of(MessageKey.DEBUG_NOTHING_RECORDED));
+            return;
+        }
+        events.sort(Comparator
+                .comparingLong(EventBusMetrics.EventMetrics::fireCount)
+                .reversed());
+        for (EventBusMetrics.EventMetrics event : events) {
+            sender.sendMessage(Message.of(
+                    MessageKey.DEBUG_EVENTS_ENTRY,
+                    placeholder("event", event.eventClass().getName()),
+                    placeholder("fires", event.fireCount()),
+                    placeholder("errors", event.errorCount()),
+                    placeholder("p50", formatNanos(event.latency().percentile(50))),
+                    placeholder("p99", formatNanos(event.latency().percentile(99))),
+                    placeholder("max", formatNanos(event.latency().max()))
+            ));
+        }
+    }
+
+    private void sendSubscribers(
+            @NotNull CommandSource sender, @NotNull EventBusMetrics metrics, int amount
+    ) {
+        sender.sendMessage(Message.of(
+                MessageKey.DEBUG_SUBSCRIBERS_HEADER,
+                placeholder("time", secondsSince(metrics.since()))
+        ));
+        List<EventBusMetrics.SubscriberMetrics> slowest = metrics.slowestSubscribers(amount);
+        if (slowest.isEmpty()) {
+            sender.sendMessage(Message.of(MessageKey.DEBUG_NOTHING_RECORDED));
+            return;
+        }
+        int rank = 1;
+        for (EventBusMetrics.SubscriberMetrics subscriber : slowest) {
+            sender.sendMessage(Message.of(
+                    MessageKey.DEBUG_SUBSCRIBERS_ENTRY,
+                    placeholder("rank", rank++),
+                    placeholder("subscriber", subscriber.subscriber().toString()),
+                    placeholder("calls", subscriber.callCount()),
+                    placeholder("errors", subscriber.errorCount()),
+                    placeholder("timeouts", subscriber.timeoutCount()),
+                    placeholder("mean", formatNanos(subscriber.executionTime().mean())),
+                    placeholder("p99", formatNanos(subscriber.executionTime().percentile(99))),
+                    placeholder("max", formatNanos(subscriber.executionTime().max()))
+            ));
+        }
+    }
+
+    private static long secondsSince(long epochMillis) {
+        return (System.currentTimeMillis() - epochMillis) / 1000;
+    }
+
+    @NotNull
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000D);
+    }
+
+    @NotNull
+    private static final List<String> ACTION_COMPLETIONS = Arrays.asList("enable",
+            "disable",
+            "reset",
+            "events",
+            "subscribers"
+    );
+
+    @Nullable
+    @Override
+    public List<String> complete(
+            @NotNull CommandSource source, @NotNull String label, @NotNull String[] args
+    ) {
+        if (args.length == 1) {
+            return ACTION_COMPLETIONS.stream().filter(c -> c.startsWith(args[0].toLowerCase(
+                    Locale.ROOT))).collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+}
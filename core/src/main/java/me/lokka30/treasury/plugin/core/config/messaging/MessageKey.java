@@ -55,7 +55,17 @@ public enum MessageKey {
     DOWNLOAD_LATEST_ERROR("commands.treasury.subcommands.downloadLatest.error-occurred"),
     DOWNLOAD_LATEST_COULDNT_PARSE("commands.treasury.subcommands.downloadLatest.couldnt-parse"),
     DOWNLOAD_LATEST_ALREADY_LATEST("commands.treasury.subcommands.downloadLatest.already-latest"),
-    DOWNLOAD_LATEST_SUCCESS("commands.treasury.subcommands.downloadLatest.success");
+    DOWNLOAD_LATEST_SUCCESS("commands.treasury.subcommands.downloadLatest.success"),
+    DEBUG_INVALID_USAGE("commands.treasury.subcommands.debug.invalid-usage"),
+    DEBUG_METRICS_ENABLED("commands.treasury.subcommands.debug.metrics-enabled"),
+    DEBUG_METRICS_DISABLED("commands.treasury.subcommands.debug.metrics-disabled"),
+    DEBUG_METRICS_RESET("commands.treasury.subcommands.debug.metrics-reset"),
+    DEBUG_METRICS_NOT_ENABLED("commands.treasury.subcommands.debug.metrics-not-enabled"),
+    DEBUG_NOTHING_RECORDED("commands.treasury.subcommands.debug.nothing-recorded"),
+    DEBUG_EVENTS_HEADER("commands.treasury.subcommands.debug.events-header"),
+    DEBUG_EVENTS_ENTRY("commands.treasury.subcommands.debug.events-entry"),
+    DEBUG_SUBSCRIBERS_HEADER("commands.treasury.subcommands.debug.subscribers-header"),
+    DEBUG_SUBSCRIBERS_ENTRY("commands.treasury.subcommands.debug.subscribers-entry");
 
     private final String configKey;
 
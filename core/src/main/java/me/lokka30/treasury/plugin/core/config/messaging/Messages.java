@@ -186,7 +186,8 @@ public class Messages {
                     " &8&m->&b /treasury info &8- &7view info about Treasury.",
                     " &8&m->&b /treasury reload &8- &7re-load all of Treasury's configuration files.",
                     " &8&m->&b /treasury downloadLatest &8- &7downloads the latest Treasury plugin jar.",
-                    " &8&m->&b /treasury economy &8 - &7economy specific commands"
+                    " &8&m->&b /treasury economy &8 - &7economy specific commands",
+                    " &8&m->&b /treasury debug &8- &7view event bus timing metrics."
             );
 
             @Comment("Placeholders: %prefix%, %label%")
@@ -285,6 +286,62 @@ public class Messages {
             private List<String> reloadComplete = Collections.singletonList(
                     "%prefix% Reload successful &8(&7took &b%time%ms&8)&7.");
 
+            @Comment("Placeholders: %prefix%, %label%")
+            @Key("subcommands.debug.invalid-usage")
+            private List<String> debugInvalidUsage = Arrays.asList(
+                    "%prefix% Invalid usage, try '&b/%label% debug <enable|disable|reset|events|subscribers [amount]>&7'.",
+                    " &8&m->&b enable&8/&bdisable &8- &7start/stop recording event bus metrics.",
+                    " &8&m->&b reset &8- &7clear the recorded metrics.",
+                    " &8&m->&b events &8- &7view fire counts and latencies per event.",
+                    " &8&m->&b subscribers [amount] &8- &7view the slowest event subscribers."
+            );
+
+            @Comment("Placeholders: %prefix%")
+            @Key("subcommands.debug.metrics-enabled")
+            private List<String> debugMetricsEnabled = Collections.singletonList(
+                    "%prefix% Event bus metrics are now being recorded.");
+
+            @Comment("Placeholders: %prefix%")
+            @Key("subcommands.debug.metrics-disabled")
+            private List<String> debugMetricsDisabled = Collections.singletonList(
+                    "%prefix% Event bus metrics are no longer being recorded.");
+
+            @Comment("Placeholders: %prefix%")
+            @Key("subcommands.debug.metrics-reset")
+            private List<String> debugMetricsReset = Collections.singletonList(
+                    "%prefix% Event bus metrics have been cleared.");
+
+            @Comment("Placeholders: %prefix%, %label%")
+            @Key("subcommands.debug.metrics-not-enabled")
+            private List<String> debugMetricsNotEnabled = Collections.singletonList(
+                    "%prefix% Event bus metrics are not being recorded, start with '&b/%label% debug enable&7'.");
+
+            @Comment("Placeholders: %prefix%")
+            @Key("subcommands.debug.nothing-recorded")
+            private List<String> debugNothingRecorded = Collections.singletonList(
+                    "&8 &m->&7 Nothing has been recorded yet.");
+
+            @Comment("Placeholders: %prefix%, %time%")
+            @Key("subcommands.debug.events-header")
+            private List<String> debugEventsHeader = Collections.singletonList(
+                    "&f&nEvents&7 (recorded over the last &b%time%s&7)");
+
+            @Comment("Placeholders: %prefix%, %event%, %fires%, %errors%, %p50%, %p99%, %max%")
+            @Key("subcommands.debug.events-entry")
+            private List<String> debugEventsEntry = Collections.singletonList(
+                    "&8 &m->&b %event%&7: &b%fires%&7 fires, &b%errors%&7 errors, p50 &b%p50%&7, p99 &b%p99%&7, max &b%max%");
+
+            @Comment("Placeholders: %prefix%, %time%")
+            @Key("subcommands.debug.subscribers-header")
+            private List<String> debugSubscribersHeader = Collections.singletonList(
+                    "&f&nSlowest Subscribers&7 (recorded over the last &b%time%s&7)");
+
+            @Comment("Placeholders: %prefix%, %rank%, %subscriber%, %calls%, %errors%, %timeouts%,")
+            @Comment("              %mean%, %p99%, %max%")
+            @Key("subcommands.debug.subscribers-entry")
+            private List<String> debugSubscribersEntry = Collections.singletonList(
+                    "&8 &m->&7 #%rank% &b%subscriber%&7: &b%calls%&7 calls, &b%errors%&7 errors, &b%timeouts%&7 timeouts, mean &b%mean%&7, p99 &b%p99%&7, max &b%max%");
+
         }
 
     }
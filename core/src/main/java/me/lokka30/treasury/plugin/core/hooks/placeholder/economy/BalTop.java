@@ -4,98 +4,80 @@
 
 package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
 
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
-import me.lokka30.treasury.api.economy.EconomyProvider;
-import me.lokka30.treasury.api.economy.currency.Currency;
-import me.lokka30.treasury.plugin.core.TreasuryPlugin;
-import me.lokka30.treasury.plugin.core.schedule.Scheduler;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-public class BalTop extends Scheduler.ScheduledTask {
+public class BalTop {
 
     private final boolean enabled;
     private final int topSize;
-    private final int taskDelay;
-    private final AtomicReference<EconomyProvider> providerRef;
     private final BalanceCache balanceCache;
 
-    private final Multimap<String, TopPlayer> baltop;
+    // by lower cased currency id, kept up to date with every balance change of the cache
+    private final Map<String, BalanceRanking> rankings = new ConcurrentHashMap<>();
 
-    public BalTop(
-            boolean enabled,
-            int topSize,
-            int taskDelay,
-            BalanceCache balanceCache,
-            AtomicReference<EconomyProvider> provider
-    ) {
-        super(TreasuryPlugin.getInstance().scheduler());
+    public BalTop(boolean enabled, int topSize, BalanceCache balanceCache) {
         this.enabled = enabled;
         this.topSize = topSize;
-        this.taskDelay = taskDelay;
         this.balanceCache = balanceCache;
-        this.providerRef = provider;
-        this.baltop = Multimaps.newSortedSetMultimap(new HashMap<>(),
-                () -> new TreeSet<>(TopPlayer::compareTo)
-        );
     }
 
     public void start() {
-        start(1, taskDelay, TimeUnit.SECONDS);
+        balanceCache.setBalanceListener(this::onBalances);
+    }
+
+    public void cancel() {
+        balanceCache.setBalanceListener(null);
+        rankings.clear();
     }
 
     public boolean isEnabled() {
         return enabled;
     }
 
-    public String getPositionAsString(String currencyId, String playerName) {
-        int positionInt = 0;
-        boolean found = false;
-        for (TopPlayer player : baltop.get(currencyId)) {
-            positionInt++;
-            if (player.getName().equalsIgnoreCase(playerName)) {
-                found = true;
-                break;
-            }
+    public String getPositionAsString(String currencyId, @Nullable UUID uuid) {
+        BalanceRanking ranking = ranking(currencyId);
+        if (ranking == null || uuid == null) {
+            return "";
         }
-        if (found) {
-            return String.valueOf(positionInt);
-        } else {
+        int position = ranking.positionOf(uuid);
+        if (position < 0 || position >= topSize) {
             return "";
         }
+        return String.valueOf(position + 1);
     }
 
     public String getTopPlayer(String currencyId, int position) {
-        position = normalizePosition(position);
-        return baltop
-                .get(currencyId)
-                .stream()
-                .skip(position)
-                .findFirst()
-                .map(TopPlayer::getName)
-                .orElse("");
+        BalanceRanking.Entry entry = entry(currencyId, position);
+        if (entry == null) {
+            return "";
+        }
+        String name = balanceCache.getPlayerDataNames().get(entry.uuid());
+        return name == null ? "" : name;
     }
 
     public @Nullable BigDecimal getTopBalance(String currencyId, int position) {
+        BalanceRanking.Entry entry = entry(currencyId, position);
+        return entry == null ? null : entry.balance();
+    }
+
+    private @Nullable BalanceRanking.Entry entry(String currencyId, int position) {
         position = normalizePosition(position);
-        return baltop
-                .get(currencyId)
-                .stream()
-                .skip(position)
-                .findFirst()
-                .map(TopPlayer::getBalance)
-                .orElse(null);
+        BalanceRanking ranking = ranking(currencyId);
+        if (ranking == null || position < 0 || position >= topSize) {
+            return null;
+        }
+        return ranking.get(position);
+    }
+
+    private @Nullable BalanceRanking ranking(String currencyId) {
+        return rankings.get(currencyId.toLowerCase(Locale.ROOT));
     }
 
     private int normalizePosition(int position) {
@@ -105,84 +87,23 @@ public class BalTop extends Scheduler.ScheduledTask {
         return position - 1;
     }
 
-    @Override
-    public void run() {
-        if (!enabled) {
-            cancel();
-            return;
-        }
-        EconomyProvider provider = providerRef.get();
-        if (provider == null) {
-            return;
-        }
-        if (!balanceCache.available()) {
-            try {
-                balanceCache.await();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            if (!balanceCache.available()) {
-                // We'll just wait for the next cycle to update the baltop
-                // Also print a warning that it failed to update the baltop
-                TreasuryPlugin.getInstance().logger().warn("Couldn't update baltop placeholders!");
-                return;
+    private void onBalances(@NotNull UUID uuid, @Nullable Map<String, BigDecimal> balances) {
+        Map<String, BigDecimal> byCurrency = new HashMap<>();
+        if (balances != null) {
+            for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+                byCurrency.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
             }
         }
-        baltop.clear();
-
-        for (Map.Entry<UUID, String> entry : balanceCache.getPlayerDataNames().entrySet()) {
-            for (Currency currency : provider.getCurrencies()) {
-                BigDecimal balance = balanceCache.getBalance(entry.getKey(),
-                        currency.getIdentifier()
-                );
-                if (balance == null || balance.equals(BigDecimal.ZERO)) {
-                    continue;
-                }
-                baltop.put(currency.getIdentifier(), new TopPlayer(entry.getValue(), balance));
+        for (Map.Entry<String, BalanceRanking> entry : rankings.entrySet()) {
+            if (!byCurrency.containsKey(entry.getKey())) {
+                entry.getValue().remove(uuid);
             }
         }
-
-        for (String key : baltop.keys()) {
-            Collection<TopPlayer> currentPlayers = baltop.get(key);
-            if (currentPlayers.isEmpty() || currentPlayers.size() <= topSize) {
-                continue;
-            }
-            List<TopPlayer> newPlayers = new ArrayList<>();
-            int count = 0;
-            for (TopPlayer player : currentPlayers) {
-                newPlayers.add(player);
-                count++;
-                if (count == topSize) {
-                    break;
-                }
-            }
-            baltop.replaceValues(key, newPlayers);
-        }
-    }
-
-    public static class TopPlayer implements Comparable<TopPlayer> {
-
-        private final @NotNull String name;
-        private final @NotNull BigDecimal balance;
-
-        public TopPlayer(@NotNull String name, @NotNull BigDecimal balance) {
-            this.name = name;
-            this.balance = balance;
+        for (Map.Entry<String, BigDecimal> entry : byCurrency.entrySet()) {
+            rankings
+                    .computeIfAbsent(entry.getKey(), $ -> new BalanceRanking())
+                    .update(uuid, entry.getValue());
         }
-
-        public @NotNull String getName() {
-            return name;
-        }
-
-        public @NotNull BigDecimal getBalance() {
-            return balance;
-        }
-
-        @Override
-        public int compareTo(@NotNull BalTop.TopPlayer o) {
-            return balance.compareTo(o.getBalance());
-        }
-
     }
 
 }
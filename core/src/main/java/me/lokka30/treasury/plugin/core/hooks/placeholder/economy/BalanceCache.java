@@ -4,75 +4,168 @@
 
 package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import java.math.BigDecimal;
-import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import me.lokka30.treasury.api.common.event.EventBus;
+import me.lokka30.treasury.api.common.event.EventPriority;
+import me.lokka30.treasury.api.common.event.EventSubscriber;
 import me.lokka30.treasury.api.common.misc.FutureHelper;
 import me.lokka30.treasury.api.common.misc.TriState;
-import me.lokka30.treasury.api.common.response.TreasuryException;
 import me.lokka30.treasury.api.economy.EconomyProvider;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.AccountIdCursor;
 import me.lokka30.treasury.api.economy.account.PlayerAccount;
 import me.lokka30.treasury.api.economy.currency.Currency;
-import me.lokka30.treasury.plugin.core.TreasuryPlugin;
+import me.lokka30.treasury.api.economy.events.AccountTransactionEvent;
+import me.lokka30.treasury.plugin.core.logging.Logger;
 import me.lokka30.treasury.plugin.core.schedule.Scheduler;
 import org.jetbrains.annotations.Nullable;
 
 public class BalanceCache extends Scheduler.ScheduledTask {
 
-    private final Multimap<UUID, Map.Entry<String, BigDecimal>> balances = HashMultimap.create();
-    private Map<UUID, String> playerDataNames = new ConcurrentHashMap<>();
+    private static final int PAGE_SIZE = 1000;
+    // transaction events are fired before the transaction is done, so give it time to land
+    private static final long SETTLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // read generation of refreshes which write whatever they read
+    private static final long UNCONDITIONAL = Long.MAX_VALUE;
+
+    // never cleared, so readers never see a half filled cache. an empty row means the account
+    // has no balances, or doesn't exist
+    private final BalanceTable balances = new BalanceTable();
+    // accounts to refresh on the next run, with the clock time they were marked at
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+    // accounts marked or refreshed since the oldest running reconciliation page was asked for,
+    // with the generation they were at
+    private final Map<UUID, Long> touched = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    // players read without a row, to check whether they have an account on the next run
+    private final Set<UUID> unknown = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, String> playerDataNames = new ConcurrentHashMap<>();
     private final int delay;
+    private final long reconcileDelayNanos;
     private final AtomicReference<EconomyProvider> providerRef;
-    private final AtomicReference<CountDownLatch> doneLatch = new AtomicReference<>(new CountDownLatch(
-            1));
+    // amount of accounts a reconciliation refreshes at once
+    private final int refreshWindow;
+    private final Scheduler scheduler;
+    private final Logger logger;
+    private final LongSupplier nanoClock;
+    private volatile RefreshProgress lastReconciliation;
+    private EventSubscriber<AccountTransactionEvent> transactionSubscriber;
+
+    // only accessed by the task
+    private EconomyProvider reconciledProvider;
+    private long lastReconcile;
+    private CompletableFuture<?> reconciliation = CompletableFuture.completedFuture(null);
 
     public BalanceCache(
-            int delay, AtomicReference<EconomyProvider> providerRef
+            Scheduler scheduler,
+            Logger logger,
+            int delay,
+            int reconcileDelay,
+            int refreshWindow,
+            AtomicReference<EconomyProvider> providerRef
+    ) {
+        this(scheduler,
+                logger,
+                delay,
+                reconcileDelay,
+                refreshWindow,
+                providerRef,
+                System::nanoTime
+        );
+    }
+
+    BalanceCache(
+            Scheduler scheduler,
+            Logger logger,
+            int delay,
+            int reconcileDelay,
+            int refreshWindow,
+            AtomicReference<EconomyProvider> providerRef,
+            LongSupplier nanoClock
     ) {
-        super(TreasuryPlugin.getInstance().scheduler());
+        super(scheduler);
+        this.scheduler = scheduler;
+        this.logger = logger;
         this.delay = delay;
+        this.reconcileDelayNanos = TimeUnit.SECONDS.toNanos(reconcileDelay);
+        this.refreshWindow = Math.max(1, refreshWindow);
         this.providerRef = providerRef;
+        this.nanoClock = nanoClock;
     }
 
     public void start() {
+        if (this.transactionSubscriber == null) {
+            this.transactionSubscriber = EventBus.INSTANCE
+                    .subscriptionFor(AccountTransactionEvent.class)
+                    .withPriority(EventPriority.LOW)
+                    .whenCalled(event -> {
+                        if (event.getAccount() instanceof PlayerAccount) {
+                            markPending(((PlayerAccount) event.getAccount()).identifier());
+                        }
+                    })
+                    .completeSubscription();
+            EventBus.INSTANCE.subscribe(this.transactionSubscriber);
+        }
         start(1, delay, TimeUnit.SECONDS);
     }
 
-    public @Nullable BigDecimal getBalance(UUID uuid, String currencyId) {
-        Collection<Map.Entry<String, BigDecimal>> collection = balances.get(uuid);
-        // optimise
-        if (collection == null || collection.isEmpty()) {
+    @Override
+    public void cancel() {
+        if (this.transactionSubscriber != null) {
+            this.transactionSubscriber.unregister();
+            this.transactionSubscriber = null;
+        }
+        super.cancel();
+    }
+
+    public @Nullable BigDecimal getBalance(@Nullable UUID uuid, String currencyId) {
+        if (uuid == null) {
             return null;
         }
-        return collection
-                .stream()
-                .filter(e -> e.getKey().equalsIgnoreCase(currencyId))
-                .findFirst()
-                .map(Map.Entry::getValue)
-                .orElse(null);
+        if (!balances.contains(uuid)) {
+            // not seen yet, e.g. a player who joined since the last reconciliation
+            unknown.add(uuid);
+            return null;
+        }
+        return balances.get(uuid, currencyId);
+    }
+
+    void setBalanceListener(@Nullable BalanceTable.Listener listener) {
+        balances.setListener(listener);
     }
 
     public Map<UUID, String> getPlayerDataNames() {
         return this.playerDataNames;
     }
 
-    public boolean available() {
-        return this.doneLatch.get().getCount() == 0;
+    @Nullable RefreshProgress getLastReconciliation() {
+        return this.lastReconciliation;
+    }
+
+    void markPending(UUID uuid) {
+        // keep the first mark, so that a busy account still settles
+        pending.putIfAbsent(uuid, nanoClock.getAsLong());
+        touch(uuid);
     }
 
-    public void await() throws InterruptedException {
-        this.doneLatch.get().await();
+    private void touch(UUID uuid) {
+        touched.put(uuid, generation.incrementAndGet());
     }
 
     @Override
@@ -81,101 +174,391 @@ public class BalanceCache extends Scheduler.ScheduledTask {
         if (provider == null) {
             return;
         }
-        balances.clear();
-        provider.retrievePlayerAccountIds().whenComplete((ids, ex) -> {
-            if (ex != null) {
-                TreasuryPlugin.getInstance().logger().error(
-                        "Error retrieving player account ids",
-                        ex
-                );
-                return;
+        long now = nanoClock.getAsLong();
+        if (reconciliation.isDone() && (provider != reconciledProvider
+                || now - lastReconcile >= reconcileDelayNanos)) {
+            reconciledProvider = provider;
+            lastReconcile = now;
+            reconciliation = reconcile(provider);
+        }
+        checkUnknown(provider, now);
+        refreshPending(provider, now);
+    }
+
+    // reads must never create accounts, so only players who turn out to have one get refreshed.
+    // the others get an empty row, so they're not checked again until the next reconciliation
+    private void checkUnknown(EconomyProvider provider, long now) {
+        if (unknown.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(unknown);
+        unknown.removeAll(ids);
+        join(FutureHelper.forEachBounded(ids, PAGE_SIZE, uuid -> provider
+                .hasAccount(AccountData.forPlayerAccount(uuid))
+                .thenAccept(exists -> {
+                    if (exists) {
+                        // nothing to settle, refresh it right away
+                        pending.putIfAbsent(uuid, now - SETTLE_NANOS);
+                    } else {
+                        // newer than running reconciliation pages, which didn't see it
+                        touch(uuid);
+                        balances.put(uuid, null);
+                    }
+                })));
+    }
+
+    // rescans every account, in the background of the pending refreshes
+    private CompletableFuture<?> reconcile(EconomyProvider provider) {
+        Reconciliation reconciliation = new Reconciliation(provider);
+        this.lastReconciliation = reconciliation.progress;
+        // the first page is asked for off the task, the rest from the provider's callbacks
+        scheduler.runAsync(reconciliation::signal);
+        return reconciliation.done;
+    }
+
+    private void refreshPending(EconomyProvider provider, long now) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Currency> currencies = provider.getCurrencies();
+        List<UUID> ids = new ArrayList<>();
+        for (Map.Entry<UUID, Long> entry : pending.entrySet()) {
+            if (now - entry.getValue() < SETTLE_NANOS) {
+                continue;
             }
-            List<CompletableFuture<PlayerAccount>> accountsFutures = new ArrayList<>(ids.size());
-            for (UUID uuid : ids) {
-                accountsFutures.add(provider.accountAccessor().player().withUniqueId(uuid).get());
-            }
-            FutureHelper
-                    .joinAndFilter(
-                            $ -> CompletableFuture.completedFuture(TriState.TRUE),
-                            accountsFutures
-                    )
-                    .whenComplete((accounts, ex1) -> {
-                        if (ex1 != null) {
-                            TreasuryPlugin.getInstance().logger().error(
-                                    "Error retrieving player accounts",
-                                    ex1
-                            );
-                            return;
-                        }
-                        // fill out names
-                        for (PlayerAccount account : accounts) {
-                            account.getName().ifPresent(accountName -> playerDataNames.put(account.identifier(), accountName));
-                        }
-                        this.proceed(0, new ArrayList<>(accounts), provider);
-                    });
-        });
-        CountDownLatch latch = this.doneLatch.get();
-        if (latch.getCount() != 0) {
-            try {
-                latch.await();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            // keep it pending if it was marked again in the meantime
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                // no longer pending, but still newer than running reconciliation pages
+                touch(entry.getKey());
+                ids.add(entry.getKey());
             }
+            if (ids.size() == PAGE_SIZE) {
+                join(refresh(provider, ids, currencies, UNCONDITIONAL));
+                ids = new ArrayList<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            join(refresh(provider, ids, currencies, UNCONDITIONAL));
         }
     }
 
-    private void proceed(
-            int currentIndex, List<PlayerAccount> players, EconomyProvider provider
+    private void join(CompletableFuture<?> future) {
+        // don't let refreshes overlap
+        try {
+            future.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.error(
+                    "An error occurred whilst updating balance cache",
+                    e
+            );
+        }
+    }
+
+    private CompletableFuture<Void> refresh(
+            EconomyProvider provider,
+            Collection<UUID> ids,
+            Set<Currency> currencies,
+            long readGeneration
     ) {
-        CountDownLatch latch = doneLatch.get();
-        if (latch.getCount() != 1) {
-            latch = new CountDownLatch(1);
-            doneLatch.set(latch);
-        }
-        if (currentIndex == players.size()) {
-            // java can be weird sometimes
-            this.doneLatch.get().countDown();
-            return;
+        try {
+            return refreshNow(provider, ids, currencies, readGeneration);
+        } catch (RuntimeException e) {
+            // a provider throwing rather than failing its future must neither kill the task nor
+            // stall a reconciliation
+            return FutureHelper.failedFuture(e);
         }
-        PlayerAccount account = players.get(currentIndex);
-        String name = account.getName().orElse(null);
-
-        List<CompletableFuture<Map.Entry<String, BigDecimal>>> balanceFutures = new ArrayList<>();
-        for (Currency currency : provider.getCurrencies()) {
-            balanceFutures.add(account
-                    .retrieveBalance(currency)
-                    .exceptionally(e -> {
-                        if (e instanceof TreasuryException) {
-                            TreasuryPlugin.getInstance().logger().error(
-                                    "Error whilst trying to update balance cache for " + (name != null
-                                            ? name
-                                            : account
-                                                    .identifier()
-                                                    .toString()) + ": " + e.getMessage());
-                            return null;
+    }
+
+    private CompletableFuture<Void> refreshNow(
+            EconomyProvider provider,
+            Collection<UUID> ids,
+            Set<Currency> currencies,
+            long readGeneration
+    ) {
+        // retrieving an account creates it, but these all come from the provider's cursor, its
+        // transaction events or a successful hasAccount
+        return retrieveMissingNames(provider, ids)
+                .thenCompose($ -> provider.retrieveBalances(ids, currencies))
+                .thenCompose(retrieved -> {
+                    List<UUID> missing = new ArrayList<>();
+                    for (UUID uuid : ids) {
+                        Map<String, BigDecimal> row = retrieved.get(uuid);
+                        if (row == null) {
+                            missing.add(uuid);
+                        } else {
+                            put(uuid, row, readGeneration);
                         }
-                        throw new RuntimeException(e);
-                    })
-                    .thenApply(balance -> new AbstractMap.SimpleImmutableEntry<>(
-                            currency.getIdentifier(),
-                            balance
-                    )));
-        }
-
-        FutureHelper
-                .joinAndFilter(bal -> CompletableFuture.completedFuture(TriState.fromBoolean(bal.getValue() != null && !bal
-                        .getValue()
-                        .equals(BigDecimal.ZERO))), balanceFutures)
-                .whenComplete((balances, ex1) -> {
-                    if (ex1 != null) {
-                        throw new RuntimeException(
+                    }
+                    // left out for having no account, or for failing to be retrieved. the
+                    // latter keep their previous row rather than dropping out of baltop
+                    return FutureHelper.forEachBounded(missing, PAGE_SIZE, uuid -> provider
+                            .hasAccount(AccountData.forPlayerAccount(uuid))
+                            .thenAccept(exists -> {
+                                if (!exists) {
+                                    put(uuid, null, readGeneration);
+                                }
+                            }));
+                });
+    }
+
+    private void put(UUID uuid, @Nullable Map<String, BigDecimal> row, long readGeneration) {
+        // a pending refresh of an account marked before or after the reconciliation page was
+        // asked for reads more recent balances than the page did
+        if (readGeneration != UNCONDITIONAL && (pending.containsKey(uuid)
+                || touched.getOrDefault(uuid, 0L) > readGeneration)) {
+            return;
+        }
+        balances.put(uuid, row);
+    }
+
+    private CompletableFuture<Void> retrieveMissingNames(
+            EconomyProvider provider, Collection<UUID> ids
+    ) {
+        List<CompletableFuture<PlayerAccount>> accountsFutures = new ArrayList<>();
+        for (UUID uuid : ids) {
+            if (!playerDataNames.containsKey(uuid)) {
+                // a name is not worth failing the page over
+                accountsFutures.add(provider
+                        .accountAccessor()
+                        .player()
+                        .withUniqueId(uuid)
+                        .get()
+                        .exceptionally($ -> null));
+            }
+        }
+        if (accountsFutures.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return FutureHelper
+                .joinAndFilter(account -> CompletableFuture.completedFuture(account != null
+                        ? TriState.TRUE
+                        : TriState.FALSE), accountsFutures)
+                .thenAccept(accounts -> {
+                    // fill out names
+                    for (PlayerAccount account : accounts) {
+                        account.getName().ifPresent(accountName -> playerDataNames.put(account.identifier(), accountName));
+                    }
+                });
+    }
+
+    // a full rescan. up to refreshWindow accounts are refreshed at once, the next page is only
+    // asked for once there's room for it. pages are chained through callbacks, so no thread
+    // waits on the provider, and drained in a loop so that futures completing right away can't
+    // grow the stack
+    private final class Reconciliation {
+
+        private final EconomyProvider provider;
+        private final RefreshProgress progress = new RefreshProgress();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        // rows of accounts touched since are newer than the reconciliation, even if not seen
+        private final long startGeneration = generation.get();
+        private final int pageSize = Math.min(PAGE_SIZE, refreshWindow);
+        // amount of signals not yet drained, only the signal making it non-zero drains
+        private final AtomicInteger signals = new AtomicInteger();
+        private final AtomicInteger accountsInFlight = new AtomicInteger();
+        private final AtomicInteger failedPages = new AtomicInteger();
+        private Set<Currency> currencies;
+        private AccountIdCursor<UUID> cursor;
+        private volatile boolean fetching;
+        private volatile boolean exhausted;
+        private volatile Throwable failure;
+
+        private Reconciliation(EconomyProvider provider) {
+            this.provider = provider;
+        }
+
+        void signal() {
+            if (signals.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                drain();
+            } while (signals.decrementAndGet() != 0);
+        }
+
+        private void drain() {
+            if (done.isDone()) {
+                return;
+            }
+            if (cursor == null) {
+                try {
+                    currencies = provider.getCurrencies();
+                    cursor = provider.playerAccountIdCursor();
+                } catch (RuntimeException e) {
+                    failure = e;
+                    finish();
+                    return;
+                }
+            }
+            if (fetching) {
+                return;
+            }
+            if (exhausted) {
+                if (accountsInFlight.get() == 0) {
+                    finish();
+                }
+                return;
+            }
+            if (accountsInFlight.get() + pageSize > refreshWindow) {
+                return;
+            }
+            fetching = true;
+            CompletableFuture<List<UUID>> next;
+            try {
+                next = cursor.next(pageSize);
+            } catch (RuntimeException e) {
+                next = FutureHelper.failedFuture(e);
+            }
+            next.whenComplete(this::onPage);
+        }
+
+        private void onPage(List<UUID> ids, Throwable ex) {
+            if (ex != null) {
+                // without every id, deleted accounts can't be told apart
+                failure = ex;
+                exhausted = true;
+            } else if (ids.isEmpty()) {
+                exhausted = true;
+            } else {
+                seen.addAll(ids);
+                accountsInFlight.addAndGet(ids.size());
+                progress.inFlight.incrementAndGet();
+                long readGeneration = generation.get();
+                refresh(provider, ids, currencies, readGeneration).whenComplete(($, refreshEx) -> {
+                    if (refreshEx != null) {
+                        // the page keeps its previous balances, the rest of them go on
+                        failedPages.incrementAndGet();
+                        logger.error(
                                 "An error occurred whilst updating balance cache",
-                                ex1
+                                refreshEx
                         );
+                    } else {
+                        progress.refreshed.addAndGet(ids.size());
                     }
-                    this.balances.putAll(account.identifier(), balances);
-                    proceed(currentIndex + 1, players, provider);
+                    progress.inFlight.decrementAndGet();
+                    accountsInFlight.addAndGet(-ids.size());
+                    signal();
                 });
+            }
+            fetching = false;
+            signal();
+        }
+
+        private void finish() {
+            if (cursor != null) {
+                cursor.close();
+            }
+            progress.finishedAt = System.nanoTime();
+            long current = generation.get();
+            Throwable ex = failure;
+            if (ex == null) {
+                // drop deleted accounts, and those of a previous provider. accounts created
+                // after the cursor went past them were touched before their row was written
+                balances.retainIf(uuid -> seen.contains(uuid)
+                        || touched.getOrDefault(uuid, 0L) > startGeneration);
+            }
+            // every page is done, those of later reconciliations are asked for at newer
+            // generations
+            touched.values().removeIf(touchedAt -> touchedAt <= current);
+            if (ex != null) {
+                logger.error(
+                        "An error occurred whilst updating balance cache",
+                        ex
+                );
+                done.completeExceptionally(ex);
+                return;
+            }
+            int failed = failedPages.get();
+            progress.completed = failed == 0;
+            String summary = String.format(Locale.ROOT,
+                    "Reconciled the balance cache: %d accounts in %dms (%.1f accounts/s)",
+                    progress.refreshedAccounts(),
+                    progress.elapsedMillis(),
+                    progress.accountsPerSecond()
+            );
+            if (failed == 0) {
+                logger.info(summary);
+            } else {
+                logger.warn(summary + ", " + failed + " pages failed and kept their balances");
+            }
+            done.complete(null);
+        }
+
+    }
+
+    /**
+     * Progress of a full reconciliation of the balance cache, logged once it's done.
+     */
+    static final class RefreshProgress {
+
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong refreshed = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long finishedAt;
+        private volatile boolean completed;
+
+        RefreshProgress() {
+        }
+
+        /**
+         * Returns the amount of accounts refreshed so far.
+         *
+         * @return refreshed accounts
+         */
+        long refreshedAccounts() {
+            return refreshed.get();
+        }
+
+        /**
+         * Returns the amount of pages of accounts being refreshed right now.
+         *
+         * @return pages in flight
+         */
+        int pagesInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Returns whether the reconciliation is over, whether it completed or failed.
+         *
+         * @return whether finished
+         */
+        boolean finished() {
+            return finishedAt != 0;
+        }
+
+        /**
+         * Returns whether the reconciliation went through every account without errors. Pages
+         * of accounts which failed to refresh keep their previous balances.
+         *
+         * @return whether completed
+         */
+        boolean completed() {
+            return completed;
+        }
+
+        /**
+         * Returns how long the reconciliation took, or is taking so far.
+         *
+         * @return elapsed millis
+         */
+        long elapsedMillis() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+        }
+
+        /**
+         * Returns the average amount of accounts refreshed per second.
+         *
+         * @return throughput
+         */
+        double accountsPerSecond() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            long elapsed = Math.max(1, end - startedAt);
+            return refreshed.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+
     }
 
 }
@@ -0,0 +1,273 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Ranks the balances of player accounts in a single currency, from the highest to the lowest.
+ * Equal balances are ordered by account id, so that every account has a distinct, stable rank.
+ * <p>Entries are held in a treap where every node knows the size of its subtree: updates,
+ * lookups by position and lookups of the rank of an account all take logarithmic time.
+ */
+final class BalanceRanking {
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by the write lock
+    private long seed = 0x9E3779B97F4A7C15L;
+    private Entry root;
+
+    private int nextPriority() {
+        // xorshift, good enough to keep the treap balanced
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) seed;
+    }
+
+    /**
+     * Sets the balance of the specified account, removing it from the ranking if the balance is
+     * null or zero.
+     *
+     * @param uuid    account id
+     * @param balance balance
+     */
+    void update(@NotNull UUID uuid, @Nullable BigDecimal balance) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            Entry previous = entries.get(uuid);
+            if (previous != null) {
+                if (balance != null && previous.balance.compareTo(balance) == 0) {
+                    return;
+                }
+                root = remove(root, previous);
+                entries.remove(uuid);
+            }
+            if (balance == null || balance.signum() == 0) {
+                return;
+            }
+            Entry entry = new Entry(uuid, balance, nextPriority());
+            root = insert(root, entry);
+            entries.put(uuid, entry);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specified account from the ranking.
+     *
+     * @param uuid account id
+     */
+    void remove(@NotNull UUID uuid) {
+        update(uuid, null);
+    }
+
+    /**
+     * Returns the amount of ranked accounts.
+     *
+     * @return size
+     */
+    int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return size(root);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the entry at the specified position, 0 being the highest balance.
+     *
+     * @param position position
+     * @return entry or null if there are not that many ranked accounts
+     */
+    @Nullable
+    Entry get(int position) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (position < 0 || position >= size(root)) {
+                return null;
+            }
+            Entry current = root;
+            while (true) {
+                int leftSize = size(current.left);
+                if (position < leftSize) {
+                    current = current.left;
+                } else if (position > leftSize) {
+                    position -= leftSize + 1;
+                    current = current.right;
+                } else {
+                    return current;
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the position of the specified account, 0 being the highest balance.
+     *
+     * @param uuid account id
+     * @return position or -1 if the account is not ranked
+     */
+    int positionOf(@NotNull UUID uuid) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Entry target = entries.get(uuid);
+            if (target == null) {
+                return -1;
+            }
+            int position = 0;
+            Entry current = root;
+            while (current != null) {
+                int compare = compare(target, current);
+                if (compare < 0) {
+                    current = current.left;
+                } else if (compare > 0) {
+                    position += size(current.left) + 1;
+                    current = current.right;
+                } else {
+                    return position + size(current.left);
+                }
+            }
+            throw new IllegalStateException("Ranked account is missing from the tree");
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static int compare(@NotNull Entry a, @NotNull Entry b) {
+        int compare = b.balance.compareTo(a.balance);
+        if (compare != 0) {
+            return compare;
+        }
+        return a.uuid.compareTo(b.uuid);
+    }
+
+    private static int size(@Nullable Entry entry) {
+        return entry == null ? 0 : entry.size;
+    }
+
+    @NotNull
+    private static Entry update(@NotNull Entry entry) {
+        entry.size = size(entry.left) + size(entry.right) + 1;
+        return entry;
+    }
+
+    @NotNull
+    private static Entry insert(@Nullable Entry node, @NotNull Entry entry) {
+        if (node == null) {
+            return entry;
+        }
+        if (compare(entry, node) < 0) {
+            node.left = insert(node.left, entry);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, entry);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        return update(node);
+    }
+
+    @Nullable
+    private static Entry remove(@Nullable Entry node, @NotNull Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int compare = compare(entry, node);
+        if (compare < 0) {
+            node.left = remove(node.left, entry);
+        } else if (compare > 0) {
+            node.right = remove(node.right, entry);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+
+    @Nullable
+    private static Entry merge(@Nullable Entry left, @Nullable Entry right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    @NotNull
+    private static Entry rotateRight(@NotNull Entry node) {
+        Entry left = node.left;
+        node.left = left.right;
+        left.right = update(node);
+        return update(left);
+    }
+
+    @NotNull
+    private static Entry rotateLeft(@NotNull Entry node) {
+        Entry right = node.right;
+        node.right = right.left;
+        right.left = update(node);
+        return update(right);
+    }
+
+    /**
+     * A ranked account.
+     */
+    static final class Entry {
+
+        private final UUID uuid;
+        private final BigDecimal balance;
+        private final int priority;
+        // guarded by the lock of the ranking
+        private Entry left;
+        private Entry right;
+        private int size = 1;
+
+        private Entry(@NotNull UUID uuid, @NotNull BigDecimal balance, int priority) {
+            this.uuid = uuid;
+            this.balance = balance;
+            this.priority = priority;
+        }
+
+        @NotNull
+        UUID uuid() {
+            return uuid;
+        }
+
+        @NotNull
+        BigDecimal balance() {
+            return balance;
+        }
+
+    }
+
+}
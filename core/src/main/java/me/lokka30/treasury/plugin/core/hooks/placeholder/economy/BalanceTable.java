@@ -0,0 +1,202 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds the cached balances of player accounts. Every currency gets a dense index, and every
+ * account a row of balances by currency index. Rows are never modified once published, they're
+ * replaced as a whole, so reads take no lock and never see a half written row.
+ */
+final class BalanceTable {
+
+    private static final BigDecimal[] EMPTY = new BigDecimal[0];
+
+    private final Map<UUID, BigDecimal[]> rows = new ConcurrentHashMap<>();
+    // replaced as a whole when a currency is seen for the first time, which is rare
+    private volatile Map<String, Integer> indexes = new HashMap<>();
+    private volatile Map<String, Integer> lowerCaseIndexes = new HashMap<>();
+    @Nullable
+    private volatile Listener listener;
+
+    private int index(@NotNull String currencyId) {
+        Integer index = indexes.get(currencyId);
+        if (index != null) {
+            return index;
+        }
+        return addIndex(currencyId);
+    }
+
+    private synchronized int addIndex(@NotNull String currencyId) {
+        Integer index = indexes.get(currencyId);
+        if (index != null) {
+            return index;
+        }
+        int next = indexes.size();
+        Map<String, Integer> newIndexes = new HashMap<>(indexes);
+        newIndexes.put(currencyId, next);
+        Map<String, Integer> newLowerCaseIndexes = new HashMap<>(lowerCaseIndexes);
+        newLowerCaseIndexes.putIfAbsent(currencyId.toLowerCase(Locale.ROOT), next);
+        lowerCaseIndexes = newLowerCaseIndexes;
+        indexes = newIndexes;
+        return next;
+    }
+
+    /**
+     * Returns whether a row is held for the specified account.
+     *
+     * @param uuid account id
+     * @return whether a row is held
+     */
+    boolean contains(@NotNull UUID uuid) {
+        return rows.containsKey(uuid);
+    }
+
+    /**
+     * Returns the held balance of the specified account in the specified currency, with the
+     * currency id matched ignoring case if there's no exact match.
+     *
+     * @param uuid       account id
+     * @param currencyId currency id
+     * @return balance, or null if none is held or if the balance is zero
+     */
+    @Nullable
+    BigDecimal get(@NotNull UUID uuid, @NotNull String currencyId) {
+        BigDecimal[] row = rows.get(uuid);
+        if (row == null || row.length == 0) {
+            return null;
+        }
+        Integer index = indexes.get(currencyId);
+        if (index == null) {
+            index = lowerCaseIndexes.get(currencyId.toLowerCase(Locale.ROOT));
+            if (index == null) {
+                return null;
+            }
+        }
+        return index < row.length ? row[index] : null;
+    }
+
+    /**
+     * Replaces the row of the specified account with the specified balances. Zero balances are
+     * not held, they're the same as no balance to readers.
+     *
+     * @param uuid     account id
+     * @param balances balances by currency id, or null if the account has none
+     */
+    void put(@NotNull UUID uuid, @Nullable Map<String, BigDecimal> balances) {
+        BigDecimal[] row = EMPTY;
+        Map<String, BigDecimal> held = null;
+        if (balances != null) {
+            for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+                BigDecimal balance = entry.getValue();
+                if (balance == null || balance.signum() == 0) {
+                    continue;
+                }
+                int index = index(entry.getKey());
+                if (index >= row.length) {
+                    BigDecimal[] grown = new BigDecimal[indexes.size()];
+                    System.arraycopy(row, 0, grown, 0, row.length);
+                    row = grown;
+                }
+                row[index] = balance;
+                if (held == null) {
+                    held = new HashMap<>();
+                }
+                held.put(entry.getKey(), balance);
+            }
+        }
+        BigDecimal[] published = row;
+        Map<String, BigDecimal> changed = held;
+        // notified while holding the bin lock of the row, so notifications of a row are in order
+        rows.compute(uuid, ($, previous) -> {
+            Listener listener = this.listener;
+            if (listener != null) {
+                listener.onRow(uuid, changed);
+            }
+            return published;
+        });
+    }
+
+    /**
+     * Removes the rows of the accounts which don't match the specified predicate. The predicate
+     * is tested while holding the lock of the row, so a row put after the predicate started to
+     * match is never removed.
+     *
+     * @param keep whether to keep the row of an account
+     */
+    void retainIf(@NotNull Predicate<UUID> keep) {
+        for (UUID uuid : rows.keySet()) {
+            rows.computeIfPresent(uuid, ($, previous) -> {
+                if (keep.test(uuid)) {
+                    return previous;
+                }
+                Listener listener = this.listener;
+                if (listener != null) {
+                    listener.onRow(uuid, null);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Sets the listener notified of every row change, and notifies it of every held row.
+     *
+     * @param listener listener or null
+     */
+    void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+        if (listener == null) {
+            return;
+        }
+        for (UUID uuid : rows.keySet()) {
+            rows.computeIfPresent(uuid, ($, row) -> {
+                listener.onRow(uuid, toMap(row));
+                return row;
+            });
+        }
+    }
+
+    @Nullable
+    private Map<String, BigDecimal> toMap(@NotNull BigDecimal[] row) {
+        Map<String, BigDecimal> ret = null;
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            int index = entry.getValue();
+            if (index < row.length && row[index] != null) {
+                if (ret == null) {
+                    ret = new HashMap<>();
+                }
+                ret.put(entry.getKey(), row[index]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Listener of the row changes of a {@link BalanceTable}.
+     */
+    interface Listener {
+
+        /**
+         * Called when the row of the specified account changes.
+         *
+         * @param uuid     account id
+         * @param balances the non-zero balances by currency id, or null if there are none or if
+         *                 the row was removed
+         */
+        void onRow(@NotNull UUID uuid, @Nullable Map<String, BigDecimal> balances);
+
+    }
+
+}
@@ -13,12 +13,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import me.lokka30.treasury.api.common.event.EventBus;
 import me.lokka30.treasury.api.common.event.EventPriority;
+import me.lokka30.treasury.api.common.event.EventSubscriber;
 import me.lokka30.treasury.api.common.service.Service;
 import me.lokka30.treasury.api.common.service.ServiceRegistry;
 import me.lokka30.treasury.api.common.service.event.ServiceRegisteredEvent;
 import me.lokka30.treasury.api.common.service.event.ServiceUnregisteredEvent;
 import me.lokka30.treasury.api.economy.EconomyProvider;
 import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.plugin.core.TreasuryPlugin;
 import me.lokka30.treasury.plugin.core.hooks.PlayerData;
 import me.lokka30.treasury.plugin.core.hooks.placeholder.BasicPlaceholderExpansion;
 import me.lokka30.treasury.plugin.core.hooks.placeholder.SpecificPlaceholderHook;
@@ -103,6 +105,8 @@ public class EconomyHook implements SpecificPlaceholderHook {
     private final String q;
     private BalTop baltop;
     private BalanceCache balanceCache;
+    private EventSubscriber<ServiceRegisteredEvent> registeredSubscriber;
+    private EventSubscriber<ServiceUnregisteredEvent> unregisteredSubscriber;
 
     public EconomyHook(@NotNull BasicPlaceholderExpansion expansion) {
         this.providerRef = new AtomicReference<>();
@@ -129,33 +133,37 @@ public class EconomyHook implements SpecificPlaceholderHook {
         handleServiceChange();
 
         EventBus eventBus = EventBus.INSTANCE;
-        eventBus.subscribe(eventBus.subscriptionFor(ServiceRegisteredEvent.class).withPriority(
+        this.registeredSubscriber = eventBus.subscriptionFor(ServiceRegisteredEvent.class).withPriority(
                 EventPriority.LOW).whenCalled(event -> {
             if (!(event.getService().get() instanceof EconomyProvider)) {
                 return;
             }
             handleServiceChange();
-        }).completeSubscription());
-        eventBus.subscribe(eventBus.subscriptionFor(ServiceUnregisteredEvent.class).withPriority(
+        }).completeSubscription();
+        eventBus.subscribe(this.registeredSubscriber);
+        this.unregisteredSubscriber = eventBus.subscriptionFor(ServiceUnregisteredEvent.class).withPriority(
                 EventPriority.LOW).whenCalled(event -> {
             if (!(event.getService().get() instanceof EconomyProvider)) {
                 return;
             }
             handleServiceChange();
-        }).completeSubscription());
-
-        this.balanceCache = new BalanceCache(expansion
-                .getPlaceholdersConfig()
-                .getInt("balance.cache_check_delay", 60), providerRef);
+        }).completeSubscription();
+        eventBus.subscribe(this.unregisteredSubscriber);
+
+        this.balanceCache = new BalanceCache(TreasuryPlugin.getInstance().scheduler(),
+                TreasuryPlugin.getInstance().logger(),
+                expansion.getPlaceholdersConfig().getInt("balance.cache_check_delay", 5),
+                expansion.getPlaceholdersConfig().getInt("balance.reconcile_delay", 1800),
+                expansion.getPlaceholdersConfig().getInt("balance.refresh_window_accounts", 4000),
+                providerRef
+        );
         this.balanceCache.start();
 
         this.baltop = new BalTop(expansion
                 .getPlaceholdersConfig()
                 .getBoolean("baltop.enabled", false),
                 expansion.getPlaceholdersConfig().getInt("baltop.cache_size", 100),
-                expansion.getPlaceholdersConfig().getInt("baltop.check_delay", 30),
-                balanceCache,
-                providerRef
+                balanceCache
         );
         if (this.baltop.isEnabled()) {
             this.baltop.start();
@@ -175,13 +183,18 @@ public class EconomyHook implements SpecificPlaceholderHook {
 
     @Override
     public void clear() {
-        // Cancel baltop task.
+        // Unsubscribe service listeners, setup subscribes them again.
+        if (this.registeredSubscriber != null) {
+            this.registeredSubscriber.unregister();
+            this.registeredSubscriber = null;
+        }
+        if (this.unregisteredSubscriber != null) {
+            this.unregisteredSubscriber.unregister();
+            this.unregisteredSubscriber = null;
+        }
+        // Stop keeping baltop up to date.
         if (this.baltop != null) {
-            try {
-                this.baltop.cancel();
-            } catch (IllegalStateException ignored) {
-                // Ignore scheduler having failed to start task.
-            }
+            this.baltop.cancel();
         }
         // Cancel balance cache task.
         if (this.balanceCache != null) {
@@ -223,9 +236,9 @@ public class EconomyHook implements SpecificPlaceholderHook {
         }
 
         if (param.startsWith("top_rank_")) {
-            return baltop.getPositionAsString(param.replace("top_rank_", ""), player.name());
+            return baltop.getPositionAsString(param.replace("top_rank_", ""), player.uniqueId());
         } else if (param.equalsIgnoreCase("top_rank")) {
-            return baltop.getPositionAsString(provider.getPrimaryCurrencyId(), player.name());
+            return baltop.getPositionAsString(provider.getPrimaryCurrencyId(), player.uniqueId());
         }
 
         // Delegate balance request.
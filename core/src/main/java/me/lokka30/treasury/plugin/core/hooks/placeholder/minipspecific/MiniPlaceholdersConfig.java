@@ -30,11 +30,14 @@ public class MiniPlaceholdersConfig implements PlaceholdersConfig {
     @Key("baltop.cache_size")
     private int baltopCacheSize = 100;
 
-    @Key("baltop.check_delay")
-    private int baltopCheckDelay = 30;
-
     @Key("balance.cache_check_delay")
-    private int balanceCheckDelay = 60;
+    private int balanceCheckDelay = 5;
+
+    @Key("balance.reconcile_delay")
+    private int balanceReconcileDelay = 1800;
+
+    @Key("balance.refresh_window_accounts")
+    private int balanceRefreshWindowAccounts = 4000;
 
     @Key("formatting.thousands")
     private String thousandsFormatting = "k";
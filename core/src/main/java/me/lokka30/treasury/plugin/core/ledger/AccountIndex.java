@@ -0,0 +1,78 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.util.Arrays;
+
+/**
+ * The records of a single account, sorted by their timestamp. Each record is referenced by its
+ * position: the segment number in the high int and the offset within the segment in the low
+ * int. Guarded by the journal's lock.
+ */
+final class AccountIndex {
+
+    private long[] micros = new long[8];
+    private long[] positions = new long[8];
+    private int size;
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static int segment(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+
+    void add(long timestamp, long position) {
+        if (size == micros.length) {
+            micros = Arrays.copyOf(micros, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        // timestamps come in mostly in order, only out of order ones have to be moved
+        int index = size;
+        if (size != 0 && micros[size - 1] > timestamp) {
+            index = upperBound(timestamp);
+            System.arraycopy(micros, index, micros, index + 1, size - index);
+            System.arraycopy(positions, index, positions, index + 1, size - index);
+        }
+        micros[index] = timestamp;
+        positions[index] = position;
+        size++;
+    }
+
+    /**
+     * Returns the index of the first record with a timestamp after the specified one.
+     */
+    int upperBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (micros[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    long micros(int index) {
+        return micros[index];
+    }
+
+    long position(int index) {
+        return positions[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+}
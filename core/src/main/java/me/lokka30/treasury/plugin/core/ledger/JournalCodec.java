@@ -0,0 +1,333 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The binary encoding of the records of a {@link TransactionJournal}.
+ * <p>On disk, every record is framed as its payload length and the CRC32 of its payload, both
+ * ints, followed by the payload. The payload starts with the record kind:
+ * <ul>
+ *     <li>a dictionary record holds an entry id and its string value;</li>
+ *     <li>a transaction record holds the account, the timestamp in epoch micros, the currency
+ *     id, the type, the importance, the amount as a scaled long (falling back to the bytes of
+ *     the unscaled value if it doesn't fit), the cause and the optional reason. Currency
+ *     identifiers, namespaced keys and the identifiers of other string causes than the server
+ *     are stored as dictionary ids.</li>
+ * </ul>
+ */
+final class JournalCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte RECORD_DICTIONARY = 0;
+    static final byte RECORD_TRANSACTION = 1;
+
+    private static final byte ACCOUNT_PLAYER = 0;
+    private static final byte ACCOUNT_NON_PLAYER = 1;
+
+    private static final byte AMOUNT_LONG = 0;
+    private static final byte AMOUNT_BIG = 1;
+
+    private static final byte CAUSE_SERVER = 0;
+    private static final byte CAUSE_PLAYER = 1;
+    private static final byte CAUSE_PLUGIN = 2;
+    private static final byte CAUSE_NON_PLAYER = 3;
+    private static final byte CAUSE_STRING = 4;
+
+    private static final EconomyTransactionType[] TYPES = EconomyTransactionType.values();
+    private static final EconomyTransactionImportance[] IMPORTANCES = EconomyTransactionImportance.values();
+
+    private final RecordOutput output = new RecordOutput();
+    private final DataOutputStream data = new DataOutputStream(output);
+
+    /**
+     * Returns the buffer holding the last encoded payload.
+     */
+    @NotNull
+    byte[] buffer() {
+        return output.buffer();
+    }
+
+    /**
+     * Returns the length of the last encoded payload.
+     */
+    int size() {
+        return output.size();
+    }
+
+    void encodeDictionary(int id, @NotNull String value) {
+        output.reset();
+        try {
+            data.writeByte(RECORD_DICTIONARY);
+            data.writeInt(id);
+            data.writeUTF(value);
+        } catch (UTFDataFormatException e) {
+            throw new IllegalArgumentException("Dictionary value is too long", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes a transaction record. The dictionary ids are resolved through {@code ids}, which
+     * may write dictionary records, hence those have to be resolved before this payload is
+     * started.
+     */
+    void encodeTransaction(
+            @NotNull Object account,
+            @NotNull EconomyTransaction transaction,
+            @NotNull ToIntFunction<String> ids
+    ) {
+        int accountId = account instanceof NamespacedKey ? ids.applyAsInt(account.toString()) : -1;
+        int currencyId = ids.applyAsInt(transaction.getCurrencyId());
+        Cause<?> cause = transaction.getCause();
+        byte causeKind = causeKind(cause);
+        int causeId = causeKind == CAUSE_PLUGIN
+                || causeKind == CAUSE_NON_PLAYER
+                || causeKind == CAUSE_STRING
+                ? ids.applyAsInt(cause.identifier().toString())
+                : -1;
+
+        output.reset();
+        try {
+            data.writeByte(RECORD_TRANSACTION);
+            if (account instanceof UUID) {
+                data.writeByte(ACCOUNT_PLAYER);
+                writeUuid((UUID) account);
+            } else {
+                data.writeByte(ACCOUNT_NON_PLAYER);
+                data.writeInt(accountId);
+            }
+            data.writeLong(toEpochMicros(transaction.getTimestamp()));
+            data.writeInt(currencyId);
+            data.writeByte(transaction.getType().ordinal());
+            data.writeByte(transaction.getImportance().ordinal());
+            writeAmount(transaction.getAmount());
+            data.writeByte(causeKind);
+            if (causeKind == CAUSE_PLAYER) {
+                writeUuid((UUID) cause.identifier());
+            } else if (causeId != -1) {
+                data.writeInt(causeId);
+            }
+            String reason = transaction.getReason().orElse(null);
+            data.writeBoolean(reason != null);
+            if (reason != null) {
+                data.writeUTF(reason);
+            }
+        } catch (UTFDataFormatException e) {
+            throw new IllegalArgumentException("Transaction reason is too long", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte causeKind(@NotNull Cause<?> cause) {
+        if (cause instanceof Cause.Player) {
+            return CAUSE_PLAYER;
+        }
+        if (cause instanceof Cause.Plugin) {
+            return CAUSE_PLUGIN;
+        }
+        if (cause instanceof Cause.NonPlayer) {
+            return CAUSE_NON_PLAYER;
+        }
+        if (cause.identifier() instanceof UUID) {
+            // see Cause.Player#equals
+            return CAUSE_PLAYER;
+        }
+        if (cause.identifier() instanceof String) {
+            return Cause.SERVER.equals(cause) ? CAUSE_SERVER : CAUSE_STRING;
+        }
+        throw new IllegalArgumentException("Unsupported cause " + cause);
+    }
+
+    private void writeUuid(@NotNull UUID uuid) throws IOException {
+        data.writeLong(uuid.getMostSignificantBits());
+        data.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private void writeAmount(@NotNull BigDecimal amount) throws IOException {
+        BigInteger unscaled = amount.unscaledValue();
+        int scale = amount.scale();
+        if (unscaled.bitLength() < Long.SIZE && scale >= Byte.MIN_VALUE && scale <= Byte.MAX_VALUE) {
+            data.writeByte(AMOUNT_LONG);
+            data.writeByte(scale);
+            data.writeLong(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Transaction amount is too large");
+            }
+            data.writeByte(AMOUNT_BIG);
+            data.writeInt(scale);
+            data.writeShort(bytes.length);
+            data.write(bytes);
+        }
+    }
+
+    static long toEpochMicros(@NotNull Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L),
+                instant.getNano() / 1_000
+        );
+    }
+
+    @NotNull
+    static Instant fromEpochMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                Math.floorMod(micros, 1_000_000L) * 1_000
+        );
+    }
+
+    @NotNull
+    static DataInputStream input(@NotNull byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Reads the account of a transaction record, right after its kind.
+     *
+     * @return the player {@link UUID} or the non-player {@link NamespacedKey}
+     */
+    @NotNull
+    static Object readAccount(
+            @NotNull DataInputStream in, @NotNull JournalDictionary dictionary
+    ) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case ACCOUNT_PLAYER:
+                return readUuid(in);
+            case ACCOUNT_NON_PLAYER:
+                return dictionary.key(in.readInt());
+            default:
+                throw new IOException("Unknown account kind " + kind);
+        }
+    }
+
+    /**
+     * Decodes a whole transaction record.
+     */
+    @NotNull
+    static EconomyTransaction decodeTransaction(
+            @NotNull byte[] payload, @NotNull JournalDictionary dictionary
+    ) throws IOException {
+        DataInputStream in = input(payload);
+        if (in.readByte() != RECORD_TRANSACTION) {
+            throw new IOException("Not a transaction record");
+        }
+        readAccount(in, dictionary);
+        Instant timestamp = fromEpochMicros(in.readLong());
+        String currencyId = dictionary.value(in.readInt());
+        EconomyTransactionType type = TYPES[in.readUnsignedByte()];
+        EconomyTransactionImportance importance = IMPORTANCES[in.readUnsignedByte()];
+        BigDecimal amount = readAmount(in);
+        Cause<?> cause = readCause(in, dictionary);
+        String reason = in.readBoolean() ? in.readUTF() : null;
+        return new EconomyTransaction(currencyId,
+                cause,
+                timestamp,
+                type,
+                reason,
+                amount,
+                importance
+        );
+    }
+
+    @NotNull
+    private static UUID readUuid(@NotNull DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    @NotNull
+    private static BigDecimal readAmount(@NotNull DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case AMOUNT_LONG:
+                int scale = in.readByte();
+                return BigDecimal.valueOf(in.readLong(), scale);
+            case AMOUNT_BIG:
+                int bigScale = in.readInt();
+                byte[] bytes = new byte[in.readUnsignedShort()];
+                in.readFully(bytes);
+                return new BigDecimal(new BigInteger(bytes), bigScale);
+            default:
+                throw new IOException("Unknown amount kind " + kind);
+        }
+    }
+
+    @NotNull
+    private static Cause<?> readCause(
+            @NotNull DataInputStream in, @NotNull JournalDictionary dictionary
+    ) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case CAUSE_SERVER:
+                return Cause.SERVER;
+            case CAUSE_PLAYER:
+                return Cause.player(readUuid(in));
+            case CAUSE_PLUGIN:
+                return Cause.plugin(dictionary.key(in.readInt()));
+            case CAUSE_NON_PLAYER:
+                return Cause.nonPlayer(dictionary.key(in.readInt()));
+            case CAUSE_STRING:
+                return new StringCause(dictionary.value(in.readInt()));
+            default:
+                throw new IOException("Unknown cause kind " + kind);
+        }
+    }
+
+    // a cause identified by a string, other than the server
+    private static final class StringCause implements Cause<String> {
+
+        private final String identifier;
+
+        StringCause(@NotNull String identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public @NotNull String identifier() {
+            return identifier;
+        }
+
+        @Override
+        public boolean equals(@NotNull Cause<?> other) {
+            return identifier.equals(other.identifier());
+        }
+
+    }
+
+    private static final class RecordOutput extends ByteArrayOutputStream {
+
+        RecordOutput() {
+            super(256);
+        }
+
+        @NotNull
+        byte[] buffer() {
+            return buf;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Maps the strings repeated across records, such as currency identifiers and namespaced keys, to
+ * small integer ids, so that records only hold the ids. Every entry is written to the journal as
+ * a record of its own, before the first record using it. Guarded by the journal's lock.
+ */
+final class JournalDictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    // parsed lazily, as parsing namespaced keys isn't free
+    private final List<NamespacedKey> keys = new ArrayList<>();
+
+    @Nullable
+    Integer find(@NotNull String value) {
+        return ids.get(value);
+    }
+
+    int add(@NotNull String value) {
+        int id = values.size();
+        ids.put(value, id);
+        values.add(value);
+        keys.add(null);
+        return id;
+    }
+
+    /**
+     * Adds an entry read back from the journal. Returns false if it's not the next expected
+     * entry, meaning the journal is damaged.
+     */
+    boolean restore(int id, @NotNull String value) {
+        if (id != values.size() || ids.containsKey(value)) {
+            return false;
+        }
+        add(value);
+        return true;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    @NotNull
+    String value(int id) {
+        if (id < 0 || id >= values.size()) {
+            throw new IllegalStateException("Unknown dictionary id " + id);
+        }
+        return values.get(id);
+    }
+
+    @NotNull
+    NamespacedKey key(int id) {
+        String value = value(id);
+        NamespacedKey key = keys.get(id);
+        if (key == null) {
+            key = NamespacedKey.fromString(value);
+            keys.set(id, key);
+        }
+        return key;
+    }
+
+}
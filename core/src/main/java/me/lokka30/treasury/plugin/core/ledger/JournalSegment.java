@@ -0,0 +1,218 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single, fixed size file of a {@link TransactionJournal}. The file is created at its full size
+ * and filled with zeroes, so a zero record length marks the end of the written records.
+ * <p>Only the segment being appended to is memory-mapped. Once full, a segment is sealed: its
+ * mapping is dropped, and its records are read through a file channel opened on the first read.
+ */
+final class JournalSegment {
+
+    static final String SUFFIX = ".segment";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @NotNull
+    static String fileName(int number) {
+        return String.format(Locale.ROOT, "%010d", number) + SUFFIX;
+    }
+
+    static boolean isTempFile(@NotNull Path path) {
+        return path.getFileName().toString().endsWith(SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * Creates a new segment. The file is first fully allocated and synced under a temporary name,
+     * and only then renamed, so that a crash never leaves a partially allocated segment behind.
+     */
+    @NotNull
+    static JournalSegment create(@NotNull Path directory, int number, int size) throws IOException {
+        Path path = directory.resolve(fileName(number));
+        Path temp = directory.resolve(fileName(number) + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            // writing the last byte extends the file with zeroes
+            channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+        return open(path, number);
+    }
+
+    /**
+     * Opens an existing segment to append to it.
+     */
+    @NotNull
+    static JournalSegment open(@NotNull Path path, int number) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            // the mapping stays valid after the channel is closed
+            return new JournalSegment(number, path, channel.map(FileChannel.MapMode.READ_WRITE,
+                    0,
+                    channel.size()
+            ));
+        }
+    }
+
+    /**
+     * Opens an existing, full segment, to only read from it.
+     */
+    @NotNull
+    static JournalSegment openSealed(@NotNull Path path, int number) {
+        return new JournalSegment(number, path, null);
+    }
+
+    private static void syncDirectory(@NotNull Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // not supported on every platform, the rename is atomic nonetheless
+        }
+    }
+
+    final int number;
+    final Path path;
+    // null once sealed, written under the journal's write lock, forced by its commit thread
+    private volatile MappedByteBuffer buffer;
+    // opened on the first read once sealed
+    private FileChannel channel;
+    // guarded by the journal's write lock
+    int writePosition;
+
+    private JournalSegment(int number, @NotNull Path path, @Nullable MappedByteBuffer buffer) {
+        this.number = number;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the mapping of the segment being appended to.
+     */
+    @NotNull
+    MappedByteBuffer buffer() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("The segment is sealed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer with the whole content of the segment, to scan it when the journal is
+     * opened. A sealed segment is mapped read-only for the duration of the scan only.
+     */
+    @NotNull
+    ByteBuffer scan() throws IOException {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer != null) {
+            return buffer;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    int capacity() {
+        return buffer().capacity();
+    }
+
+    /**
+     * Reads the payload of the record at the specified offset.
+     */
+    @NotNull
+    byte[] readPayload(int offset) throws IOException {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer != null) {
+            byte[] payload = new byte[buffer.getInt(offset)];
+            ByteBuffer source = buffer.duplicate();
+            ((Buffer) source).position(offset + JournalCodec.HEADER_SIZE);
+            source.get(payload);
+            return payload;
+        }
+        FileChannel channel = channel();
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, length, offset);
+        ByteBuffer payload = ByteBuffer.allocate(length.getInt(0));
+        readFully(channel, payload, offset + JournalCodec.HEADER_SIZE);
+        return payload.array();
+    }
+
+    @NotNull
+    private synchronized FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return channel;
+    }
+
+    private static void readFully(
+            @NotNull FileChannel channel, @NotNull ByteBuffer target, long position
+    ) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of journal segment");
+            }
+        }
+    }
+
+    void force() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Syncs the segment and drops its mapping, once it's full.
+     */
+    void seal() {
+        force();
+        buffer = null;
+    }
+
+    /**
+     * Releases the mapping and the file channel of the segment. As mappings can't be released
+     * explicitly, the mapping is only released once garbage collected.
+     */
+    synchronized void close() {
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // a read-only channel, nothing to lose
+            }
+            channel = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JournalSegment{" + "path=" + path + ", writePosition=" + writePosition + '}';
+    }
+
+}
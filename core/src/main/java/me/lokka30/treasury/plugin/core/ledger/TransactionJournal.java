@@ -0,0 +1,556 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An append-only, durable log of {@link EconomyTransaction economy transactions}, which economy
+ * providers can use to back {@link Account#retrieveTransactionHistory(int, Temporal, Temporal)}.
+ * <p>Transactions are appended to fixed size, memory-mapped segment files in a compact binary
+ * encoding (see {@link JournalCodec}). Once a segment is full, it's synced, unmapped and a new
+ * one is created; segments are only ever created whole, under a temporary name, so a crash never
+ * leaves a half created one behind. When the journal is opened, all the segments are read back,
+ * the records torn by a crash at the end of the last segment are dropped, and the per-account
+ * index is rebuilt. Damaged records anywhere else fail the opening of the journal. The index is
+ * only kept in memory, so opening a journal scans every segment.
+ * <p>Appending only copies the record into memory. The returned future completes once the
+ * record has been synced to disk: a single background thread syncs all the records appended
+ * since its last sync at once, so concurrent appends share the cost of a sync. The
+ * {@link Builder#withCommitWindow(long, TimeUnit) commit window} can make it wait for more
+ * appends before syncing. Appended transactions can be queried right away, before being synced.
+ * <p>The history of an account is kept sorted by transaction timestamp, truncated to the
+ * microsecond, so ranged queries only read the records they return.
+ *
+ * @since 2.0.2
+ */
+public final class TransactionJournal implements Closeable {
+
+    /**
+     * Creates a new {@link Builder} of a {@code TransactionJournal} stored in the specified
+     * directory.
+     *
+     * @param directory the directory to store the segments in
+     * @return new builder
+     */
+    @NotNull
+    public static Builder newBuilder(@NotNull Path directory) {
+        return new Builder(directory);
+    }
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{10}" + Pattern.quote(
+            JournalSegment.SUFFIX));
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitWindowNanos;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by the lock
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private final JournalDictionary dictionary = new JournalDictionary();
+    private final Map<Object, AccountIndex> indexes = new HashMap<>();
+    private final JournalCodec codec = new JournalCodec();
+    private final CRC32 crc = new CRC32();
+    private volatile JournalSegment current;
+    private volatile boolean closed;
+
+    // group commit state, guarded by commitLock
+    private final Object commitLock = new Object();
+    private List<CompletableFuture<Void>> uncommitted = new ArrayList<>();
+    private final Thread committer;
+
+    private TransactionJournal(@NotNull Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.commitWindowNanos = builder.commitWindowNanos;
+        this.committer = new Thread(this::commitLoop, "Treasury transaction journal committer");
+        this.committer.setDaemon(true);
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (JournalSegment.isTempFile(path)) {
+                    // left behind by a crash while creating a segment
+                    Files.delete(path);
+                } else if (SEGMENT_NAME.matcher(path.getFileName().toString()).matches()) {
+                    files.add(path);
+                }
+            }
+        }
+        Collections.sort(files);
+        for (int number = 0; number < files.size(); number++) {
+            Path path = files.get(number);
+            if (!path.getFileName().toString().equals(JournalSegment.fileName(number))) {
+                throw new IOException("Missing journal segment " + directory.resolve(
+                        JournalSegment.fileName(number)));
+            }
+            boolean last = number == files.size() - 1;
+            JournalSegment segment = last
+                    ? JournalSegment.open(path, number)
+                    : JournalSegment.openSealed(path, number);
+            recover(segment, last);
+            segments.add(segment);
+        }
+        if (segments.isEmpty()) {
+            segments.add(JournalSegment.create(directory, 0, segmentSize));
+        }
+        current = segments.get(segments.size() - 1);
+    }
+
+    private void recover(@NotNull JournalSegment segment, boolean last) throws IOException {
+        ByteBuffer buffer = segment.scan();
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (capacity - offset >= JournalCodec.HEADER_SIZE) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                // the length is written last, so this is the end of the records
+                break;
+            }
+            String damage = damage(buffer, offset, length, AccountIndex.position(segment.number,
+                    offset
+            ));
+            if (damage != null) {
+                if (!last) {
+                    // segments are synced before the next one is created, so only the last one
+                    // can have been torn by a crash
+                    throw new IOException("Damaged journal segment " + segment.number + " ("
+                            + segment.path + ") at offset " + offset + ": " + damage);
+                }
+                break;
+            }
+            offset += JournalCodec.HEADER_SIZE + length;
+        }
+        segment.writePosition = offset;
+        if (last && !isZero(buffer, offset)) {
+            // a torn tail must not be mistaken for records once appends overwrite part of it
+            zero(buffer, offset);
+            segment.force();
+        }
+    }
+
+    // restores the record at the specified offset, returns what's wrong with it if it's damaged
+    @Nullable
+    private String damage(@NotNull ByteBuffer buffer, int offset, int length, long position) {
+        if (length < 0 || length > buffer.capacity() - offset - JournalCodec.HEADER_SIZE) {
+            return "invalid record length " + length;
+        }
+        byte[] payload = read(buffer, offset, length);
+        crc.reset();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return "checksum mismatch";
+        }
+        try {
+            restore(payload, position);
+        } catch (IOException | RuntimeException e) {
+            return e.toString();
+        }
+        return null;
+    }
+
+    private void restore(@NotNull byte[] payload, long position) throws IOException {
+        DataInputStream in = JournalCodec.input(payload);
+        byte kind = in.readByte();
+        if (kind == JournalCodec.RECORD_DICTIONARY) {
+            if (!dictionary.restore(in.readInt(), in.readUTF())) {
+                throw new IOException("Unexpected dictionary entry");
+            }
+        } else if (kind == JournalCodec.RECORD_TRANSACTION) {
+            Object account = JournalCodec.readAccount(in, dictionary);
+            indexes.computeIfAbsent(account, $ -> new AccountIndex()).add(in.readLong(), position);
+        } else {
+            throw new IOException("Unknown record kind " + kind);
+        }
+    }
+
+    private static boolean isZero(@NotNull ByteBuffer buffer, int from) {
+        int i = from;
+        for (; i + Long.BYTES <= buffer.capacity(); i += Long.BYTES) {
+            if (buffer.getLong(i) != 0) {
+                return false;
+            }
+        }
+        for (; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void zero(@NotNull ByteBuffer buffer, int from) {
+        ByteBuffer target = buffer.duplicate();
+        ((Buffer) target).position(from);
+        byte[] zeroes = new byte[Math.min(8192, target.remaining())];
+        while (target.hasRemaining()) {
+            target.put(zeroes, 0, Math.min(zeroes.length, target.remaining()));
+        }
+    }
+
+    @NotNull
+    private static byte[] read(@NotNull ByteBuffer buffer, int offset, int length) {
+        byte[] payload = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        ((Buffer) source).position(offset + JournalCodec.HEADER_SIZE);
+        source.get(payload);
+        return payload;
+    }
+
+    /**
+     * Appends the specified transaction to the history of the specified account.
+     *
+     * @param account     the account the transaction was made on
+     * @param transaction the transaction
+     * @return a future completed once the transaction is synced to disk
+     */
+    @NotNull
+    public CompletableFuture<Void> append(
+            @NotNull AccountData account, @NotNull EconomyTransaction transaction
+    ) {
+        Objects.requireNonNull(account, "account");
+        Objects.requireNonNull(transaction, "transaction");
+        Object key = accountKey(account);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (closed) {
+                return FutureHelper.failedFuture(new IllegalStateException(
+                        "The journal is closed"));
+            }
+            long micros = JournalCodec.toEpochMicros(transaction.getTimestamp());
+            codec.encodeTransaction(key, transaction, this::dictionaryId);
+            long position = writeRecord();
+            indexes.computeIfAbsent(key, $ -> new AccountIndex()).add(micros, position);
+            synchronized (commitLock) {
+                if (uncommitted.isEmpty()) {
+                    commitLock.notifyAll();
+                }
+                uncommitted.add(future);
+            }
+        } catch (IllegalArgumentException | ArithmeticException | UncheckedIOException e) {
+            return FutureHelper.failedFuture(e);
+        } finally {
+            writeLock.unlock();
+        }
+        return future;
+    }
+
+    // must hold the write lock
+    private int dictionaryId(@NotNull String value) {
+        Integer id = dictionary.find(value);
+        if (id != null) {
+            return id;
+        }
+        codec.encodeDictionary(dictionary.size(), value);
+        writeRecord();
+        return dictionary.add(value);
+    }
+
+    // must hold the write lock, writes the last payload encoded by the codec
+    private long writeRecord() {
+        int length = codec.size();
+        int size = JournalCodec.HEADER_SIZE + length;
+        JournalSegment segment = current;
+        if (segment.capacity() - segment.writePosition < size) {
+            if (size > segmentSize) {
+                throw new IllegalArgumentException("The record doesn't fit in a segment");
+            }
+            segment = rollover(segment);
+        }
+        int offset = segment.writePosition;
+        crc.reset();
+        crc.update(codec.buffer(), 0, length);
+        ByteBuffer buffer = segment.buffer();
+        ByteBuffer target = buffer.duplicate();
+        ((Buffer) target).position(offset + JournalCodec.HEADER_SIZE);
+        target.put(codec.buffer(), 0, length);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        // the length goes last: a zero length marks the end of the records
+        buffer.putInt(offset, length);
+        segment.writePosition = offset + size;
+        return AccountIndex.position(segment.number, offset);
+    }
+
+    // must hold the write lock
+    @NotNull
+    private JournalSegment rollover(@NotNull JournalSegment full) {
+        // everything in the full segment is durable before anything goes to the next one, so
+        // the commit thread only ever has to sync the current segment
+        full.seal();
+        JournalSegment next;
+        try {
+            next = JournalSegment.create(directory, full.number + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.add(next);
+        current = next;
+        return next;
+    }
+
+    private void commitLoop() {
+        while (true) {
+            List<CompletableFuture<Void>> batch;
+            synchronized (commitLock) {
+                try {
+                    while (uncommitted.isEmpty() && !closed) {
+                        commitLock.wait();
+                    }
+                    if (uncommitted.isEmpty()) {
+                        return;
+                    }
+                    long deadline = System.nanoTime() + commitWindowNanos;
+                    long remaining;
+                    while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(commitLock, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    // sync what's there
+                }
+                batch = uncommitted;
+                uncommitted = new ArrayList<>();
+            }
+            // records of earlier segments were synced on rollover
+            JournalSegment segment = current;
+            Throwable error = null;
+            try {
+                segment.force();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            for (CompletableFuture<Void> future : batch) {
+                if (error == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the history of the specified account, limited to the most recent
+     * {@code transactionCount} transactions between {@code from} and {@code to}, both inclusive,
+     * oldest first.
+     *
+     * @param account          the account
+     * @param transactionCount the maximum amount of transactions to return
+     * @param from             the earliest timestamp
+     * @param to               the latest timestamp
+     * @return a future with the transactions
+     * @see Account#retrieveTransactionHistory(int, Temporal, Temporal)
+     */
+    @NotNull
+    public CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+            @NotNull AccountData account,
+            int transactionCount,
+            @NotNull Temporal from,
+            @NotNull Temporal to
+    ) {
+        Objects.requireNonNull(account, "account");
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        long fromMicros;
+        long toMicros;
+        try {
+            fromMicros = saturatedMicros(Instant.from(from));
+            toMicros = saturatedMicros(Instant.from(to));
+        } catch (DateTimeException e) {
+            return FutureHelper.failedFuture(e);
+        }
+        if (transactionCount <= 0 || fromMicros > toMicros) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        Object key = accountKey(account);
+        List<EconomyTransaction> ret = new ArrayList<>();
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (closed) {
+                return FutureHelper.failedFuture(new IllegalStateException(
+                        "The journal is closed"));
+            }
+            AccountIndex index = indexes.get(key);
+            if (index == null) {
+                return CompletableFuture.completedFuture(Collections.emptyList());
+            }
+            int i = index.upperBound(toMicros) - 1;
+            for (; i >= 0 && ret.size() < transactionCount; i--) {
+                if (index.micros(i) < fromMicros) {
+                    break;
+                }
+                ret.add(readTransaction(index.position(i)));
+            }
+        } catch (IOException | RuntimeException e) {
+            return FutureHelper.failedFuture(e);
+        } finally {
+            readLock.unlock();
+        }
+        Collections.reverse(ret);
+        return CompletableFuture.completedFuture(ret);
+    }
+
+    // must hold the read lock
+    @NotNull
+    private EconomyTransaction readTransaction(long position) throws IOException {
+        JournalSegment segment = segments.get(AccountIndex.segment(position));
+        byte[] payload = segment.readPayload(AccountIndex.offset(position));
+        return JournalCodec.decodeTransaction(payload, dictionary);
+    }
+
+    private static long saturatedMicros(@NotNull Instant instant) {
+        try {
+            return JournalCodec.toEpochMicros(instant);
+        } catch (ArithmeticException e) {
+            return instant.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    @NotNull
+    private static Object accountKey(@NotNull AccountData account) {
+        return account.isPlayerAccount()
+                ? account.getPlayerIdentifier().get()
+                : account.getNonPlayerIdentifier().get();
+    }
+
+    /**
+     * Syncs all the appended transactions and closes the journal, releasing its segments.
+     * Transactions can't be appended nor queried anymore afterwards.
+     */
+    @Override
+    public void close() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            writeLock.unlock();
+        }
+        synchronized (commitLock) {
+            commitLock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            current.force();
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Represents a builder of a {@link TransactionJournal}.
+     *
+     * @since 2.0.2
+     */
+    public static final class Builder {
+
+        private final Path directory;
+        private int segmentSize = 64 * 1024 * 1024;
+        private long commitWindowNanos;
+
+        private Builder(@NotNull Path directory) {
+            this.directory = Objects.requireNonNull(directory, "directory");
+        }
+
+        /**
+         * Sets the size of the segment files, in bytes. A transaction record takes about 50
+         * bytes. Defaults to 64 MiB.
+         *
+         * @param segmentSize segment size
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withSegmentSize(int segmentSize) {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("segmentSize must be at least 4096");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets for how long a sync waits for more appends to join it. A longer window means fewer
+         * syncs under load, at the cost of latency of the appends. Defaults to zero: syncs start
+         * right away, and appends made meanwhile are synced together by the next one.
+         *
+         * @param duration commit window duration
+         * @param unit     unit of the duration
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withCommitWindow(long duration, @NotNull TimeUnit unit) {
+            Objects.requireNonNull(unit, "unit");
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration cannot be negative");
+            }
+            this.commitWindowNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Opens the journal, reading back its existing segments, if any.
+         *
+         * @return transaction journal
+         * @throws IOException if the segments couldn't be read or created, or are damaged
+         */
+        @NotNull
+        public TransactionJournal open() throws IOException {
+            TransactionJournal journal = new TransactionJournal(this);
+            journal.load();
+            journal.committer.start();
+            return journal;
+        }
+
+    }
+
+}
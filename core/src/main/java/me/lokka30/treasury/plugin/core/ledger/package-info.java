@@ -0,0 +1,4 @@
+/**
+ * Holds a durable transaction history store, for economy providers to build upon.
+ */
+package me.lokka30.treasury.plugin.core.ledger;
@@ -0,0 +1,456 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.EconomyProvider;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.account.accessor.AccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.NonPlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.PlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.plugin.core.logging.Logger;
+import me.lokka30.treasury.plugin.core.schedule.Scheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BalanceCacheTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long RECONCILE_DELAY = TimeUnit.SECONDS.toNanos(1800);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final StubProvider provider = new StubProvider();
+    private final CollectingLogger logger = new CollectingLogger();
+    private final BalanceCache cache = new BalanceCache(new InlineScheduler(),
+            logger,
+            5,
+            1800,
+            4000,
+            new AtomicReference<>(provider),
+            clock::get
+    );
+
+    @Test
+    void testPendingRefreshSettles() {
+        UUID uuid = provider.add(BigDecimal.TEN);
+        cache.run();
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(uuid, "dollars"));
+
+        provider.balances.put(uuid, BigDecimal.ONE);
+        cache.markPending(uuid);
+        cache.run();
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(uuid, "dollars"));
+
+        clock.addAndGet(SECOND);
+        cache.run();
+        Assertions.assertEquals(BigDecimal.ONE, cache.getBalance(uuid, "dollars"));
+    }
+
+    @Test
+    void testFailedRetrievalKeepsRow() {
+        UUID failing = provider.add(BigDecimal.TEN);
+        UUID deleted = provider.add(BigDecimal.ONE);
+        cache.run();
+
+        provider.failing.add(failing);
+        provider.balances.remove(deleted);
+        cache.markPending(failing);
+        cache.markPending(deleted);
+        clock.addAndGet(SECOND);
+        cache.run();
+
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(failing, "dollars"));
+        Assertions.assertNull(cache.getBalance(deleted, "dollars"));
+    }
+
+    @Test
+    void testUnknownPlayersAreChecked() {
+        cache.run();
+        UUID joined = provider.add(BigDecimal.TEN);
+        UUID stranger = UUID.randomUUID();
+        Assertions.assertNull(cache.getBalance(joined, "dollars"));
+        Assertions.assertNull(cache.getBalance(stranger, "dollars"));
+
+        cache.run();
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(joined, "dollars"));
+        Assertions.assertEquals("player-" + joined, cache.getPlayerDataNames().get(joined));
+        Assertions.assertNull(cache.getBalance(stranger, "dollars"));
+        // only the account which existed got looked up
+        Assertions.assertEquals(1, provider.lookups.get());
+        Assertions.assertFalse(provider.balances.containsKey(stranger));
+    }
+
+    @Test
+    void testReconciliationKeepsNewerRefresh() {
+        UUID uuid = provider.add(BigDecimal.TEN);
+        cache.run();
+
+        // the next reconciliation reads the old balance, and takes its time to return it
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        provider.gates.add(gate);
+        clock.addAndGet(RECONCILE_DELAY);
+        cache.run();
+        Assertions.assertFalse(cache.getLastReconciliation().finished());
+
+        provider.balances.put(uuid, BigDecimal.ONE);
+        cache.markPending(uuid);
+        clock.addAndGet(SECOND);
+        cache.run();
+        Assertions.assertEquals(BigDecimal.ONE, cache.getBalance(uuid, "dollars"));
+
+        gate.complete(null);
+        Assertions.assertTrue(cache.getLastReconciliation().completed());
+        Assertions.assertEquals(BigDecimal.ONE, cache.getBalance(uuid, "dollars"));
+    }
+
+    @Test
+    void testReconciliationKeepsRowsWrittenMeanwhile() {
+        UUID uuid = provider.add(BigDecimal.TEN);
+        cache.run();
+
+        // the cursor of the next reconciliation is past every account before these show up
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        provider.gates.add(gate);
+        clock.addAndGet(RECONCILE_DELAY);
+        cache.run();
+        Assertions.assertFalse(cache.getLastReconciliation().finished());
+
+        UUID joined = provider.add(BigDecimal.ONE);
+        UUID stranger = UUID.randomUUID();
+        UUID marked = provider.add(BigDecimal.TEN);
+        Assertions.assertNull(cache.getBalance(joined, "dollars"));
+        Assertions.assertNull(cache.getBalance(stranger, "dollars"));
+        cache.markPending(marked);
+        clock.addAndGet(SECOND);
+        cache.run();
+        Assertions.assertEquals(BigDecimal.ONE, cache.getBalance(joined, "dollars"));
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(marked, "dollars"));
+
+        gate.complete(null);
+        Assertions.assertTrue(cache.getLastReconciliation().completed());
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(uuid, "dollars"));
+        Assertions.assertEquals(BigDecimal.ONE, cache.getBalance(joined, "dollars"));
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(marked, "dollars"));
+        // still known to have no account, so not checked again
+        int checks = provider.checks.get();
+        Assertions.assertNull(cache.getBalance(stranger, "dollars"));
+        cache.run();
+        Assertions.assertEquals(checks, provider.checks.get());
+    }
+
+    @Test
+    void testThrowingProviderDoesNotStallReconciliation() {
+        UUID uuid = provider.add(BigDecimal.TEN);
+        provider.throwing = true;
+        cache.run();
+        BalanceCache.RefreshProgress failed = cache.getLastReconciliation();
+        Assertions.assertTrue(failed.finished());
+        Assertions.assertFalse(failed.completed());
+        Assertions.assertFalse(logger.errors.isEmpty());
+
+        provider.throwing = false;
+        clock.addAndGet(RECONCILE_DELAY);
+        cache.run();
+        BalanceCache.RefreshProgress reconciled = cache.getLastReconciliation();
+        Assertions.assertNotSame(failed, reconciled);
+        Assertions.assertTrue(reconciled.completed());
+        Assertions.assertEquals(1, reconciled.refreshedAccounts());
+        Assertions.assertEquals(BigDecimal.TEN, cache.getBalance(uuid, "dollars"));
+        Assertions.assertEquals(2, logger.infos.size());
+    }
+
+    static final class InlineScheduler implements Scheduler {
+
+        @Override
+        public void runSync(Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public void runAsync(Runnable task) {
+            task.run();
+        }
+
+    }
+
+    static final class CollectingLogger implements Logger {
+
+        final List<String> infos = Collections.synchronizedList(new ArrayList<>());
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void info(String message) {
+            infos.add(message);
+        }
+
+        @Override
+        public void warn(String message) {
+            infos.add(message);
+        }
+
+        @Override
+        public void error(String message) {
+            errors.add(message);
+        }
+
+        @Override
+        public void error(String message, Throwable t) {
+            errors.add(message);
+        }
+
+    }
+
+    static final class StubProvider implements EconomyProvider {
+
+        final Map<UUID, BigDecimal> balances = new ConcurrentHashMap<>();
+        final Set<UUID> failing = ConcurrentHashMap.newKeySet();
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger checks = new AtomicInteger();
+        // each delays the result of the next retrieveBalances call
+        final Queue<CompletableFuture<Void>> gates = new ConcurrentLinkedQueue<>();
+        volatile boolean throwing;
+        private final Currency currency = new TestCurrency();
+
+        UUID add(BigDecimal balance) {
+            UUID uuid = UUID.randomUUID();
+            balances.put(uuid, balance);
+            return uuid;
+        }
+
+        @Override
+        public CompletableFuture<Map<UUID, Map<String, BigDecimal>>> retrieveBalances(
+                @NotNull Collection<UUID> playerIds, @NotNull Collection<Currency> currencies
+        ) {
+            Map<UUID, Map<String, BigDecimal>> result = new ConcurrentHashMap<>();
+            for (UUID uuid : playerIds) {
+                BigDecimal balance = balances.get(uuid);
+                if (balance != null && !failing.contains(uuid)) {
+                    result.put(uuid, Collections.singletonMap("dollars", balance));
+                }
+            }
+            CompletableFuture<Void> gate = gates.poll();
+            return gate == null
+                    ? CompletableFuture.completedFuture(result)
+                    : gate.thenApply($ -> result);
+        }
+
+        @Override
+        public @NotNull AccountAccessor accountAccessor() {
+            if (throwing) {
+                throw new IllegalStateException("storage");
+            }
+            return new AccountAccessor() {
+                @Override
+                public @NotNull PlayerAccountAccessor player() {
+                    return new PlayerAccountAccessor() {
+                        @Override
+                        protected @NotNull CompletableFuture<PlayerAccount> getOrCreate(
+                                @NotNull PlayerAccountCreateContext context
+                        ) {
+                            lookups.incrementAndGet();
+                            UUID uuid = context.getUniqueId();
+                            balances.putIfAbsent(uuid, BigDecimal.ZERO);
+                            return CompletableFuture.completedFuture(new NamedAccount(uuid));
+                        }
+                    };
+                }
+
+                @Override
+                public @NotNull NonPlayerAccountAccessor nonPlayer() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Boolean> hasAccount(@NotNull AccountData accountData) {
+            checks.incrementAndGet();
+            return CompletableFuture.completedFuture(accountData
+                    .getPlayerIdentifier()
+                    .map(balances::containsKey)
+                    .orElse(false));
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<UUID>> retrievePlayerAccountIds() {
+            return CompletableFuture.completedFuture(new ArrayList<>(balances.keySet()));
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<NamespacedKey>> retrieveNonPlayerAccountIds() {
+            return CompletableFuture.completedFuture(Collections.emptySet());
+        }
+
+        @Override
+        public @NotNull Currency getPrimaryCurrency() {
+            return currency;
+        }
+
+        @Override
+        public @NotNull Optional<Currency> findCurrency(@NotNull String identifier) {
+            return Optional.of(currency);
+        }
+
+        @Override
+        public @NotNull Set<Currency> getCurrencies() {
+            return Collections.singleton(currency);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<TriState> registerCurrency(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(TriState.FALSE);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<TriState> unregisterCurrency(@NotNull Currency currency) {
+            return CompletableFuture.completedFuture(TriState.FALSE);
+        }
+
+    }
+
+    static final class NamedAccount implements PlayerAccount {
+
+        private final UUID uuid;
+
+        NamedAccount(UUID uuid) {
+            this.uuid = uuid;
+        }
+
+        @Override
+        public @NotNull UUID identifier() {
+            return uuid;
+        }
+
+        @Override
+        public @NotNull Optional<String> getName() {
+            return Optional.of("player-" + uuid);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> doTransaction(
+                @NotNull EconomyTransaction economyTransaction
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Boolean> deleteAccount() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<String>> retrieveHeldCurrencies() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+                int transactionCount, @NotNull Temporal from, @NotNull Temporal to
+        ) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    static final class TestCurrency implements Currency {
+
+        @Override
+        public @NotNull String getIdentifier() {
+            return "dollars";
+        }
+
+        @Override
+        public @NotNull String getSymbol() {
+            return "$";
+        }
+
+        @Override
+        public char getDecimal(@Nullable Locale locale) {
+            return '.';
+        }
+
+        @Override
+        public @NotNull Map<Locale, Character> getLocaleDecimalMap() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public @NotNull String getDisplayName(@NotNull BigDecimal value, @Nullable Locale locale) {
+            return "Dollars";
+        }
+
+        @Override
+        public int getPrecision() {
+            return 2;
+        }
+
+        @Override
+        public boolean isPrimary() {
+            return true;
+        }
+
+        @Override
+        public @NotNull BigDecimal getStartingBalance(@NotNull Account account) {
+            return BigDecimal.ZERO;
+        }
+
+        @Override
+        public @NotNull BigDecimal getConversionRate() {
+            return BigDecimal.ONE;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<BigDecimal> parse(
+                @NotNull String formattedAmount, @Nullable Locale locale
+        ) {
+            return CompletableFuture.completedFuture(new BigDecimal(formattedAmount));
+        }
+
+        @Override
+        public @NotNull String format(@NotNull BigDecimal amount, @Nullable Locale locale) {
+            return amount.toPlainString();
+        }
+
+        @Override
+        public @NotNull String format(
+                @NotNull BigDecimal amount, @Nullable Locale locale, int precision
+        ) {
+            return amount.toPlainString();
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BalanceRankingTest {
+
+    @Test
+    void testTiesAreDistinct() {
+        BalanceRanking ranking = new BalanceRanking();
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        ranking.update(second, BigDecimal.TEN);
+        ranking.update(first, new BigDecimal("10.00"));
+        ranking.update(UUID.randomUUID(), BigDecimal.ONE);
+
+        Assertions.assertEquals(3, ranking.size());
+        Assertions.assertEquals(first, ranking.get(0).uuid());
+        Assertions.assertEquals(second, ranking.get(1).uuid());
+        Assertions.assertEquals(0, ranking.positionOf(first));
+        Assertions.assertEquals(1, ranking.positionOf(second));
+        Assertions.assertNull(ranking.get(3));
+
+        ranking.update(first, BigDecimal.ZERO);
+        Assertions.assertEquals(-1, ranking.positionOf(first));
+        Assertions.assertEquals(second, ranking.get(0).uuid());
+        Assertions.assertEquals(2, ranking.size());
+    }
+
+    @Test
+    void testMatchesSortedOrder() {
+        Random random = new Random(42);
+        BalanceRanking ranking = new BalanceRanking();
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            uuids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        Map<UUID, BigDecimal> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID uuid = uuids.get(random.nextInt(uuids.size()));
+            // few distinct balances, so that there are plenty of ties
+            BigDecimal balance = BigDecimal.valueOf(random.nextInt(20));
+            ranking.update(uuid, balance);
+            if (balance.signum() == 0) {
+                expected.remove(uuid);
+            } else {
+                expected.put(uuid, balance);
+            }
+        }
+
+        List<Map.Entry<UUID, BigDecimal>> sorted = new ArrayList<>(expected.entrySet());
+        sorted.sort(Map.Entry.<UUID, BigDecimal>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Assertions.assertEquals(sorted.size(), ranking.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            BalanceRanking.Entry entry = ranking.get(i);
+            Assertions.assertEquals(sorted.get(i).getKey(), entry.uuid());
+            Assertions.assertEquals(sorted.get(i).getValue(), entry.balance());
+            Assertions.assertEquals(i, ranking.positionOf(entry.uuid()));
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.hooks.placeholder.economy;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BalanceTableTest {
+
+    @Test
+    void testRows() {
+        BalanceTable table = new BalanceTable();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        table.put(first, Collections.singletonMap("Dollars", new BigDecimal("10")));
+        Map<String, BigDecimal> balances = new HashMap<>();
+        balances.put("euros", new BigDecimal("5"));
+        balances.put("Dollars", BigDecimal.ZERO);
+        table.put(second, balances);
+
+        Assertions.assertEquals(new BigDecimal("10"), table.get(first, "Dollars"));
+        Assertions.assertEquals(new BigDecimal("10"), table.get(first, "dollars"));
+        // rows published before a currency was indexed are shorter
+        Assertions.assertNull(table.get(first, "euros"));
+        Assertions.assertEquals(new BigDecimal("5"), table.get(second, "EUROS"));
+        Assertions.assertNull(table.get(second, "Dollars"));
+        Assertions.assertNull(table.get(second, "pounds"));
+    }
+
+    @Test
+    void testMissingRows() {
+        BalanceTable table = new BalanceTable();
+        UUID kept = UUID.randomUUID();
+        UUID dropped = UUID.randomUUID();
+        table.put(kept, null);
+        table.put(dropped, Collections.singletonMap("dollars", BigDecimal.ONE));
+        Assertions.assertTrue(table.contains(kept));
+        Assertions.assertNull(table.get(kept, "dollars"));
+
+        table.retainIf(kept::equals);
+        Assertions.assertTrue(table.contains(kept));
+        Assertions.assertFalse(table.contains(dropped));
+        Assertions.assertNull(table.get(dropped, "dollars"));
+    }
+
+}
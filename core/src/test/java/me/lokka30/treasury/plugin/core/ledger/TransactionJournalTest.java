@@ -0,0 +1,260 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.plugin.core.ledger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TransactionJournalTest {
+
+    private static final Instant START = Instant.parse("2023-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private static EconomyTransaction transaction(int second, @NotNull String amount) {
+        return EconomyTransaction
+                .newBuilder()
+                .withCurrencyId("coins")
+                .withCause(Cause.plugin(NamespacedKey.of("test", "plugin")))
+                .withTimestamp(START.plusSeconds(second).plusNanos(1_000))
+                .withType(EconomyTransactionType.DEPOSIT)
+                .withAmount(new BigDecimal(amount))
+                .withImportance(EconomyTransactionImportance.HIGH)
+                .withReason("second " + second)
+                .build();
+    }
+
+    private static List<String> reasons(@NotNull Iterable<EconomyTransaction> transactions) {
+        List<String> ret = new ArrayList<>();
+        for (EconomyTransaction transaction : transactions) {
+            ret.add(transaction.getReason().orElse(null));
+        }
+        return ret;
+    }
+
+    @Test
+    void testAppendAndQuery() throws IOException {
+        AccountData player = AccountData.forPlayerAccount(UUID.randomUUID());
+        AccountData bank = AccountData.forNonPlayerAccount(NamespacedKey.of("test", "bank"));
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).open()) {
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (int second : new int[]{0, 1, 3, 2, 4}) {
+                appends.add(journal.append(player, transaction(second, second + ".25")));
+            }
+            appends.add(journal.append(bank, transaction(0, "12345678901234567890.5")));
+            CompletableFuture.allOf(appends.toArray(new CompletableFuture<?>[0])).join();
+
+            List<EconomyTransaction> history = new ArrayList<>(journal
+                    .retrieveTransactionHistory(player, 2, START.plusSeconds(1), START.plusSeconds(4))
+                    .join());
+            Assertions.assertEquals(2, history.size());
+            EconomyTransaction first = history.get(0);
+            Assertions.assertEquals("second 2", first.getReason().orElse(null));
+            Assertions.assertEquals(new BigDecimal("2.25"), first.getAmount());
+            Assertions.assertEquals(START.plusSeconds(2).plusNanos(1_000), first.getTimestamp());
+            Assertions.assertEquals("coins", first.getCurrencyId());
+            Assertions.assertEquals(EconomyTransactionType.DEPOSIT, first.getType());
+            Assertions.assertEquals(EconomyTransactionImportance.HIGH, first.getImportance());
+            Assertions.assertTrue(first.getCause().equals(Cause.plugin(NamespacedKey.of("test",
+                    "plugin"
+            ))));
+            Assertions.assertEquals("second 3", history.get(1).getReason().orElse(null));
+
+            Assertions.assertEquals(new BigDecimal("12345678901234567890.5"), journal
+                    .retrieveTransactionHistory(bank, 10, Instant.EPOCH, Instant.MAX)
+                    .join()
+                    .iterator()
+                    .next()
+                    .getAmount());
+        }
+    }
+
+    @Test
+    void testReopenAcrossSegments() throws IOException {
+        AccountData player = AccountData.forPlayerAccount(UUID.randomUUID());
+        try (TransactionJournal journal = TransactionJournal
+                .newBuilder(directory)
+                .withSegmentSize(4096)
+                .open()) {
+            for (int second = 0; second < 300; second++) {
+                journal.append(player, transaction(second, "1"));
+            }
+            // the full segments are read back through their file
+            Assertions.assertEquals(300, journal
+                    .retrieveTransactionHistory(player, 1000, Instant.EPOCH, Instant.MAX)
+                    .join()
+                    .size());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertTrue(files.count() > 1);
+        }
+
+        try (TransactionJournal journal = TransactionJournal
+                .newBuilder(directory)
+                .withSegmentSize(4096)
+                .open()) {
+            Assertions.assertEquals(300, journal
+                    .retrieveTransactionHistory(player, 1000, Instant.EPOCH, Instant.MAX)
+                    .join()
+                    .size());
+            journal.append(player, transaction(300, "1")).join();
+            Assertions.assertEquals(reasons(Arrays.asList(transaction(299, "1"),
+                    transaction(300, "1")
+            )), reasons(journal
+                    .retrieveTransactionHistory(player, 2, Instant.EPOCH, Instant.MAX)
+                    .join()));
+
+            journal.close();
+            Assertions.assertTrue(journal
+                    .retrieveTransactionHistory(player, 2, Instant.EPOCH, Instant.MAX)
+                    .isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void testTornTailIsDropped() throws IOException {
+        AccountData player = AccountData.forPlayerAccount(UUID.randomUUID());
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).withSegmentSize(
+                4096).open()) {
+            journal.append(player, transaction(0, "1")).join();
+            journal.append(player, transaction(1, "1")).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.collect(Collectors.toList()).get(0);
+        }
+        // damage the payload of the last record, as if the crash happened while writing it
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long last = 0;
+            for (long offset = 0; ; ) {
+                file.seek(offset);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                last = offset;
+                offset += 8 + length;
+            }
+            file.seek(last + 8 + 2);
+            byte value = file.readByte();
+            file.seek(last + 8 + 2);
+            file.writeByte(~value);
+        }
+
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).withSegmentSize(
+                4096).open()) {
+            Assertions.assertEquals(1, journal
+                    .retrieveTransactionHistory(player, 10, Instant.EPOCH, Instant.MAX)
+                    .join()
+                    .size());
+            journal.append(player, transaction(2, "1")).join();
+        }
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).withSegmentSize(
+                4096).open()) {
+            Assertions.assertEquals(reasons(Arrays.asList(transaction(0, "1"),
+                    transaction(2, "1")
+            )), reasons(journal
+                    .retrieveTransactionHistory(player, 10, Instant.EPOCH, Instant.MAX)
+                    .join()));
+        }
+    }
+
+    @Test
+    void testDamagedSegmentFailsOpen() throws IOException {
+        AccountData player = AccountData.forPlayerAccount(UUID.randomUUID());
+        try (TransactionJournal journal = TransactionJournal
+                .newBuilder(directory)
+                .withSegmentSize(4096)
+                .open()) {
+            for (int second = 0; second < 300; second++) {
+                journal.append(player, transaction(second, "1"));
+            }
+        }
+        Path first = directory.resolve(JournalSegment.fileName(0));
+        // damage the payload of the second record of the first segment
+        try (RandomAccessFile file = new RandomAccessFile(first.toFile(), "rw")) {
+            long second = 8 + file.readInt();
+            file.seek(second + 8 + 2);
+            byte value = file.readByte();
+            file.seek(second + 8 + 2);
+            file.writeByte(~value);
+        }
+
+        IOException e = Assertions.assertThrows(IOException.class,
+                () -> TransactionJournal.newBuilder(directory).withSegmentSize(4096).open()
+        );
+        Assertions.assertTrue(e.getMessage().contains("segment 0"), e.getMessage());
+        Assertions.assertTrue(e.getMessage().contains("offset"), e.getMessage());
+    }
+
+    @Test
+    void testStringCausesAreKept() throws IOException {
+        AccountData player = AccountData.forPlayerAccount(UUID.randomUUID());
+        Cause<String> console = new Cause<String>() {
+            @Override
+            public @NotNull String identifier() {
+                return "Console";
+            }
+
+            @Override
+            public boolean equals(@NotNull Cause<?> other) {
+                return "Console".equals(other.identifier());
+            }
+        };
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).open()) {
+            journal.append(player, EconomyTransaction
+                    .newBuilder()
+                    .withCurrencyId("coins")
+                    .withCause(console)
+                    .withType(EconomyTransactionType.DEPOSIT)
+                    .withAmount(BigDecimal.ONE)
+                    .withImportance(EconomyTransactionImportance.NORMAL)
+                    .build()).join();
+            journal.append(player, EconomyTransaction
+                    .newBuilder()
+                    .withCurrencyId("coins")
+                    .withCause(Cause.SERVER)
+                    .withType(EconomyTransactionType.DEPOSIT)
+                    .withAmount(BigDecimal.ONE)
+                    .withImportance(EconomyTransactionImportance.NORMAL)
+                    .build()).join();
+        }
+        try (TransactionJournal journal = TransactionJournal.newBuilder(directory).open()) {
+            List<String> causes = new ArrayList<>();
+            for (EconomyTransaction transaction : journal.retrieveTransactionHistory(player,
+                    10,
+                    Instant.EPOCH,
+                    Instant.MAX
+            ).join()) {
+                causes.add(transaction.getCause().identifier().toString());
+            }
+            causes.sort(null);
+            Assertions.assertEquals(Arrays.asList("Console", "Server"), causes);
+        }
+    }
+
+}
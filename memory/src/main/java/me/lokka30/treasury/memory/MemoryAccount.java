@@ -0,0 +1,198 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.common.response.TreasuryException;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Base of the accounts of a {@link MemoryEconomyProvider}. Balances are read without locking;
+ * they're written while holding the lock stripe of the account, see
+ * {@link MemoryEconomyProvider#lock(int)}.
+ */
+abstract class MemoryAccount implements Account {
+
+    private static final TreasuryException DELETED = new TreasuryException(
+            "The account was deleted.");
+
+    final MemoryEconomyProvider provider;
+    final int stripe;
+    private final Map<String, Balance> balances = new ConcurrentHashMap<>();
+    // guarded by the stripe lock
+    private final ArrayDeque<EconomyTransaction> history = new ArrayDeque<>();
+    private volatile boolean deleted;
+
+    MemoryAccount(@NotNull MemoryEconomyProvider provider, @NotNull Object identifier) {
+        this.provider = provider;
+        this.stripe = provider.stripeOf(identifier);
+    }
+
+    @NotNull
+    Balance balance(@NotNull Currency currency) {
+        Balance balance = balances.get(currency.getIdentifier());
+        if (balance == null) {
+            balance = balances.computeIfAbsent(currency.getIdentifier(),
+                    $ -> new Balance(currency.getStartingBalance(this))
+            );
+        }
+        return balance;
+    }
+
+    // must hold the stripe lock
+    void checkNotDeleted() {
+        if (deleted) {
+            throw DELETED;
+        }
+    }
+
+    // must hold the stripe lock
+    void record(@NotNull EconomyTransaction transaction) {
+        int limit = provider.historyLimit();
+        if (limit == 0) {
+            return;
+        }
+        if (history.size() == limit) {
+            history.pollFirst();
+        }
+        history.addLast(transaction);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> retrieveBalance(@NotNull Currency currency) {
+        Objects.requireNonNull(currency, "currency");
+        try {
+            Currency known = provider.requireCurrency(currency.getIdentifier());
+            return CompletableFuture.completedFuture(balance(known).value);
+        } catch (TreasuryException e) {
+            return FutureHelper.failedFuture(e);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> doTransaction(
+            @NotNull EconomyTransaction economyTransaction
+    ) {
+        Objects.requireNonNull(economyTransaction, "economyTransaction");
+        try {
+            Balance balance = balance(provider.requireCurrency(economyTransaction.getCurrencyId()));
+            Lock lock = provider.lock(stripe);
+            lock.lock();
+            try {
+                checkNotDeleted();
+                BigDecimal next = MemoryEconomyProvider.apply(balance.value, economyTransaction);
+                balance.value = next;
+                record(economyTransaction);
+                return CompletableFuture.completedFuture(next);
+            } finally {
+                lock.unlock();
+            }
+        } catch (TreasuryException e) {
+            return FutureHelper.failedFuture(e);
+        }
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> doTransactions(
+            @NotNull List<EconomyTransaction> transactions
+    ) {
+        Objects.requireNonNull(transactions, "transactions");
+        return provider.executeAtomically(Collections.nCopies(transactions.size(), this),
+                transactions
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> deleteAccount() {
+        Lock lock = provider.lock(stripe);
+        lock.lock();
+        try {
+            if (deleted) {
+                return CompletableFuture.completedFuture(false);
+            }
+            deleted = true;
+            history.clear();
+        } finally {
+            lock.unlock();
+        }
+        provider.remove(this);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<String>> retrieveHeldCurrencies() {
+        return CompletableFuture.completedFuture(new ArrayList<>(balances.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<EconomyTransaction>> retrieveTransactionHistory(
+            int transactionCount, @NotNull Temporal from, @NotNull Temporal to
+    ) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (transactionCount <= 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        Instant fromInstant;
+        Instant toInstant;
+        try {
+            fromInstant = Instant.from(from);
+            toInstant = Instant.from(to);
+        } catch (DateTimeException e) {
+            return FutureHelper.failedFuture(e);
+        }
+
+        // the most recent transactions in range, oldest first
+        ArrayDeque<EconomyTransaction> ret = new ArrayDeque<>(Math.min(transactionCount, 64));
+        Lock lock = provider.lock(stripe);
+        lock.lock();
+        try {
+            Iterator<EconomyTransaction> iterator = history.descendingIterator();
+            while (iterator.hasNext() && ret.size() < transactionCount) {
+                EconomyTransaction transaction = iterator.next();
+                Instant timestamp = transaction.getTimestamp();
+                if (!timestamp.isBefore(fromInstant) && !timestamp.isAfter(toInstant)) {
+                    ret.addFirst(transaction);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return CompletableFuture.completedFuture(new ArrayList<>(ret));
+    }
+
+    /**
+     * A balance of an account in a single currency.
+     */
+    static final class Balance {
+
+        // written while holding the stripe lock of the account
+        volatile BigDecimal value;
+
+        Balance(@NotNull BigDecimal value) {
+            this.value = value;
+        }
+
+    }
+
+}
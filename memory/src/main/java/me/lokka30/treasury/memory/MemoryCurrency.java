@@ -0,0 +1,320 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.common.response.TreasuryException;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A simple, immutable {@link Currency}, to be used with a {@link MemoryEconomyProvider}.
+ * <p>Amounts are formatted as the {@link #getSymbol() symbol} followed by the amount, rounded
+ * half even to the {@link #getPrecision() precision}, without grouping separators.
+ *
+ * @since 2.0.2
+ */
+public final class MemoryCurrency implements Currency {
+
+    /**
+     * Creates a new {@link Builder} of a {@code MemoryCurrency} with the specified identifier.
+     *
+     * @param identifier currency identifier
+     * @return new builder
+     */
+    @NotNull
+    public static Builder newBuilder(@NotNull String identifier) {
+        return new Builder(identifier);
+    }
+
+    private final String identifier;
+    private final String symbol;
+    private final String singularName;
+    private final String pluralName;
+    private final char defaultDecimal;
+    private final Map<Locale, Character> decimals;
+    private final int precision;
+    private final boolean primary;
+    private final BigDecimal startingBalance;
+    private final BigDecimal conversionRate;
+
+    private MemoryCurrency(@NotNull Builder builder) {
+        this.identifier = builder.identifier;
+        this.symbol = builder.symbol;
+        this.singularName = builder.singularName;
+        this.pluralName = builder.pluralName;
+        this.defaultDecimal = builder.defaultDecimal;
+        this.decimals = Collections.unmodifiableMap(new HashMap<>(builder.decimals));
+        this.precision = builder.precision;
+        this.primary = builder.primary;
+        this.startingBalance = builder.startingBalance;
+        this.conversionRate = builder.conversionRate;
+    }
+
+    @Override
+    public @NotNull String getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public @NotNull String getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public char getDecimal(@Nullable Locale locale) {
+        if (locale == null) {
+            return defaultDecimal;
+        }
+        return decimals.getOrDefault(locale, defaultDecimal);
+    }
+
+    @Override
+    public @NotNull Map<Locale, Character> getLocaleDecimalMap() {
+        return decimals;
+    }
+
+    @Override
+    public @NotNull String getDisplayName(@NotNull BigDecimal value, @Nullable Locale locale) {
+        return value.compareTo(BigDecimal.ONE) > 0 ? pluralName : singularName;
+    }
+
+    @Override
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    @Override
+    public @NotNull BigDecimal getStartingBalance(@NotNull Account account) {
+        return startingBalance;
+    }
+
+    @Override
+    public @NotNull BigDecimal getConversionRate() {
+        return conversionRate;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<BigDecimal> parse(
+            @NotNull String formattedAmount, @Nullable Locale locale
+    ) {
+        Objects.requireNonNull(formattedAmount, "formattedAmount");
+        String amount = formattedAmount.trim();
+        if (!symbol.isEmpty() && amount.startsWith(symbol)) {
+            amount = amount.substring(symbol.length()).trim();
+        }
+        char decimal = getDecimal(locale);
+        if (decimal != '.') {
+            // a dot isn't part of the amount in this locale
+            amount = amount.indexOf('.') == -1 ? amount.replace(decimal, '.') : "";
+        }
+        try {
+            return CompletableFuture.completedFuture(new BigDecimal(amount));
+        } catch (NumberFormatException e) {
+            return FutureHelper.failedFuture(new TreasuryException(
+                    "Cannot parse '" + formattedAmount + "' as an amount of " + identifier));
+        }
+    }
+
+    @Override
+    public @NotNull String format(@NotNull BigDecimal amount, @Nullable Locale locale) {
+        return format(amount, locale, precision);
+    }
+
+    @Override
+    public @NotNull String format(
+            @NotNull BigDecimal amount, @Nullable Locale locale, int precision
+    ) {
+        Objects.requireNonNull(amount, "amount");
+        String plain = amount.setScale(precision, RoundingMode.HALF_EVEN).toPlainString();
+        char decimal = getDecimal(locale);
+        return symbol + (decimal == '.' ? plain : plain.replace('.', decimal));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MemoryCurrency)) {
+            return false;
+        }
+        return identifier.equals(((MemoryCurrency) o).identifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return identifier.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryCurrency{" + "identifier='" + identifier + '\'' + ", symbol='" + symbol + '\'' + ", precision=" + precision + ", primary=" + primary + '}';
+    }
+
+    /**
+     * Represents a builder of a {@link MemoryCurrency}.
+     *
+     * @since 2.0.2
+     */
+    public static final class Builder {
+
+        private final String identifier;
+        private String symbol = "";
+        private String singularName;
+        private String pluralName;
+        private char defaultDecimal = '.';
+        private final Map<Locale, Character> decimals = new HashMap<>();
+        private int precision = 2;
+        private boolean primary;
+        private BigDecimal startingBalance = BigDecimal.ZERO;
+        private BigDecimal conversionRate = BigDecimal.ONE;
+
+        private Builder(@NotNull String identifier) {
+            this.identifier = Objects.requireNonNull(identifier, "identifier");
+            this.singularName = identifier;
+            this.pluralName = identifier;
+        }
+
+        /**
+         * Sets the symbol of the currency. Defaults to none.
+         *
+         * @param symbol symbol
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withSymbol(@NotNull String symbol) {
+            this.symbol = Objects.requireNonNull(symbol, "symbol");
+            return this;
+        }
+
+        /**
+         * Sets the singular and plural display names of the currency. Both default to the
+         * identifier.
+         *
+         * @param singularName singular display name
+         * @param pluralName   plural display name
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withDisplayNames(@NotNull String singularName, @NotNull String pluralName) {
+            this.singularName = Objects.requireNonNull(singularName, "singularName");
+            this.pluralName = Objects.requireNonNull(pluralName, "pluralName");
+            return this;
+        }
+
+        /**
+         * Sets the decimal character used when no locale, or a locale without a decimal
+         * character of its own, is specified. Defaults to {@code '.'}.
+         *
+         * @param decimal decimal character
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withDecimal(char decimal) {
+            this.defaultDecimal = decimal;
+            return this;
+        }
+
+        /**
+         * Sets the decimal character of the specified locale.
+         *
+         * @param locale  locale
+         * @param decimal decimal character
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withDecimal(@NotNull Locale locale, char decimal) {
+            this.decimals.put(Objects.requireNonNull(locale, "locale"), decimal);
+            return this;
+        }
+
+        /**
+         * Sets the precision of the currency. Defaults to 2.
+         *
+         * @param precision fractional digits
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withPrecision(int precision) {
+            if (precision < 0) {
+                throw new IllegalArgumentException("precision cannot be negative");
+            }
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Sets whether the currency is the primary currency. Defaults to {@code false}.
+         *
+         * @param primary whether primary
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withPrimary(boolean primary) {
+            this.primary = primary;
+            return this;
+        }
+
+        /**
+         * Sets the starting balance of every account. Defaults to zero.
+         *
+         * @param startingBalance starting balance
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withStartingBalance(@NotNull BigDecimal startingBalance) {
+            Objects.requireNonNull(startingBalance, "startingBalance");
+            if (startingBalance.signum() < 0) {
+                throw new IllegalArgumentException("startingBalance cannot be negative");
+            }
+            this.startingBalance = startingBalance;
+            return this;
+        }
+
+        /**
+         * Sets the conversion rate of the currency. Defaults to one.
+         *
+         * @param conversionRate conversion rate
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withConversionRate(@NotNull BigDecimal conversionRate) {
+            Objects.requireNonNull(conversionRate, "conversionRate");
+            if (conversionRate.signum() <= 0) {
+                throw new IllegalArgumentException("conversionRate must be positive");
+            }
+            this.conversionRate = conversionRate;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link MemoryCurrency}.
+         *
+         * @return currency
+         */
+        @NotNull
+        public MemoryCurrency build() {
+            return new MemoryCurrency(this);
+        }
+
+    }
+
+}
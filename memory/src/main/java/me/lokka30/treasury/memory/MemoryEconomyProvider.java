@@ -0,0 +1,500 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.FutureHelper;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.common.response.TreasuryException;
+import me.lokka30.treasury.api.economy.EconomyProvider;
+import me.lokka30.treasury.api.economy.account.Account;
+import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.AccountIdCursor;
+import me.lokka30.treasury.api.economy.account.AccountPermission;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.account.accessor.AccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.NonPlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.account.accessor.PlayerAccountAccessor;
+import me.lokka30.treasury.api.economy.currency.Currency;
+import me.lokka30.treasury.api.economy.transaction.AccountTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An {@link EconomyProvider}, which keeps all of its accounts and balances in memory, hence
+ * loses them when the server stops. It's meant as a fast default for servers which don't need
+ * to persist balances, such as minigame servers, and as a reference implementation to test and
+ * benchmark against.
+ * <p>Every returned {@link CompletableFuture} is already completed: nothing is ever handed off
+ * to another thread, so dependent stages run right away, on the calling thread.
+ * <p>Accounts are kept in concurrent maps and are created on their first access. Balances can
+ * be read at any time without locking. Balance changes take the lock of the account, which is
+ * one of a fixed amount of {@link Builder#withLockStripes(int) lock stripes}, so that changes of
+ * different accounts rarely contend. {@link Account#doTransactions(List) Batches} and
+ * {@link #executeBatch(List) multi-account batches}, thus transfers too, take the locks of all
+ * the involved accounts, in a fixed order, and validate all of their transactions before
+ * applying any of them: they either apply fully or not at all, and never interleave with other
+ * balance changes of the same accounts. Reads aren't isolated from a batch being applied.
+ * <p>Transactions with negative amounts, withdrawals exceeding the balance and transactions in
+ * currencies which aren't registered fail with a {@link TreasuryException}. The last
+ * {@link Builder#withHistoryLimit(int) few} transactions of each account are kept for the
+ * {@link Account#retrieveTransactionHistory(int, java.time.temporal.Temporal,
+ * java.time.temporal.Temporal) transaction history}.
+ *
+ * @since 2.0.2
+ */
+public final class MemoryEconomyProvider implements EconomyProvider {
+
+    /**
+     * Creates a new {@link Builder} of a {@code MemoryEconomyProvider} with the specified primary
+     * currency.
+     *
+     * @param primaryCurrency primary currency
+     * @return new builder
+     */
+    @NotNull
+    public static Builder newBuilder(@NotNull Currency primaryCurrency) {
+        return new Builder(primaryCurrency);
+    }
+
+    private static final TreasuryException NEGATIVE_AMOUNT = new TreasuryException(
+            "Transaction amounts cannot be negative.");
+    private static final TreasuryException INSUFFICIENT_BALANCE = new TreasuryException(
+            "The account doesn't have enough balance.");
+
+    private final Currency primaryCurrency;
+    private final Map<String, Currency> currencies = new ConcurrentHashMap<>();
+    private final Map<UUID, MemoryPlayerAccount> playerAccounts = new ConcurrentHashMap<>();
+    private final Map<NamespacedKey, MemoryNonPlayerAccount> nonPlayerAccounts = new ConcurrentHashMap<>();
+    private final Lock[] locks;
+    private final int historyLimit;
+    private final AccountAccessor accountAccessor = new MemoryAccountAccessor();
+
+    private MemoryEconomyProvider(@NotNull Builder builder) {
+        this.primaryCurrency = builder.primaryCurrency;
+        this.currencies.put(primaryCurrency.getIdentifier(), primaryCurrency);
+        for (Currency currency : builder.currencies) {
+            this.currencies.putIfAbsent(currency.getIdentifier(), currency);
+        }
+        this.locks = new Lock[builder.lockStripes];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.historyLimit = builder.historyLimit;
+    }
+
+    int stripeOf(@NotNull Object identifier) {
+        int hash = identifier.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    @NotNull
+    Lock lock(int stripe) {
+        return locks[stripe];
+    }
+
+    int historyLimit() {
+        return historyLimit;
+    }
+
+    @NotNull
+    Currency requireCurrency(@NotNull String identifier) {
+        Currency currency = currencies.get(identifier);
+        if (currency == null) {
+            throw new TreasuryException("The currency " + identifier + " is not registered.");
+        }
+        return currency;
+    }
+
+    void remove(@NotNull MemoryAccount account) {
+        if (account instanceof MemoryPlayerAccount) {
+            MemoryPlayerAccount playerAccount = (MemoryPlayerAccount) account;
+            playerAccounts.remove(playerAccount.identifier(), playerAccount);
+        } else {
+            MemoryNonPlayerAccount nonPlayerAccount = (MemoryNonPlayerAccount) account;
+            nonPlayerAccounts.remove(nonPlayerAccount.identifier(), nonPlayerAccount);
+        }
+    }
+
+    @NotNull
+    static BigDecimal apply(@NotNull BigDecimal balance, @NotNull EconomyTransaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        if (amount.signum() < 0) {
+            throw NEGATIVE_AMOUNT;
+        }
+        switch (transaction.getType()) {
+            case DEPOSIT:
+                return balance.add(amount);
+            case WITHDRAWAL:
+                BigDecimal withdrawn = balance.subtract(amount);
+                if (withdrawn.signum() < 0) {
+                    throw INSUFFICIENT_BALANCE;
+                }
+                return withdrawn;
+            case SET:
+                return amount;
+            default:
+                throw new TreasuryException("Unknown transaction type " + transaction.getType());
+        }
+    }
+
+    @NotNull
+    CompletableFuture<List<BigDecimal>> executeAtomically(
+            @NotNull List<? extends MemoryAccount> accounts,
+            @NotNull List<EconomyTransaction> transactions
+    ) {
+        int size = transactions.size();
+        if (size == 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        // lock the stripes in ascending order, so that batches never deadlock each other
+        int[] stripes = new int[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = accounts.get(i).stripe;
+        }
+        Arrays.sort(stripes);
+        int locked = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1]) {
+                stripes[locked++] = stripes[i];
+            }
+        }
+        for (int i = 0; i < locked; i++) {
+            locks[stripes[i]].lock();
+        }
+        try {
+            // validate everything before touching any balance
+            Map<MemoryAccount.Balance, BigDecimal> pending = new IdentityHashMap<>();
+            BigDecimal[] results = new BigDecimal[size];
+            for (int i = 0; i < size; i++) {
+                MemoryAccount account = accounts.get(i);
+                EconomyTransaction transaction = Objects.requireNonNull(transactions.get(i),
+                        "transaction"
+                );
+                account.checkNotDeleted();
+                Currency currency = requireCurrency(transaction.getCurrencyId());
+                MemoryAccount.Balance balance = account.balance(currency);
+                BigDecimal current = pending.get(balance);
+                results[i] = apply(current != null ? current : balance.value, transaction);
+                pending.put(balance, results[i]);
+            }
+            for (Map.Entry<MemoryAccount.Balance, BigDecimal> entry : pending.entrySet()) {
+                entry.getKey().value = entry.getValue();
+            }
+            for (int i = 0; i < size; i++) {
+                accounts.get(i).record(transactions.get(i));
+            }
+            return CompletableFuture.completedFuture(Collections.unmodifiableList(Arrays.asList(
+                    results)));
+        } catch (RuntimeException e) {
+            // such as a null transaction, reported like the invalid ones
+            return FutureHelper.failedFuture(e);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    @Override
+    public @NotNull AccountAccessor accountAccessor() {
+        return accountAccessor;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> hasAccount(@NotNull AccountData accountData) {
+        Objects.requireNonNull(accountData, "accountData");
+        if (accountData.isPlayerAccount()) {
+            return CompletableFuture.completedFuture(playerAccounts.containsKey(accountData
+                    .getPlayerIdentifier()
+                    .get()));
+        }
+        return CompletableFuture.completedFuture(nonPlayerAccounts.containsKey(accountData
+                .getNonPlayerIdentifier()
+                .get()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<UUID>> retrievePlayerAccountIds() {
+        return CompletableFuture.completedFuture(new ArrayList<>(playerAccounts.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NamespacedKey>> retrieveNonPlayerAccountIds() {
+        return CompletableFuture.completedFuture(new ArrayList<>(nonPlayerAccounts.keySet()));
+    }
+
+    @Override
+    public @NotNull AccountIdCursor<UUID> playerAccountIdCursor() {
+        // pages through the live key set, instead of copying it
+        return AccountIdCursor.of(() -> CompletableFuture.completedFuture(playerAccounts.keySet()));
+    }
+
+    @Override
+    public @NotNull AccountIdCursor<NamespacedKey> nonPlayerAccountIdCursor() {
+        return AccountIdCursor.of(() -> CompletableFuture.completedFuture(nonPlayerAccounts.keySet()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NonPlayerAccount>> retrieveAllAccountsPlayerIsMemberOf(
+            @NotNull UUID playerId
+    ) {
+        Objects.requireNonNull(playerId, "playerId");
+        List<NonPlayerAccount> ret = new ArrayList<>();
+        for (MemoryNonPlayerAccount account : nonPlayerAccounts.values()) {
+            if (account.hasMember(playerId)) {
+                ret.add(account);
+            }
+        }
+        return CompletableFuture.completedFuture(ret);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<NonPlayerAccount>> retrieveAllAccountsPlayerHasPermissions(
+            @NotNull UUID playerId, @NotNull AccountPermission @NotNull ... permissions
+    ) {
+        Objects.requireNonNull(playerId, "playerId");
+        Objects.requireNonNull(permissions, "permissions");
+        List<NonPlayerAccount> ret = new ArrayList<>();
+        for (MemoryNonPlayerAccount account : nonPlayerAccounts.values()) {
+            if (account.permissionsOf(playerId, permissions) == TriState.TRUE) {
+                ret.add(account);
+            }
+        }
+        return CompletableFuture.completedFuture(ret);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<UUID, Map<String, BigDecimal>>> retrieveBalances(
+            @NotNull Collection<UUID> playerIds, @NotNull Collection<Currency> currencies
+    ) {
+        Objects.requireNonNull(playerIds, "playerIds");
+        Objects.requireNonNull(currencies, "currencies");
+        List<Currency> known = new ArrayList<>(currencies.size());
+        try {
+            for (Currency currency : currencies) {
+                known.add(requireCurrency(currency.getIdentifier()));
+            }
+        } catch (TreasuryException e) {
+            return FutureHelper.failedFuture(e);
+        }
+
+        Map<UUID, Map<String, BigDecimal>> ret = new HashMap<>();
+        if (known.isEmpty()) {
+            return CompletableFuture.completedFuture(ret);
+        }
+        for (UUID playerId : playerIds) {
+            MemoryPlayerAccount account = playerAccounts.get(playerId);
+            if (account == null) {
+                continue;
+            }
+            Map<String, BigDecimal> balances = new HashMap<>(known.size());
+            for (Currency currency : known) {
+                balances.put(currency.getIdentifier(), account.balance(currency).value);
+            }
+            ret.put(playerId, balances);
+        }
+        return CompletableFuture.completedFuture(ret);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<List<BigDecimal>> executeBatch(
+            @NotNull List<AccountTransaction> transactions
+    ) {
+        Objects.requireNonNull(transactions, "transactions");
+        List<MemoryAccount> accounts = new ArrayList<>(transactions.size());
+        List<EconomyTransaction> economyTransactions = new ArrayList<>(transactions.size());
+        for (AccountTransaction transaction : transactions) {
+            Account account = transaction.getAccount();
+            if (!(account instanceof MemoryAccount) || ((MemoryAccount) account).provider != this) {
+                // not ours, can't lock it
+                return EconomyProvider.super.executeBatch(transactions);
+            }
+            accounts.add((MemoryAccount) account);
+            economyTransactions.add(transaction.getTransaction());
+        }
+        return executeAtomically(accounts, economyTransactions);
+    }
+
+    @Override
+    public @NotNull Currency getPrimaryCurrency() {
+        return primaryCurrency;
+    }
+
+    @Override
+    public @NotNull Optional<Currency> findCurrency(@NotNull String identifier) {
+        Objects.requireNonNull(identifier, "identifier");
+        return Optional.ofNullable(currencies.get(identifier));
+    }
+
+    @Override
+    public @NotNull Set<Currency> getCurrencies() {
+        return Collections.unmodifiableSet(new HashSet<>(currencies.values()));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<TriState> registerCurrency(@NotNull Currency currency) {
+        Objects.requireNonNull(currency, "currency");
+        return CompletableFuture.completedFuture(currencies.putIfAbsent(currency.getIdentifier(),
+                currency
+        ) == null ? TriState.TRUE : TriState.UNSPECIFIED);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>The primary currency can't be unregistered. The balances of the accounts in the
+     * unregistered currency are kept, and are available again if the currency is registered
+     * again.
+     */
+    @Override
+    public @NotNull CompletableFuture<TriState> unregisterCurrency(@NotNull Currency currency) {
+        Objects.requireNonNull(currency, "currency");
+        if (currency.getIdentifier().equals(primaryCurrency.getIdentifier())) {
+            return CompletableFuture.completedFuture(TriState.FALSE);
+        }
+        return CompletableFuture.completedFuture(currencies.remove(currency.getIdentifier()) != null
+                ? TriState.TRUE
+                : TriState.UNSPECIFIED);
+    }
+
+    private final class MemoryAccountAccessor implements AccountAccessor {
+
+        @Override
+        public @NotNull PlayerAccountAccessor player() {
+            return new PlayerAccountAccessor() {
+                @Override
+                protected @NotNull CompletableFuture<PlayerAccount> getOrCreate(
+                        @NotNull PlayerAccountCreateContext context
+                ) {
+                    UUID uniqueId = context.getUniqueId();
+                    MemoryPlayerAccount account = playerAccounts.get(uniqueId);
+                    if (account == null) {
+                        account = playerAccounts.computeIfAbsent(uniqueId,
+                                id -> new MemoryPlayerAccount(MemoryEconomyProvider.this, id)
+                        );
+                    }
+                    return CompletableFuture.completedFuture(account);
+                }
+            };
+        }
+
+        @Override
+        public @NotNull NonPlayerAccountAccessor nonPlayer() {
+            return new NonPlayerAccountAccessor() {
+                @Override
+                protected @NotNull CompletableFuture<NonPlayerAccount> getOrCreate(
+                        @NotNull NonPlayerAccountCreateContext context
+                ) {
+                    NamespacedKey identifier = context.getIdentifier();
+                    MemoryNonPlayerAccount account = nonPlayerAccounts.get(identifier);
+                    if (account == null) {
+                        account = nonPlayerAccounts.computeIfAbsent(identifier,
+                                id -> new MemoryNonPlayerAccount(MemoryEconomyProvider.this,
+                                        id,
+                                        context.getName()
+                                )
+                        );
+                    }
+                    return CompletableFuture.completedFuture(account);
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Represents a builder of a {@link MemoryEconomyProvider}.
+     *
+     * @since 2.0.2
+     */
+    public static final class Builder {
+
+        private final Currency primaryCurrency;
+        private final List<Currency> currencies = new ArrayList<>();
+        private int lockStripes = 64;
+        private int historyLimit = 100;
+
+        private Builder(@NotNull Currency primaryCurrency) {
+            this.primaryCurrency = Objects.requireNonNull(primaryCurrency, "primaryCurrency");
+        }
+
+        /**
+         * Registers the specified, non-primary, currency from the start.
+         *
+         * @param currency currency
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withCurrency(@NotNull Currency currency) {
+            this.currencies.add(Objects.requireNonNull(currency, "currency"));
+            return this;
+        }
+
+        /**
+         * Sets the amount of locks the balance changes of the accounts are spread across,
+         * rounded up to a power of two. More stripes make changes of different accounts contend
+         * less often. Defaults to 64.
+         *
+         * @param lockStripes amount of lock stripes
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withLockStripes(int lockStripes) {
+            if (lockStripes <= 0 || lockStripes > 1 << 16) {
+                throw new IllegalArgumentException("lockStripes must be between 1 and 65536");
+            }
+            this.lockStripes = lockStripes == 1 ? 1 : Integer.highestOneBit(lockStripes - 1) << 1;
+            return this;
+        }
+
+        /**
+         * Sets how many of the most recent transactions of each account are kept. Zero disables
+         * the transaction history. Defaults to 100.
+         *
+         * @param historyLimit transactions kept per account
+         * @return this instance for chaining
+         */
+        @NotNull
+        public Builder withHistoryLimit(int historyLimit) {
+            if (historyLimit < 0) {
+                throw new IllegalArgumentException("historyLimit cannot be negative");
+            }
+            this.historyLimit = historyLimit;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link MemoryEconomyProvider}.
+         *
+         * @return memory economy provider
+         */
+        @NotNull
+        public MemoryEconomyProvider build() {
+            return new MemoryEconomyProvider(this);
+        }
+
+    }
+
+}
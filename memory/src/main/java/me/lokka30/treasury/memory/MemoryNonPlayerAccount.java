@@ -0,0 +1,149 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.account.AccountPermission;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final class MemoryNonPlayerAccount extends MemoryAccount implements NonPlayerAccount {
+
+    private final NamespacedKey identifier;
+    private volatile String name;
+    // values are unmodifiable and replaced on every change, hence can be read without copying
+    private final Map<UUID, Map<AccountPermission, TriState>> permissions = new ConcurrentHashMap<>();
+
+    MemoryNonPlayerAccount(
+            @NotNull MemoryEconomyProvider provider,
+            @NotNull NamespacedKey identifier,
+            @Nullable String name
+    ) {
+        super(provider, identifier);
+        this.identifier = identifier;
+        this.name = name;
+    }
+
+    @Override
+    public @NotNull NamespacedKey identifier() {
+        return identifier;
+    }
+
+    @Override
+    public @NotNull Optional<String> getName() {
+        return Optional.ofNullable(name);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> setName(@Nullable String name) {
+        this.name = name;
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Collection<UUID>> retrieveMemberIds() {
+        List<UUID> members = new ArrayList<>();
+        for (Map.Entry<UUID, Map<AccountPermission, TriState>> entry : permissions.entrySet()) {
+            if (entry.getValue().containsValue(TriState.TRUE)) {
+                members.add(entry.getKey());
+            }
+        }
+        return CompletableFuture.completedFuture(members);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> isMember(@NotNull UUID player) {
+        Objects.requireNonNull(player, "player");
+        return CompletableFuture.completedFuture(hasMember(player));
+    }
+
+    boolean hasMember(@NotNull UUID player) {
+        Map<AccountPermission, TriState> values = permissions.get(player);
+        return values != null && values.containsValue(TriState.TRUE);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> setPermissions(
+            @NotNull UUID player, @NotNull Map<AccountPermission, TriState> permissionsMap
+    ) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(permissionsMap, "permissionsMap");
+        permissions.compute(player, (id, current) -> {
+            Map<AccountPermission, TriState> values = current == null
+                    ? new EnumMap<>(AccountPermission.class)
+                    : new EnumMap<>(current);
+            for (Map.Entry<AccountPermission, TriState> entry : permissionsMap.entrySet()) {
+                if (entry.getValue() == TriState.UNSPECIFIED) {
+                    values.remove(entry.getKey());
+                } else {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return values.isEmpty() ? null : Collections.unmodifiableMap(values);
+        });
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<AccountPermission, TriState>> retrievePermissions(@NotNull UUID player) {
+        Objects.requireNonNull(player, "player");
+        return CompletableFuture.completedFuture(permissions.getOrDefault(player,
+                Collections.emptyMap()
+        ));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<UUID, Map<AccountPermission, TriState>>> retrievePermissionsMap() {
+        return CompletableFuture.completedFuture(Collections.unmodifiableMap(new HashMap<>(
+                permissions)));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<TriState> hasPermissions(
+            @NotNull UUID player, @NotNull AccountPermission @NotNull ... permissions
+    ) {
+        Objects.requireNonNull(player, "player");
+        Objects.requireNonNull(permissions, "permissions");
+        return CompletableFuture.completedFuture(permissionsOf(player, permissions));
+    }
+
+    @NotNull
+    TriState permissionsOf(@NotNull UUID player, @NotNull AccountPermission @NotNull [] permissions) {
+        Map<AccountPermission, TriState> values = this.permissions.getOrDefault(player,
+                Collections.emptyMap()
+        );
+        TriState ret = TriState.TRUE;
+        for (AccountPermission permission : permissions) {
+            TriState value = values.getOrDefault(permission, TriState.UNSPECIFIED);
+            if (value == TriState.FALSE) {
+                return TriState.FALSE;
+            }
+            if (value == TriState.UNSPECIFIED) {
+                ret = TriState.UNSPECIFIED;
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryNonPlayerAccount{" + "identifier=" + identifier + ", name=" + name + '}';
+    }
+
+}
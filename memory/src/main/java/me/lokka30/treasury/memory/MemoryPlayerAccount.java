@@ -0,0 +1,36 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.util.Optional;
+import java.util.UUID;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import org.jetbrains.annotations.NotNull;
+
+final class MemoryPlayerAccount extends MemoryAccount implements PlayerAccount {
+
+    private final UUID uniqueId;
+
+    MemoryPlayerAccount(@NotNull MemoryEconomyProvider provider, @NotNull UUID uniqueId) {
+        super(provider, uniqueId);
+        this.uniqueId = uniqueId;
+    }
+
+    @Override
+    public @NotNull UUID identifier() {
+        return uniqueId;
+    }
+
+    @Override
+    public @NotNull Optional<String> getName() {
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryPlayerAccount{" + "uniqueId=" + uniqueId + '}';
+    }
+
+}
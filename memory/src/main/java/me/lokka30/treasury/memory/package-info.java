@@ -0,0 +1,4 @@
+/**
+ * Holds an in-memory economy provider implementation.
+ */
+package me.lokka30.treasury.memory;
@@ -0,0 +1,251 @@
+/*
+ * This file is/was part of Treasury. To read more information about Treasury such as its licensing, see <https://github.com/ArcanePlugins/Treasury>.
+ */
+
+package me.lokka30.treasury.memory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import me.lokka30.treasury.api.common.Cause;
+import me.lokka30.treasury.api.common.NamespacedKey;
+import me.lokka30.treasury.api.common.misc.TriState;
+import me.lokka30.treasury.api.economy.account.AccountPermission;
+import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
+import me.lokka30.treasury.api.economy.account.PlayerAccount;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransaction;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionImportance;
+import me.lokka30.treasury.api.economy.transaction.EconomyTransactionType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MemoryEconomyProviderTest {
+
+    private static final MemoryCurrency COINS = MemoryCurrency
+            .newBuilder("coins")
+            .withPrimary(true)
+            .withStartingBalance(new BigDecimal("10"))
+            .build();
+
+    private static MemoryEconomyProvider newProvider() {
+        return MemoryEconomyProvider.newBuilder(COINS).build();
+    }
+
+    private static PlayerAccount player(@NotNull MemoryEconomyProvider provider) {
+        CompletableFuture<PlayerAccount> future = provider
+                .accountAccessor()
+                .player()
+                .withUniqueId(UUID.randomUUID())
+                .get();
+        Assertions.assertTrue(future.isDone());
+        return future.join();
+    }
+
+    private static EconomyTransaction transaction(
+            @NotNull EconomyTransactionType type, @NotNull String amount
+    ) {
+        return EconomyTransaction
+                .newBuilder()
+                .withCurrency(COINS)
+                .withCause(Cause.SERVER)
+                .withType(type)
+                .withAmount(new BigDecimal(amount))
+                .withImportance(EconomyTransactionImportance.NORMAL)
+                .build();
+    }
+
+    @Test
+    void testTransactions() {
+        PlayerAccount account = player(newProvider());
+        Assertions.assertEquals(new BigDecimal("10"), account.retrieveBalance(COINS).join());
+
+        CompletableFuture<BigDecimal> deposit = account.depositBalance(new BigDecimal("5"),
+                Cause.SERVER,
+                COINS
+        );
+        Assertions.assertTrue(deposit.isDone());
+        Assertions.assertEquals(new BigDecimal("15"), deposit.join());
+        Assertions.assertEquals(new BigDecimal("3"),
+                account.withdrawBalance(new BigDecimal("12"), Cause.SERVER, COINS).join()
+        );
+        Assertions.assertEquals(new BigDecimal("7"),
+                account.doTransaction(transaction(EconomyTransactionType.SET, "7")).join()
+        );
+        Assertions.assertEquals(new BigDecimal("10"),
+                account.resetBalance(Cause.SERVER, COINS, EconomyTransactionImportance.NORMAL).join()
+        );
+    }
+
+    @Test
+    void testInvalidTransactions() {
+        PlayerAccount account = player(newProvider());
+        Assertions.assertTrue(account
+                .withdrawBalance(new BigDecimal("11"), Cause.SERVER, COINS)
+                .isCompletedExceptionally());
+        Assertions.assertTrue(account
+                .doTransaction(transaction(EconomyTransactionType.DEPOSIT, "-1"))
+                .isCompletedExceptionally());
+        Assertions.assertTrue(account.doTransaction(EconomyTransaction
+                .newBuilder()
+                .withCurrencyId("gems")
+                .withCause(Cause.SERVER)
+                .withType(EconomyTransactionType.DEPOSIT)
+                .withAmount(BigDecimal.ONE)
+                .withImportance(EconomyTransactionImportance.NORMAL)
+                .build()).isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("10"), account.retrieveBalance(COINS).join());
+    }
+
+    @Test
+    void testBatchIsAtomic() {
+        MemoryEconomyProvider provider = newProvider();
+        PlayerAccount account = player(provider);
+        List<BigDecimal> balances = account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.DEPOSIT, "5"),
+                transaction(EconomyTransactionType.SET, "3"),
+                transaction(EconomyTransactionType.WITHDRAWAL, "1")
+        )).join();
+        Assertions.assertEquals(Arrays.asList(new BigDecimal("15"),
+                new BigDecimal("3"),
+                new BigDecimal("2")
+        ), balances);
+
+        Assertions.assertTrue(account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.DEPOSIT, "5"),
+                transaction(EconomyTransactionType.WITHDRAWAL, "8")
+        )).isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("2"), account.retrieveBalance(COINS).join());
+        Assertions.assertEquals(3, account.retrieveTransactionHistory(10).join().size());
+
+        Assertions.assertTrue(account.doTransactions(Arrays.asList(
+                transaction(EconomyTransactionType.DEPOSIT, "5"),
+                null
+        )).isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("2"), account.retrieveBalance(COINS).join());
+    }
+
+    @Test
+    void testTransfer() {
+        MemoryEconomyProvider provider = newProvider();
+        PlayerAccount from = player(provider);
+        PlayerAccount to = player(provider);
+        Assertions.assertEquals(Arrays.asList(new BigDecimal("6"), new BigDecimal("14")),
+                provider.transfer(from, to, new BigDecimal("4"), Cause.SERVER, COINS).join()
+        );
+        Assertions.assertTrue(provider
+                .transfer(from, to, new BigDecimal("7"), Cause.SERVER, COINS)
+                .isCompletedExceptionally());
+        Assertions.assertEquals(new BigDecimal("6"), from.retrieveBalance(COINS).join());
+        Assertions.assertEquals(new BigDecimal("14"), to.retrieveBalance(COINS).join());
+    }
+
+    @Test
+    void testConcurrentTransfers() throws Exception {
+        MemoryEconomyProvider provider = MemoryEconomyProvider
+                .newBuilder(COINS)
+                .withLockStripes(4)
+                .withHistoryLimit(0)
+                .build();
+        List<PlayerAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            accounts.add(player(provider));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int seed = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        PlayerAccount from = accounts.get((seed + i) % accounts.size());
+                        PlayerAccount to = accounts.get((seed * 3 + i * 5 + 1) % accounts.size());
+                        // may fail on insufficient balance, which is fine
+                        provider.transfer(from, to, BigDecimal.ONE, Cause.SERVER, COINS);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (PlayerAccount account : accounts) {
+            BigDecimal balance = account.retrieveBalance(COINS).join();
+            Assertions.assertTrue(balance.signum() >= 0);
+            total = total.add(balance);
+        }
+        Assertions.assertEquals(new BigDecimal("80"), total);
+    }
+
+    @Test
+    void testAccounts() {
+        MemoryEconomyProvider provider = newProvider();
+        PlayerAccount account = player(provider);
+        UUID missing = UUID.randomUUID();
+        Map<UUID, Map<String, BigDecimal>> balances = provider.retrieveBalances(Arrays.asList(
+                account.identifier(),
+                missing
+        ), Collections.singleton(COINS)).join();
+        Assertions.assertEquals(Collections.singletonMap(account.identifier(),
+                Collections.singletonMap("coins", new BigDecimal("10"))
+        ), balances);
+
+        Assertions.assertTrue(account.deleteAccount().join());
+        Assertions.assertFalse(account.deleteAccount().join());
+        Assertions.assertTrue(provider.retrievePlayerAccountIds().join().isEmpty());
+        Assertions.assertTrue(account
+                .depositBalance(BigDecimal.ONE, Cause.SERVER, COINS)
+                .isCompletedExceptionally());
+    }
+
+    @Test
+    void testPermissions() {
+        MemoryEconomyProvider provider = newProvider();
+        NonPlayerAccount bank = provider
+                .accountAccessor()
+                .nonPlayer()
+                .withIdentifier(NamespacedKey.of("test", "bank"))
+                .withName("Bank")
+                .get()
+                .join();
+        UUID member = UUID.randomUUID();
+        bank.setPermissions(member,
+                TriState.TRUE,
+                AccountPermission.BALANCE,
+                AccountPermission.DEPOSIT
+        ).join();
+        bank.setPermissions(member, TriState.FALSE, AccountPermission.WITHDRAW).join();
+
+        Assertions.assertTrue(bank.isMember(member).join());
+        Assertions.assertEquals(TriState.TRUE,
+                bank.hasPermissions(member, AccountPermission.BALANCE).join()
+        );
+        Assertions.assertEquals(TriState.FALSE,
+                bank
+                        .hasPermissions(member, AccountPermission.BALANCE, AccountPermission.WITHDRAW)
+                        .join()
+        );
+        Assertions.assertEquals(TriState.UNSPECIFIED,
+                bank.hasPermissions(member, AccountPermission.MODIFY_PERMISSIONS).join()
+        );
+        Collection<NonPlayerAccount> memberOf = provider
+                .retrieveAllAccountsPlayerIsMemberOf(member)
+                .join();
+        Assertions.assertEquals(Collections.singletonList(bank), new ArrayList<>(memberOf));
+        Assertions.assertEquals("Bank", bank.getName().orElse(null));
+    }
+
+}
@@ -41,8 +41,9 @@ public class TreasuryPapiExpansion extends PlaceholderExpansion implements Confi
         Map<String, Object> defaults = new HashMap<>();
         defaults.put("baltop.enabled", false);
         defaults.put("baltop.cache_size", 100);
-        defaults.put("baltop.check_delay", 30);
-        defaults.put("balance.cache_check_delay", 60);
+        defaults.put("balance.cache_check_delay", 5);
+        defaults.put("balance.reconcile_delay", 1800);
+        defaults.put("balance.refresh_window_accounts", 4000);
         defaults.put("formatting.thousands", "k");
         defaults.put("formatting.millions", "M");
         defaults.put("formatting.billions", "B");
@@ -6,15 +6,24 @@ package me.lokka30.treasury.plugin.sponge.apiimpl.economy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import me.lokka30.treasury.api.common.NamespacedKey;
 import me.lokka30.treasury.api.common.misc.FutureHelper;
 import me.lokka30.treasury.api.common.misc.TriState;
 import me.lokka30.treasury.api.economy.EconomyProvider;
 import me.lokka30.treasury.api.economy.account.AccountData;
+import me.lokka30.treasury.api.economy.account.AccountIdCursor;
 import me.lokka30.treasury.api.economy.account.NonPlayerAccount;
 import me.lokka30.treasury.api.economy.account.PlayerAccount;
 import me.lokka30.treasury.plugin.sponge.util.SpongeUtil;
@@ -28,6 +37,8 @@ import org.spongepowered.api.service.economy.account.VirtualAccount;
 
 public class EconomyServiceImpl implements EconomyService {
 
+    private static final int STREAM_PAGE_SIZE = 500;
+
     private final MappedCurrenciesCache cache = new MappedCurrenciesCache(getHandle());
 
     @Override
@@ -72,7 +83,17 @@ public class EconomyServiceImpl implements EconomyService {
     @Override
     public Stream<UniqueAccount> streamUniqueAccounts() {
         SpongeUtil.checkMainThread("streamUniqueAccounts", getCallerClassName());
-        return uniqueAccounts().stream();
+        return streamAccounts(getHandle().playerAccountIdCursor(), ids -> {
+            Collection<CompletableFuture<PlayerAccount>> accounts = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                accounts.add(getHandle().accountAccessor().player().withUniqueId(id).get());
+            }
+            return FutureHelper.mapJoinFilter(
+                    s -> CompletableFuture.completedFuture(TriState.TRUE),
+                    account -> (UniqueAccount) new UniqueAccountImpl(getHandle(), cache, account),
+                    accounts
+            );
+        });
     }
 
     @Override
@@ -94,7 +115,55 @@ public class EconomyServiceImpl implements EconomyService {
     @Override
     public Stream<VirtualAccount> streamVirtualAccounts() {
         SpongeUtil.checkMainThread("streamVirtualAccounts", getCallerClassName());
-        return virtualAccounts().stream();
+        return streamAccounts(getHandle().nonPlayerAccountIdCursor(), ids -> {
+            Collection<CompletableFuture<NonPlayerAccount>> accounts = new ArrayList<>(ids.size());
+            for (NamespacedKey id : ids) {
+                accounts.add(getHandle().accountAccessor().nonPlayer().withIdentifier(id).get());
+            }
+            return FutureHelper.mapJoinFilter(
+                    s -> CompletableFuture.completedFuture(TriState.TRUE),
+                    account -> (VirtualAccount) new VirtualAccountImpl(getHandle(), cache, account),
+                    accounts
+            );
+        });
+    }
+
+    // Lazily pages through the cursor as the stream gets consumed, rather than loading every id.
+    // The accounts of a page are all retrieved at once, so the stream only waits once per page
+    private static <T, A> Stream<A> streamAccounts(
+            AccountIdCursor<T> cursor, Function<List<T>, CompletableFuture<Collection<A>>> resolvePage
+    ) {
+        Iterator<A> accounts = new Iterator<A>() {
+            private Iterator<A> page = Collections.emptyIterator();
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !exhausted) {
+                    List<T> next = cursor.next(STREAM_PAGE_SIZE).join();
+                    if (next.isEmpty()) {
+                        exhausted = true;
+                        cursor.close();
+                    } else {
+                        page = resolvePage.apply(next).join().iterator();
+                    }
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public A next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(accounts,
+                        Spliterator.ORDERED | Spliterator.NONNULL
+                ), false)
+                .onClose(cursor::close);
     }
 
     @Override
@@ -5,6 +5,7 @@
 package me.lokka30.treasury.plugin.velocity;
 
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
@@ -60,6 +61,58 @@ public class TreasuryCommand {
                                         "treasury.command.treasury.downloadLatest"))
                                 .executes(constructCommand(base, sources, "downloadLatest"))
                 )
+                .then(
+                        LiteralArgumentBuilder.<CommandSource>literal("debug")
+                                .requires(source -> source.hasPermission(
+                                        "treasury.command.treasury.debug"))
+                                .executes(constructCommand(base, sources, "debug"))
+                                .then(
+                                        LiteralArgumentBuilder.<CommandSource>literal("enable")
+                                                .executes(constructCommand(base, sources,
+                                                        "debug enable"))
+                                )
+                                .then(
+                                        LiteralArgumentBuilder.<CommandSource>literal("disable")
+                                                .executes(constructCommand(base, sources,
+                                                        "debug disable"))
+                                )
+                                .then(
+                                        LiteralArgumentBuilder.<CommandSource>literal("reset")
+                                                .executes(constructCommand(base, sources,
+                                                        "debug reset"))
+                                )
+                                .then(
+                                        LiteralArgumentBuilder.<CommandSource>literal("events")
+                                                .executes(constructCommand(base, sources,
+                                                        "debug events"))
+                                )
+                                .then(
+                                        LiteralArgumentBuilder.<CommandSource>literal("subscribers")
+                                                .executes(constructCommand(base, sources,
+                                                        "debug subscribers"))
+                                                .then(
+                                                        RequiredArgumentBuilder
+                                                                .<CommandSource, Integer>argument(
+                                                                        "amount",
+                                                                        IntegerArgumentType.integer(1)
+                                                                )
+                                                                .executes(context -> {
+                                                                    String[] args = {"debug", "subscribers", String.valueOf(
+                                                                            context.getArgument(
+                                                                                    "amount",
+                                                                                    Integer.class
+                                                                            ))};
+                                                                    base.execute(
+                                                                            sources.obtainSource(
+                                                                                    context.getSource()),
+                                                                            "treasury",
+                                                                            args
+                                                                    );
+                                                                    return Command.SINGLE_SUCCESS;
+                                                                })
+                                                )
+                                )
+                )
                 .then(
                         LiteralArgumentBuilder.<CommandSource>literal("economy")
                                 .requires(source -> source.hasPermission(